@@ -0,0 +1,11 @@
+#!/bin/sh
+# Compiles the game and the benchmarks into bench/out, running the JMH annotation
+# processor. JMH_CP lists the JMH jars separated by ':', i.e. jmh-core,
+# jmh-generator-annprocess, jopt-simple and commons-math3.
+set -e
+cd "$(dirname "$0")/.."
+: "${JMH_CP:?Set JMH_CP to the JMH jars, separated by ':'}"
+rm -rf bench/out
+javac --release 11 -cp "$JMH_CP" -processorpath "$JMH_CP" -d bench/out \
+        src/dungeon/*.java bench/dungeon/*.java
+echo "Run from $(pwd) with: java -cp bench/out:\$JMH_CP dungeon.BenchmarkRunner [regex]"
@@ -0,0 +1,35 @@
+package dungeon;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the dungeon benchmarks with the allocation profiler enabled. The first argument,
+ * if any, is a regular expression selecting the benchmarks to run.
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args optional benchmark filter
+   * @throws RunnerException if a benchmark fails
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+            .include(args.length > 0 ? args[0] : "dungeon\\..*Benchmark")
+            .addProfiler(GCProfiler.class)
+            .jvmArgsAppend("-Djava.awt.headless=true")
+            .forks(1)
+            .warmupIterations(3)
+            .measurementIterations(5)
+            .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,41 @@
+package dungeon;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks generating the maze of a square grid on the heap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MazeBenchmark {
+
+  @Param({"6", "100", "1000"})
+  private int size;
+
+  @Param({"0", "10", "100"})
+  private int interconnectivity;
+
+  @Param({"false", "true"})
+  private boolean isWrapping;
+
+  private Grid2D grid;
+
+  @Setup
+  public void setUp() {
+    grid = new Grid2D(size, size, new RandomNetwork(42L));
+  }
+
+  @Benchmark
+  public Location[][] generateMaze() {
+    return grid.generateMaze(interconnectivity, isWrapping);
+  }
+}
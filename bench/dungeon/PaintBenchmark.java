@@ -0,0 +1,63 @@
+package dungeon;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks painting a viewport of the dungeon panel into an offscreen image, either
+ * from the cached fog layer or after invalidating all of it. The sprites are read from
+ * the res directory, so this must run from the root of the repository.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PaintBenchmark {
+
+  private static final int WIDTH = 1024;
+  private static final int HEIGHT = 768;
+
+  @Param({"6", "100", "1000"})
+  private int size;
+
+  private GuiPanel panel;
+  private BufferedImage image;
+  private Graphics2D graphics;
+
+  @Setup
+  public void setUp() {
+    Dungeon dungeon = new Dungeon(size, size, 10, true, 20, 10, 20, 5, 5, 5, 42L);
+    panel = new GuiPanel(dungeon);
+    panel.setSize(panel.getPreferredSize());
+    image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+    graphics = image.createGraphics();
+    graphics.setClip(0, 0, WIDTH, HEIGHT);
+  }
+
+  @TearDown
+  public void tearDown() {
+    graphics.dispose();
+  }
+
+  @Benchmark
+  public BufferedImage paint() {
+    panel.paint(graphics);
+    return image;
+  }
+
+  @Benchmark
+  public BufferedImage paintAll() {
+    panel.repaintAll();
+    panel.paint(graphics);
+    return image;
+  }
+}
@@ -0,0 +1,46 @@
+package dungeon;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks finding the path from the start to the end of a dungeon with each
+ * search method.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathBenchmark {
+
+  @Param({"6", "100", "1000"})
+  private int size;
+
+  @Param({"bfs", "dfs", "astar", "bidirectional"})
+  private String method;
+
+  private Grid grid;
+  private Position start;
+  private Position end;
+
+  @Setup
+  public void setUp() {
+    Dungeon dungeon = new Dungeon(size, size, 10, false, 42L);
+    Position[] startAndEnd = dungeon.generateStartAndEnd();
+    grid = dungeon.getGrid();
+    start = startAndEnd[0];
+    end = startAndEnd[1];
+  }
+
+  @Benchmark
+  public List<Action> calculatePath() {
+    return grid.calculatePath(start, end, method);
+  }
+}
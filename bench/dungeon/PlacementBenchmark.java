@@ -0,0 +1,47 @@
+package dungeon;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks placing every kind of item and monster in a dungeon, in the order a new
+ * dungeon places them. Every invocation starts from a freshly generated maze.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlacementBenchmark {
+
+  @Param({"6", "100", "1000"})
+  private int size;
+
+  @Param({"20", "100"})
+  private int percentage;
+
+  private Dungeon dungeon;
+  private long seed;
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    dungeon = new Dungeon(size, size, 10, true, seed++);
+    dungeon.generateStartAndEnd();
+  }
+
+  @Benchmark
+  public Dungeon placeAll() {
+    dungeon.addPit(percentage);
+    dungeon.addThief(percentage);
+    dungeon.addWeapon(percentage);
+    dungeon.addMonster(percentage);
+    dungeon.addTreasure(percentage);
+    return dungeon;
+  }
+}
@@ -0,0 +1,87 @@
+package dungeon;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the work of a single turn: moving the player along with every Beholder,
+ * shooting an arrow and checking the smells around the player. The changed positions
+ * are drained after every move, as the view does. Shots go from the start into a cave
+ * next to it, whose Otyugh is put back or taken away before every shot, so each shot
+ * measured has the same outcome instead of running out of monsters to hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TurnBenchmark {
+
+  private static final Direction[] directions = Direction.values();
+
+  @Param({"6", "100", "1000"})
+  private int size;
+
+  @Param({"1", "50"})
+  private int movingMonsterPercentage;
+
+  private GameState gameState;
+  private int turn;
+  private Direction toTarget;
+  private Location target;
+
+  @Setup
+  public void setUp() {
+    // The first dungeon from seed 42 on whose start has a cave next to it
+    for (long seed = 42L; target == null; seed++) {
+      Dungeon dungeon = new Dungeon(size, size, 10, true, 20, 10, 20, 5, 5,
+              movingMonsterPercentage, seed);
+      gameState = dungeon.getCurrentGameState();
+      Topology topology = dungeon.getTopology();
+      int start = topology.getCell(dungeon.getStart());
+      for (Direction direction : directions) {
+        int next = topology.getOpenNeighbour(start, direction);
+        if (next >= 0 && Integer.bitCount(topology.getMask(next)) != 2) {
+          toTarget = direction;
+          target = dungeon.getGrid().getLocation(topology.getPosition(next));
+          break;
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public Set<Position> movePlayer() {
+    gameState.movePlayer(directions[turn++ & 3]);
+    return gameState.drainChangedPositions();
+  }
+
+  @Benchmark
+  public Outcome shootOtyugh() {
+    // An unhurt Otyugh is only wounded, so the smells never change
+    target.addMonster(Monster.OTYUGH);
+    gameState.getPlayer().pickWeapon(Weapon.CROOKED_ARROW);
+    return gameState.fire(Weapon.CROOKED_ARROW, 1, toTarget);
+  }
+
+  @Benchmark
+  public Outcome shootMiss() {
+    target.removeMonster();
+    gameState.getPlayer().pickWeapon(Weapon.CROOKED_ARROW);
+    return gameState.fire(Weapon.CROOKED_ARROW, 1, toTarget);
+  }
+
+  @Benchmark
+  public void smell(Blackhole blackhole) {
+    blackhole.consume(gameState.isSmellingLessPungentNearby());
+    blackhole.consume(gameState.isSmellingMorePungentNearby());
+    blackhole.consume(gameState.isSmellingPetrichorNearby());
+  }
+}
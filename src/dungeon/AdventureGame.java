@@ -2,6 +2,7 @@ package dungeon;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
 import java.util.Locale;
 
 /**
@@ -26,7 +27,7 @@ public class AdventureGame {
       controller.playGame();
     } else {
       // Command line based gameplay
-      if (args.length != 7) {
+      if (args.length < 7 || args.length > 9) {
         throw new IllegalArgumentException("Invalid number of arguments!");
       }
       try {
@@ -46,9 +47,24 @@ public class AdventureGame {
         int percentagePit = Integer.parseInt(args[4]);
         int percentageThief = Integer.parseInt(args[5]);
         int percentageMovingMonster = Integer.parseInt(args[6]);
-        Model model = new Dungeon(row, col, interconnectivity, isWrapping,
-                percentageTreasure, percentageMonster, percentageWeapon,
-                percentagePit, percentageThief, percentageMovingMonster);
+        // An optional trailing seed replays the same dungeon and game, and a file after
+        // it keeps the cells there instead of on the heap, for dungeons too large for it
+        Model model;
+        if (args.length == 9) {
+          model = new DungeonSettings(row, col, interconnectivity, isWrapping,
+                  percentageTreasure, percentageMonster, percentageWeapon,
+                  percentagePit, percentageThief, percentageMovingMonster)
+                  .createMappedDungeon(Paths.get(args[8]), Long.parseLong(args[7]));
+        } else if (args.length == 8) {
+          model = new Dungeon(row, col, interconnectivity, isWrapping,
+                  percentageTreasure, percentageMonster, percentageWeapon,
+                  percentagePit, percentageThief, percentageMovingMonster,
+                  Long.parseLong(args[7]));
+        } else {
+          model = new Dungeon(row, col, interconnectivity, isWrapping,
+                  percentageTreasure, percentageMonster, percentageWeapon,
+                  percentagePit, percentageThief, percentageMovingMonster);
+        }
 
         Controller controller = new ConsoleController(
                 new InputStreamReader(System.in), System.out, model);
@@ -0,0 +1,132 @@
+package dungeon;
+
+import java.util.List;
+
+/**
+ * Enum for the built-in strategies that play the game without a human.
+ * <ul>
+ *   <li>RANDOM_WALKER moves through a random door every turn and picks up nothing.</li>
+ *   <li>BFS_TO_GOAL picks up arrows, follows a shortest path to the end and shoots the
+ *   Otyugh guarding it once it smells it.</li>
+ *   <li>SMELL_AVOIDING_EXPLORER picks up arrows, prefers unvisited caves, falls back to
+ *   visited ones when it smells danger and shoots when an Otyugh is close.</li>
+ *   <li>TREASURE_GREEDY picks up everything, explores until it cannot carry more
+ *   treasure and then heads for the end.</li>
+ * </ul>
+ */
+public enum BotStrategy implements Strategy {
+  RANDOM_WALKER {
+    @Override
+    public Command nextCommand(GameEngine engine, RandomNetwork random) {
+      return randomMove(engine, random);
+    }
+  },
+  BFS_TO_GOAL {
+    @Override
+    public Command nextCommand(GameEngine engine, RandomNetwork random) {
+      Command pick = pickWeapon(engine);
+      return pick != null ? pick : toGoal(engine, random);
+    }
+  },
+  SMELL_AVOIDING_EXPLORER {
+    @Override
+    public Command nextCommand(GameEngine engine, RandomNetwork random) {
+      Command pick = pickWeapon(engine);
+      if (pick != null) {
+        return pick;
+      }
+      GameState gameState = engine.getGameState();
+      List<Action> actions = gameState.getValidActions();
+      if (gameState.isSmellingMorePungentNearby() && hasArrows(gameState)) {
+        Action unvisited = chooseAction(gameState, actions, false, random);
+        Action target = unvisited != null ? unvisited : actions.get(random.nextInt(actions.size()));
+        return Command.shoot(1, target.getDirection());
+      }
+      boolean isDanger = gameState.isSmellingMorePungentNearby()
+              || gameState.isSmellingLessPungentNearby() || gameState.isSmellingPetrichorNearby();
+      if (isDanger && random.nextInt(2) == 0) {
+        Action visited = chooseAction(gameState, actions, true, random);
+        if (visited != null) {
+          return Command.move(visited.getDirection());
+        }
+      }
+      return explore(engine, random);
+    }
+  },
+  TREASURE_GREEDY {
+    @Override
+    public Command nextCommand(GameEngine engine, RandomNetwork random) {
+      GameState gameState = engine.getGameState();
+      Location location = gameState.getPlayerLocation();
+      if (location.hasTreasure() && gameState.getPlayerTreasures().size() < MAX_ITEMS) {
+        return Command.pickTreasure(0);
+      }
+      Command pick = pickWeapon(engine);
+      if (pick != null) {
+        return pick;
+      }
+      if (gameState.getPlayerTreasures().size() >= MAX_ITEMS) {
+        return toGoal(engine, random);
+      }
+      return explore(engine, random);
+    }
+  };
+
+  // A player carries at most this many treasures and this many weapons
+  private static final int MAX_ITEMS = 4;
+
+  private static Command randomMove(GameEngine engine, RandomNetwork random) {
+    List<Action> actions = engine.getGameState().getValidActions();
+    return Command.move(actions.get(random.nextInt(actions.size())).getDirection());
+  }
+
+  private static Command pickWeapon(GameEngine engine) {
+    GameState gameState = engine.getGameState();
+    if (gameState.getPlayerLocation().hasWeapon()
+            && gameState.getPlayer().getWeapons().size() < MAX_ITEMS) {
+      return Command.pickWeapon(0);
+    }
+    return null;
+  }
+
+  private static boolean hasArrows(GameState gameState) {
+    return gameState.getPlayer().getCrookedArrowsLeft() > 0;
+  }
+
+  private static Command toGoal(GameEngine engine, RandomNetwork random) {
+    Model model = engine.getModel();
+    GameState gameState = engine.getGameState();
+    Position position = gameState.getPlayer().getPosition();
+    Direction next = model.getGrid().getNextHop(position, model.getEnd());
+    if (next == null) {
+      return randomMove(engine, random);
+    }
+    // The end is always guarded by an Otyugh, which is shot from the cave next to it
+    if (model.getGrid().getDistance(position, model.getEnd()) == 1
+            && gameState.isSmellingMorePungentNearby() && hasArrows(gameState)) {
+      return Command.shoot(1, next);
+    }
+    return Command.move(next);
+  }
+
+  private static Command explore(GameEngine engine, RandomNetwork random) {
+    GameState gameState = engine.getGameState();
+    Action unvisited = chooseAction(gameState, gameState.getValidActions(), false, random);
+    return unvisited != null ? Command.move(unvisited.getDirection())
+            : randomMove(engine, random);
+  }
+
+  private static Action chooseAction(GameState gameState, List<Action> actions,
+                                     boolean isVisited, RandomNetwork random) {
+    // Reservoir sampling over the doors leading to visited, or unvisited, positions
+    Action chosen = null;
+    int seen = 0;
+    for (Action action : actions) {
+      if (gameState.isVisited(action.getPosition()) == isVisited
+              && random.nextInt(++seen) == 0) {
+        chosen = action;
+      }
+    }
+    return chosen;
+  }
+}
@@ -20,6 +20,7 @@ class Cave implements Location {
   private final List<Weapon> weapons;
   private final List<Treasure> treasures;
   private final List<Action> validActions;
+  private final int mask;
 
   Cave(Position position, List<Action> validActions) {
     if (position == null) {
@@ -30,6 +31,11 @@ class Cave implements Location {
     }
     this.position = position;
     this.validActions = validActions;
+    int mask = 0;
+    for (Action action : validActions) {
+      mask |= action.getDirection().getMask();
+    }
+    this.mask = mask;
     weapons = new ArrayList<>();
     treasures = new ArrayList<>();
   }
@@ -147,6 +153,23 @@ class Cave implements Location {
     return validActions;
   }
 
+  @Override
+  public int getMask() {
+    return mask;
+  }
+
+  @Override
+  public Position getNeighbour(Direction direction) {
+    if (direction == null) {
+      throw new IllegalArgumentException("Invalid direction!");
+    }
+    if ((mask & direction.getMask()) == 0) {
+      return null;
+    }
+    // Valid actions are listed in direction order, one per open direction
+    return validActions.get(Integer.bitCount(mask & (direction.getMask() - 1))).getPosition();
+  }
+
   @Override
   public boolean hasPit() {
     return pit != null;
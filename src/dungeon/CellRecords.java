@@ -0,0 +1,34 @@
+package dungeon;
+
+/**
+ * A topology that keeps a 4 byte record per cell, read and written through
+ * {@link RecordLocation} flyweights.
+ * <p>
+ * Record layout: byte 0 holds the direction mask in bits 0-3, the pit in bit 4 and
+ * the thief in bit 5; byte 1 holds the monster (ordinal + 1) in bits 0-1, its health
+ * in bits 2-4 and the moving monster (ordinal + 1) in bits 5-6; byte 2 holds the count
+ * of each kind of treasure and byte 3 the count of each kind of weapon, in equal
+ * bit fields per kind.
+ */
+interface CellRecords extends Topology {
+
+  int RECORD_SIZE = 4;
+
+  /**
+   * Returns one byte of the record of the passed cell.
+   *
+   * @param cell packed cell id
+   * @param offset byte of the record, from 0 to 3
+   * @return unsigned value of the byte
+   */
+  int readRecord(int cell, int offset);
+
+  /**
+   * Sets one byte of the record of the passed cell.
+   *
+   * @param cell packed cell id
+   * @param offset byte of the record, from 0 to 3
+   * @param value value of the byte
+   */
+  void writeRecord(int cell, int offset, int value);
+}
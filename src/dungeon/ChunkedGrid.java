@@ -0,0 +1,650 @@
+package dungeon;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A world split into square tiles that are generated only when first touched, so that
+ * creating a world takes constant time whatever its size. Every tile is a maze of its
+ * own, generated from a seed derived from the world seed and the tile. It is stitched
+ * to each neighbouring tile through an opening placed by the seed of the border they
+ * share, so both tiles agree on it whichever is generated first. As every tile and
+ * every pair of neighbouring tiles is connected, so is the whole world. Items and
+ * Otyughs are placed per tile with the percentages of the world settings, and the
+ * interconnectivity is shared out between the tiles by their size.
+ * <p>
+ * Only a bounded number of tiles stays resident, evicting the least recently used one.
+ * A tile that changed since it was generated is written to a directory of its own
+ * world, made in the swap directory on the first eviction, and read back from there;
+ * any other tile is simply generated again. Closing the world deletes that directory,
+ * so several worlds may share a swap directory. Cells
+ * are kept as {@link CellRecords} records, so locations are flyweights and moves,
+ * smells and shots cross tile borders without noticing them. Paths and distances are
+ * searched for over the cells they reach alone, never over the whole world. Locations
+ * must only be changed from one thread at a time.
+ */
+class ChunkedGrid implements Grid, CellRecords, AutoCloseable {
+
+  static final int TILE_SIZE = 64;
+  static final int DEFAULT_RESIDENT_TILES = 64;
+
+  private static final int EAST = 0;
+  private static final int SOUTH = 1;
+  private static final long BORDER_KEY = Long.MIN_VALUE;
+  private static final long START_END_KEY = -1L;
+  private static final long MOVING_MONSTER_KEY = -2L;
+
+  private final int row;
+  private final int col;
+  private final int tileSize;
+  private final int tileRows;
+  private final int tileCols;
+  private final boolean isWrapping;
+  private final DungeonSettings settings;
+  private final RandomNetwork random;
+  private final Path swapDirectory;
+  private Path worldDirectory;
+  private boolean isClosed;
+  private final Map<Integer, Tile> tiles;
+  private final BitSet generated;
+  private final BitSet swapped;
+  private final int start;
+  private final int end;
+  private final PathFinder pathFinder;
+  private int totalCaves;
+  private int totalTunnel;
+  private int lastIndex;
+  private Tile lastTile;
+
+  /**
+   * Creates a world of the passed settings. Only the start and end tiles are looked
+   * at, to choose a start and an end cave at least the passed number of moves apart.
+   *
+   * @param settings settings of the world
+   * @param tileSize number of rows and columns of a tile, the last ones taking the rest
+   * @param residentTiles number of tiles kept in memory
+   * @param minDistance minimum number of moves between start and end
+   * @param swapDirectory directory that changed tiles are evicted to
+   * @param random random the world is derived from; it is never advanced
+   */
+  ChunkedGrid(DungeonSettings settings, int tileSize, int residentTiles, int minDistance,
+              Path swapDirectory, RandomNetwork random) {
+    if (settings == null) {
+      throw new IllegalArgumentException("Invalid settings!");
+    }
+    if (tileSize < 2) {
+      throw new IllegalArgumentException("Invalid tile size!");
+    }
+    if (residentTiles < 2) {
+      throw new IllegalArgumentException("Invalid resident tile count!");
+    }
+    if (swapDirectory == null) {
+      throw new IllegalArgumentException("Invalid swap directory!");
+    }
+    if (random == null) {
+      throw new IllegalArgumentException("Invalid random!");
+    }
+    row = settings.getRow();
+    col = settings.getCol();
+    if (row < 1 || col < 1 || (long) row * col > PathFinder.MAX_CELLS) {
+      throw new IllegalArgumentException("Invalid size!");
+    }
+    this.tileSize = tileSize;
+    // The last tile of a row or column takes the cells left over, so none is thin
+    tileRows = Math.max(row / tileSize, 1);
+    tileCols = Math.max(col / tileSize, 1);
+    if (tileRows * tileCols < 2) {
+      throw new IllegalArgumentException("World should span more than one tile!");
+    }
+    this.isWrapping = settings.isWrapping();
+    this.settings = settings;
+    this.random = random;
+    this.swapDirectory = swapDirectory;
+    tiles = new LinkedHashMap<Integer, Tile>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, Tile> eldest) {
+        if (size() <= residentTiles) {
+          return false;
+        }
+        evict(eldest.getKey(), eldest.getValue());
+        return true;
+      }
+    };
+    generated = new BitSet();
+    swapped = new BitSet();
+    pathFinder = new PathFinder(this, 0);
+    lastIndex = -1;
+
+    // The end tile is the one farthest from the start tile
+    int endTile = isWrapping
+            ? (tileRows / 2) * tileCols + tileCols / 2
+            : tileRows * tileCols - 1;
+    RandomNetwork picker = random.derive(START_END_KEY);
+    start = pickCave(0, picker, -1, 0);
+    end = pickCave(endTile, picker, start, minDistance);
+  }
+
+  /**
+   * Returns the position of the start cave.
+   *
+   * @return start position
+   */
+  Position getStart() {
+    return getPosition(start);
+  }
+
+  /**
+   * Returns the position of the end cave, which holds an Otyugh.
+   *
+   * @return end position
+   */
+  Position getEnd() {
+    return getPosition(end);
+  }
+
+  /**
+   * Places moving monsters in the passed percentage of the locations of the start
+   * tile, leaving out the start and end caves. Other tiles get none, since moving
+   * monsters are only known to the game once they are placed.
+   *
+   * @param percentage percentage of locations
+   * @return packed ids of the cells the monsters were placed in
+   */
+  int[] placeMovingMonsters(int percentage) {
+    if (percentage < 1 || percentage > 100) {
+      throw new IllegalArgumentException("Invalid percentage!");
+    }
+    Tile tile = getTile(0);
+    ItemPlacer placer = new ItemPlacer(tile, random.derive(MOVING_MONSTER_KEY));
+    int total = percentage * tile.height * tile.width / 100;
+    int[] cells = placer.getCells(false, local -> toCell(0, local) != start
+            && toCell(0, local) != end && !new RecordLocation(tile, local).hasMovingMonster());
+    int[] chosen = placer.choose(cells, total, false);
+    for (int i = 0; i < chosen.length; i++) {
+      chosen[i] = toCell(0, chosen[i]);
+      new RecordLocation(this, chosen[i]).addMovingMonster(Monster.BEHOLDER);
+    }
+    return chosen;
+  }
+
+  /**
+   * Tiles are generated and swapped as the world is played, so a world cannot be
+   * copied.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public Grid copy() {
+    throw new UnsupportedOperationException("Chunked worlds cannot be copied!");
+  }
+
+  /**
+   * Deletes the tiles swapped out by this world along with its directory. The world
+   * cannot be played any more once closed.
+   *
+   * @throws UncheckedIOException if a swapped out tile cannot be deleted
+   */
+  @Override
+  public void close() {
+    synchronized (tiles) {
+      isClosed = true;
+      tiles.clear();
+      lastIndex = -1;
+      lastTile = null;
+      if (worldDirectory == null) {
+        return;
+      }
+      try {
+        for (int index = swapped.nextSetBit(0); index >= 0;
+             index = swapped.nextSetBit(index + 1)) {
+          Files.deleteIfExists(getSwapFile(index));
+        }
+        Files.deleteIfExists(worldDirectory);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      swapped.clear();
+      worldDirectory = null;
+    }
+  }
+
+  @Override
+  public int getRow() {
+    return row;
+  }
+
+  @Override
+  public int getCol() {
+    return col;
+  }
+
+  @Override
+  public boolean isWrapping() {
+    return isWrapping;
+  }
+
+  @Override
+  public int getMask(int cell) {
+    return readRecord(cell, 0) & 0xF;
+  }
+
+  @Override
+  public int getMask(int x, int y) {
+    if (x < 0 || x >= row) {
+      throw new IllegalArgumentException("Invalid x!");
+    }
+    if (y < 0 || y >= col) {
+      throw new IllegalArgumentException("Invalid y!");
+    }
+    return getMask(x * col + y);
+  }
+
+  @Override
+  public Position getNeighbour(Position position, Direction direction) {
+    if (direction == null) {
+      throw new IllegalArgumentException("Invalid direction!");
+    }
+    int next = getOpenNeighbour(getCell(position), direction);
+    return next < 0 ? null : getPosition(next);
+  }
+
+  @Override
+  public int readRecord(int cell, int offset) {
+    int tx = Math.min(cell / col / tileSize, tileRows - 1);
+    int ty = Math.min(cell % col / tileSize, tileCols - 1);
+    Tile tile = getTile(tx * tileCols + ty);
+    return tile.readRecord((cell / col - tx * tileSize) * tile.width
+            + cell % col - ty * tileSize, offset);
+  }
+
+  @Override
+  public void writeRecord(int cell, int offset, int value) {
+    int tx = Math.min(cell / col / tileSize, tileRows - 1);
+    int ty = Math.min(cell % col / tileSize, tileCols - 1);
+    Tile tile = getTile(tx * tileCols + ty);
+    tile.writeRecord((cell / col - tx * tileSize) * tile.width
+            + cell % col - ty * tileSize, offset, value);
+  }
+
+  /**
+   * {@inheritDoc} Only tiles generated so far are counted.
+   */
+  @Override
+  public int getTotalCaves() {
+    return totalCaves;
+  }
+
+  /**
+   * {@inheritDoc} Only tiles generated so far are counted.
+   */
+  @Override
+  public int getTotalTunnel() {
+    return totalTunnel;
+  }
+
+  @Override
+  public Location getLocation(Position position) {
+    if (position == null) {
+      throw new IllegalArgumentException("Invalid position!");
+    }
+    return getLocation(position.getX(), position.getY());
+  }
+
+  @Override
+  public Location getLocation(int x, int y) {
+    if (x < 0 || x >= row) {
+      throw new IllegalArgumentException("Invalid x!");
+    }
+    if (y < 0 || y >= col) {
+      throw new IllegalArgumentException("Invalid y!");
+    }
+    return new RecordLocation(this, x * col + y);
+  }
+
+  @Override
+  public Position getPosition(int x, int y) {
+    if (x < 0 || x >= row) {
+      throw new IllegalArgumentException("Invalid x!");
+    }
+    if (y < 0 || y >= col) {
+      throw new IllegalArgumentException("Invalid y!");
+    }
+    return getPosition(x * col + y);
+  }
+
+  /**
+   * {@inheritDoc} The maze of a world is fixed by its settings and seed, so the
+   * passed values must be those of the settings. Returning the whole map generates
+   * every tile.
+   */
+  @Override
+  public Location[][] generateMaze(int interconnectivity, boolean isWrapping) {
+    if (interconnectivity != settings.getInterconnectivity()) {
+      throw new IllegalArgumentException("Invalid interconnectivity!");
+    }
+    if (isWrapping != this.isWrapping) {
+      throw new IllegalArgumentException("Invalid wrapping!");
+    }
+    Location[][] map = new Location[row][col];
+    for (int i = 0; i < row; i++) {
+      for (int j = 0; j < col; j++) {
+        map[i][j] = getLocation(i, j);
+      }
+    }
+    return map;
+  }
+
+  @Override
+  public List<Action> calculatePath(Position start, Position end, String method) {
+    return pathFinder.calculatePath(start, end, method);
+  }
+
+  @Override
+  public List<Action> calculatePath(Position start, Position end, PathStrategy strategy) {
+    return pathFinder.calculatePath(start, end, strategy);
+  }
+
+  /**
+   * A distance index covers every cell, so a world has none.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public DistanceIndex getDistanceIndex() {
+    throw new UnsupportedOperationException("Chunked worlds have no distance index!");
+  }
+
+  /**
+   * {@inheritDoc} The distance is the length of a path found by a bidirectional
+   * search, so only the tiles the search reaches are generated.
+   */
+  @Override
+  public int getDistance(Position from, Position to) {
+    return pathFinder.calculatePath(from, to, PathStrategy.BIDIRECTIONAL).size();
+  }
+
+  /**
+   * {@inheritDoc} The direction is the first move of a path found by a bidirectional
+   * search, so only the tiles the search reaches are generated.
+   */
+  @Override
+  public Direction getNextHop(Position from, Position to) {
+    List<Action> path = pathFinder.calculatePath(from, to, PathStrategy.BIDIRECTIONAL);
+    return path.isEmpty() ? null : path.get(0).getDirection();
+  }
+
+  /**
+   * Returns the number of tiles generated so far, each counted once however often it
+   * was evicted.
+   *
+   * @return number of tiles generated
+   */
+  int getGeneratedTileCount() {
+    synchronized (tiles) {
+      return generated.cardinality();
+    }
+  }
+
+  private Tile getTile(int index) {
+    // Locking the tiles alone, since searches may read cells from other threads
+    synchronized (tiles) {
+      if (isClosed) {
+        throw new IllegalStateException("World is closed!");
+      }
+      if (index == lastIndex) {
+        return lastTile;
+      }
+      Tile tile = tiles.get(index);
+      if (tile == null) {
+        tile = swapped.get(index) ? swapIn(index) : generateTile(index);
+        tiles.put(index, tile);
+      }
+      lastIndex = index;
+      lastTile = tile;
+      return tile;
+    }
+  }
+
+  private void evict(int index, Tile tile) {
+    if (index == lastIndex) {
+      lastIndex = -1;
+      lastTile = null;
+    }
+    if (!tile.isDirty) {
+      return;
+    }
+    try {
+      if (worldDirectory == null) {
+        worldDirectory = Files.createTempDirectory(swapDirectory, "world-");
+      }
+      Files.write(getSwapFile(index), tile.records);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    swapped.set(index);
+  }
+
+  private Tile swapIn(int index) {
+    try {
+      return new Tile(getTileHeight(index), getTileWidth(index),
+              Files.readAllBytes(getSwapFile(index)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Path getSwapFile(int index) {
+    return worldDirectory.resolve("tile-" + index + ".bin");
+  }
+
+  private int getTileHeight(int index) {
+    int tx = index / tileCols;
+    return tx == tileRows - 1 ? row - tx * tileSize : tileSize;
+  }
+
+  private int getTileWidth(int index) {
+    int ty = index % tileCols;
+    return ty == tileCols - 1 ? col - ty * tileSize : tileSize;
+  }
+
+  private int toCell(int index, int local) {
+    int width = getTileWidth(index);
+    return ((index / tileCols) * tileSize + local / width) * col
+            + (index % tileCols) * tileSize + local % width;
+  }
+
+  private byte[] generateMasks(int index, RandomNetwork tileRandom) {
+    int tx = index / tileCols;
+    int ty = index % tileCols;
+    int height = getTileHeight(index);
+    int width = getTileWidth(index);
+    int share = (int) ((long) settings.getInterconnectivity() * height * width / row / col);
+    byte[] masks = new KruskalMazeGenerator(height, width, false, tileRandom).generate(share);
+
+    // Stitching to the neighbouring tiles; the same border always opens the same cell.
+    // A wrapping border would duplicate a regular one unless there are three cells
+    boolean wrapEast = isWrapping && col > 2;
+    boolean wrapSouth = isWrapping && row > 2;
+    if (ty < tileCols - 1 || wrapEast) {
+      int x = getBorderRandom(index, EAST).nextInt(height);
+      masks[x * width + width - 1] |= Direction.EAST.getMask();
+    }
+    if (ty > 0 || wrapEast) {
+      int west = tx * tileCols + (ty + tileCols - 1) % tileCols;
+      int x = getBorderRandom(west, EAST).nextInt(height);
+      masks[x * width] |= Direction.WEST.getMask();
+    }
+    if (tx < tileRows - 1 || wrapSouth) {
+      int y = getBorderRandom(index, SOUTH).nextInt(width);
+      masks[(height - 1) * width + y] |= Direction.SOUTH.getMask();
+    }
+    if (tx > 0 || wrapSouth) {
+      int north = ((tx + tileRows - 1) % tileRows) * tileCols + ty;
+      int y = getBorderRandom(north, SOUTH).nextInt(width);
+      masks[y] |= Direction.NORTH.getMask();
+    }
+    return masks;
+  }
+
+  private RandomNetwork getBorderRandom(int index, int side) {
+    return random.derive(BORDER_KEY | ((long) index << 1) | side);
+  }
+
+  private int pickCave(int index, RandomNetwork picker, int from, int minDistance) {
+    byte[] masks = generateMasks(index, random.derive(index));
+    int[] caves = new int[masks.length];
+    int total = 0;
+    for (int local = 0; local < masks.length; local++) {
+      int cell = toCell(index, local);
+      if (Integer.bitCount(masks[local]) != 2
+              && (from < 0 || getManhattanDistance(from, cell) >= minDistance)) {
+        caves[total++] = cell;
+      }
+    }
+    if (total == 0) {
+      throw new IllegalStateException("Start end make failed!");
+    }
+    return caves[picker.nextInt(total)];
+  }
+
+  private int getManhattanDistance(int from, int to) {
+    // Moves between two cells never undercut this, so it is a safe lower bound
+    int dx = Math.abs(from / col - to / col);
+    int dy = Math.abs(from % col - to % col);
+    if (isWrapping) {
+      dx = Math.min(dx, row - dx);
+      dy = Math.min(dy, col - dy);
+    }
+    return dx + dy;
+  }
+
+  private Tile generateTile(int index) {
+    GameEvents.MazeGeneration event = new GameEvents.MazeGeneration();
+    Metrics.Span span = Metrics.getDefault().start("maze.tile", event);
+    RandomNetwork tileRandom = random.derive(index);
+    byte[] masks = generateMasks(index, tileRandom);
+    Tile tile = new Tile(getTileHeight(index), getTileWidth(index),
+            new byte[masks.length * RECORD_SIZE]);
+    int caves = 0;
+    for (int local = 0; local < masks.length; local++) {
+      tile.records[local * RECORD_SIZE] = masks[local];
+      if (Integer.bitCount(masks[local]) != 2) {
+        caves++;
+      }
+    }
+    if (!generated.get(index)) {
+      generated.set(index);
+      totalCaves += caves;
+      totalTunnel += masks.length - caves;
+    }
+
+    // Same placement as a whole dungeon, in the same order, over this tile only
+    ItemPlacer placer = new ItemPlacer(tile, tileRandom);
+    int startLocal = toLocal(index, start);
+    int endLocal = toLocal(index, end);
+    int[] cells = placer.getCells(true, local -> local != startLocal && local != endLocal);
+    for (int local : placer.choose(cells, settings.getPitPercentage() * caves / 100, false)) {
+      new RecordLocation(tile, local).addPit(Pit.DEEP_PIT);
+    }
+    cells = placer.getCells(false, local -> local != startLocal && local != endLocal);
+    int total = settings.getThiefPercentage() * masks.length / 100;
+    for (int local : placer.choose(cells, total, false)) {
+      new RecordLocation(tile, local).addThief(Thief.TREASURE_THIEF);
+    }
+    cells = placer.getCells(true, local -> local != startLocal && local != endLocal);
+    for (int local : placer.choose(cells, settings.getWeaponPercentage() * caves / 100, true)) {
+      int weapon = tileRandom.nextInt(Weapon.values().length);
+      new RecordLocation(tile, local).addWeapon(Weapon.values()[weapon]);
+    }
+    total = settings.getMonsterPercentage() * caves / 100;
+    if (endLocal >= 0) {
+      new RecordLocation(tile, endLocal).addMonster(Monster.OTYUGH);
+      total--;
+    }
+    cells = placer.getCells(true, local -> local != startLocal && local != endLocal);
+    for (int local : placer.choose(cells, Math.max(total, 0), false)) {
+      new RecordLocation(tile, local).addMonster(Monster.OTYUGH);
+    }
+    cells = placer.getCells(true, local -> true);
+    for (int local : placer.choose(cells, settings.getTreasurePercentage() * caves / 100,
+            false)) {
+      int treasure = tileRandom.nextInt(Treasure.values().length);
+      new RecordLocation(tile, local).addTreasure(Treasure.values()[treasure]);
+    }
+    // A generated tile can always be generated again, so it need not be swapped out
+    tile.isDirty = false;
+    if (span.end()) {
+      event.rows = tile.height;
+      event.cols = tile.width;
+      event.interconnectivity = settings.getInterconnectivity();
+      event.isWrapping = false;
+      event.caves = caves;
+      event.tunnels = masks.length - caves;
+      event.commit();
+    }
+    return tile;
+  }
+
+  private int toLocal(int index, int cell) {
+    int x = cell / col - (index / tileCols) * tileSize;
+    int y = cell % col - (index % tileCols) * tileSize;
+    if (x < 0 || y < 0 || x >= getTileHeight(index) || y >= getTileWidth(index)) {
+      return -1;
+    }
+    return x * getTileWidth(index) + y;
+  }
+
+  /**
+   * The records of one tile, which is also a maze of its own that does not wrap.
+   */
+  private static final class Tile implements CellRecords {
+
+    private final int height;
+    private final int width;
+    private final byte[] records;
+    private boolean isDirty;
+
+    Tile(int height, int width, byte[] records) {
+      this.height = height;
+      this.width = width;
+      this.records = records;
+    }
+
+    @Override
+    public int getRow() {
+      return height;
+    }
+
+    @Override
+    public int getCol() {
+      return width;
+    }
+
+    @Override
+    public boolean isWrapping() {
+      return false;
+    }
+
+    @Override
+    public int getMask(int cell) {
+      return records[cell * RECORD_SIZE] & 0xF;
+    }
+
+    @Override
+    public int readRecord(int cell, int offset) {
+      return records[cell * RECORD_SIZE + offset] & 0xFF;
+    }
+
+    @Override
+    public void writeRecord(int cell, int offset, int value) {
+      records[cell * RECORD_SIZE + offset] = (byte) value;
+      isDirty = true;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package dungeon;
+
+/**
+ * A typed command that a headless game applies to the player: a move, picking up a
+ * treasure or a weapon, or a shot. Commands are immutable and moves in each direction
+ * are shared, so issuing them allocates nothing.
+ */
+public final class Command {
+
+  /**
+   * Enum for all the kinds of command.
+   */
+  public enum Type {
+    MOVE, PICK_TREASURE, PICK_WEAPON, SHOOT
+  }
+
+  private static final Command[] moves = new Command[Direction.values().length];
+
+  static {
+    for (Direction direction : Direction.values()) {
+      moves[direction.ordinal()] = new Command(Type.MOVE, direction, 0);
+    }
+  }
+
+  private final Type type;
+  private final Direction direction;
+  private final int value;
+
+  private Command(Type type, Direction direction, int value) {
+    this.type = type;
+    this.direction = direction;
+    this.value = value;
+  }
+
+  /**
+   * Returns the command to move in the passed direction.
+   *
+   * @param direction direction
+   * @return move command
+   */
+  public static Command move(Direction direction) {
+    if (direction == null) {
+      throw new IllegalArgumentException("Invalid direction!");
+    }
+    return moves[direction.ordinal()];
+  }
+
+  /**
+   * Returns the command to pick up the treasure at the passed index of the location.
+   *
+   * @param index index of the treasure
+   * @return pick command
+   */
+  public static Command pickTreasure(int index) {
+    return new Command(Type.PICK_TREASURE, null, index);
+  }
+
+  /**
+   * Returns the command to pick up the weapon at the passed index of the location.
+   *
+   * @param index index of the weapon
+   * @return pick command
+   */
+  public static Command pickWeapon(int index) {
+    return new Command(Type.PICK_WEAPON, null, index);
+  }
+
+  /**
+   * Returns the command to shoot a crooked arrow with the passed power and direction.
+   *
+   * @param power power of the shot
+   * @param direction direction of the shot
+   * @return shoot command
+   */
+  public static Command shoot(int power, Direction direction) {
+    if (power < 1 || power > Weapon.CROOKED_ARROW.getDistance()) {
+      throw new IllegalArgumentException("Invalid power!");
+    }
+    if (direction == null) {
+      throw new IllegalArgumentException("Invalid direction!");
+    }
+    return new Command(Type.SHOOT, direction, power);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public Direction getDirection() {
+    return direction;
+  }
+
+  /**
+   * Returns the index to pick up, or the power of a shot.
+   *
+   * @return value of the command
+   */
+  public int getValue() {
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return direction == null ? String.format("%s %d", type, value)
+            : String.format("%s %s %d", type, direction, value);
+  }
+}
@@ -73,7 +73,7 @@ public class ConsoleController implements Controller {
           out.append("Better luck next time\n");
           break;
         } else {
-          int chanceToEscape = RandomNetwork.nextInt(2);
+          int chanceToEscape = currentGameState.getRandom().nextInt(2);
           if (chanceToEscape == 0) {
             out.append("Chomp, chomp, chomp, you are eaten by an Otyugh!\n");
             out.append("Better luck next time\n");
@@ -162,6 +162,7 @@ public class ConsoleController implements Controller {
         case "q":
         case "Q":
           out.append("Game quit unexpectedly!\n");
+          dumpMetrics();
           return;
         default:
           out.append("Invalid input! Please try again!\n");
@@ -169,5 +170,12 @@ public class ConsoleController implements Controller {
       }
       out.append(currentGameState.getPlayer().toString());
     }
+    dumpMetrics();
+  }
+
+  private void dumpMetrics() throws IOException {
+    if (Metrics.isEnabled()) {
+      Metrics.getDefault().dump(out);
+    }
   }
 }
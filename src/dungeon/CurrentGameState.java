@@ -1,24 +1,52 @@
 package dungeon;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 class CurrentGameState implements GameState {
 
+  private static final Direction[] directions = Direction.values();
+  private static final String[] shotMetricNames = Arrays.stream(Outcome.values())
+          .map(outcome -> "shots." + outcome.name().toLowerCase(Locale.ROOT))
+          .toArray(String[]::new);
+
   private final Player player;
   private final Model dungeon;
+  private final Topology topology;
   private final Position goalState;
-  private final List<Position> removedMonsters;
-  private final List<Position> visitedPositions;
-  private List<Location> movingMonsterState;
+  private final RandomNetwork random;
+  private final SmellField smellField;
+  private final PositionSet removedMonsters;
+  private final PositionSet visitedPositions;
+  private int[] movingMonsterCells;
+  private int movingMonsterCount;
+  private Set<Position> changedPositions;
+
+  CurrentGameState(Player player, Model dungeon, Topology topology, Position goalState,
+                   RandomNetwork random, SmellField smellField) {
+    this(player, dungeon, topology, goalState, random, smellField,
+            new PositionSet(dungeon.getRows(), dungeon.getColumns()),
+            new PositionSet(dungeon.getRows(), dungeon.getColumns()));
+    visitedPositions.add(player.getPosition());
+  }
 
-  CurrentGameState(Player player, Model dungeon, Position goalState) {
+  CurrentGameState(Player player, Model dungeon, Topology topology, Position goalState,
+                   RandomNetwork random, SmellField smellField, PositionSet visitedPositions,
+                   PositionSet removedMonsters) {
     this.player = player;
     this.dungeon = dungeon;
+    this.topology = topology;
     this.goalState = goalState;
-    removedMonsters = new ArrayList<>();
-    visitedPositions = new ArrayList<>();
-    movingMonsterState = new ArrayList<>();
+    this.random = random;
+    this.smellField = smellField;
+    this.visitedPositions = visitedPositions;
+    this.removedMonsters = removedMonsters;
+    movingMonsterCells = new int[16];
+    changedPositions = new LinkedHashSet<>();
   }
 
   @Override
@@ -31,14 +59,19 @@ class CurrentGameState implements GameState {
     return player;
   }
 
+  @Override
+  public RandomNetwork getRandom() {
+    return random;
+  }
+
   @Override
   public Location getPlayerLocation() {
     return dungeon.getGrid().getLocation(player.getPosition().getX(), player.getPosition().getY());
   }
 
   @Override
-  public List<Position> getRemovedMonsters() {
-    return new ArrayList<>(removedMonsters);
+  public Set<Position> getRemovedMonsters() {
+    return removedMonsters.snapshot();
   }
 
   @Override
@@ -73,23 +106,39 @@ class CurrentGameState implements GameState {
 
   @Override
   public void movePlayer(Direction direction) {
-    getValidActions().stream()
-            .filter(a -> a.getDirection().equals(direction))
-            .findFirst()
-            .ifPresent(a -> {
-              visitedPositions.add(a.getPosition());
-              player.move(a.getPosition());
-            });
-    List<Location> tmp = new ArrayList<>();
-    for (Location state : movingMonsterState) {
-      List<Action> actions = state.getValidActions();
-      Action a = actions.get(RandomNetwork.nextInt(actions.size()));
-      Location l = getLocation(a.getPosition());
-      l.addMovingMonster(Monster.BEHOLDER);
-      state.removeMovingMonster();
-      tmp.add(l);
-    }
-    movingMonsterState = new ArrayList<>(tmp);
+    Metrics metrics = Metrics.getDefault();
+    boolean isMeasured = metrics.isMeasured(GameEvents.playerMoveType);
+    GameEvents.PlayerMove event = isMeasured ? new GameEvents.PlayerMove() : null;
+    Metrics.Span span = isMeasured ? metrics.start("turn.move", event) : null;
+    Position from = player.getPosition();
+    markPlayerNeighbourhood();
+    int to = topology.getOpenNeighbour(topology.getCell(from), direction);
+    if (to >= 0) {
+      Position position = topology.getPosition(to);
+      visitedPositions.add(position);
+      player.move(position);
+    }
+    markPlayerNeighbourhood();
+    // Each Beholder takes one of its open directions at random, tracked by packed cell id
+    int col = topology.getCol();
+    for (int i = 0; i < movingMonsterCount; i++) {
+      int cell = movingMonsterCells[i];
+      int next = getRandomNeighbour(cell);
+      dungeon.getGrid().getLocation(next / col, next % col).addMovingMonster(Monster.BEHOLDER);
+      dungeon.getGrid().getLocation(cell / col, cell % col).removeMovingMonster();
+      changedPositions.add(topology.getPosition(cell));
+      changedPositions.add(topology.getPosition(next));
+      movingMonsterCells[i] = next;
+    }
+    metrics.increment("moves.player", 1);
+    metrics.increment("moves.beholder", movingMonsterCount);
+    if (isMeasured && span.end()) {
+      event.rows = dungeon.getRows();
+      event.cols = dungeon.getColumns();
+      event.beholders = movingMonsterCount;
+      event.isMoved = !from.equals(player.getPosition());
+      event.commit();
+    }
   }
 
   @Override
@@ -98,144 +147,203 @@ class CurrentGameState implements GameState {
             player.getPosition().getX(), player.getPosition().getY()).getValidActions();
   }
 
-  private List<Action> getValidActions(Location location) {
-    return dungeon.getGrid().getLocation(
-            location.getPosition().getX(), location.getPosition().getY()).getValidActions();
-  }
-
-  private Position getNextPositionInDirection(Location location, Direction direction) {
-    for (Action action : getValidActions(location)) {
-      if (action.getDirection().equals(direction)) {
-        return action.getPosition();
-      }
-    }
-    return null;
-  }
-
   @Override
   public boolean isSmellingLessPungentNearby() {
-    int monsterCount = 0;
-    for (Action a1 : getValidActions()) {
-      for (Action a2 : getValidActions(getLocation(a1.getPosition()))) {
-        if (getLocation(a2.getPosition()).hasMonster()) {
-          monsterCount++;
-        }
-      }
-    }
-    return monsterCount == 1;
+    return smellField.isSmellingLessPungent(player.getPosition());
   }
 
   @Override
   public boolean isSmellingMorePungentNearby() {
-    int innerMonsterCount = 0;
-    int outerMonsterCount = 0;
-    for (Action a1 : getValidActions()) {
-      if (getLocation(a1.getPosition()).hasMonster()) {
-        innerMonsterCount++;
-      }
-      for (Action a2 : getValidActions(getLocation(a1.getPosition()))) {
-        if (getLocation(a2.getPosition()).hasMonster()) {
-          outerMonsterCount++;
-        }
-      }
-    }
-    return innerMonsterCount > 0 || outerMonsterCount > 1;
+    return smellField.isSmellingMorePungent(player.getPosition());
   }
 
   @Override
   public boolean isSmellingPetrichorNearby() {
-    for (Action a : getValidActions()) {
-      if (getLocation(a.getPosition()).hasPit()) {
-        return true;
-      }
-    }
-    return false;
+    return smellField.isSmellingPetrichor(player.getPosition());
   }
 
   @Override
   public StringBuilder shoot(Weapon weapon, int power, Direction direction) {
+    ArrowFlight flight = launch(weapon, power, direction);
+    String target = flight.isStoppedByWall ? " the arrow hitting a wall\n"
+            : " the arrow hitting the ground\n";
+    switch (flight.outcome) {
+      case WOUNDED:
+        return new StringBuilder("You hear a small ouch in the distance and" + target);
+      case KILLED:
+        return new StringBuilder("You hear a great howl in the distance and" + target);
+      case MISSED:
+        return new StringBuilder("You hear" + target);
+      case OUT_OF_ARROWS:
+      default:
+        return new StringBuilder("You are out of arrows, explore to find more\n");
+    }
+  }
+
+  @Override
+  public Outcome fire(Weapon weapon, int power, Direction direction) {
+    return launch(weapon, power, direction).outcome;
+  }
+
+  private ArrowFlight launch(Weapon weapon, int power, Direction direction) {
     if (power < 1 || power > weapon.getDistance()) {
       throw new IllegalArgumentException("Invalid input!");
     }
-    if (player.getCrookedArrowsLeft() > 0) {
-      player.removeWeapon();
-      Position position = getPlayerLocation().getPosition();
-      while (position != null && power > 0) {
-        List<Action> validActions = getValidActions(getLocation(position));
-        if (validActions.size() == 2) {
-          for (Action a : validActions) {
-            if (!a.getDirection().reverse().equals(direction)) {
-              position = getNextPositionInDirection(getLocation(position), a.getDirection());
-              direction = a.getDirection();
-              break;
-            }
-          }
-        } else {
-          boolean nextExists = false;
-          for (Action a : validActions) {
-            if (a.getDirection().equals(direction)) {
-              position = getNextPositionInDirection(getLocation(position), a.getDirection());
-              nextExists = true;
-              break;
-            }
-          }
-          if (!nextExists) {
-            Location location = getLocation(position);
-            if (location.hasMonster()) {
-              if (location.getMHealth() == 2) {
-                location.hit(weapon.getHitPoints());
-                return new StringBuilder("You hear a small ouch in the distance"
-                        + " and the arrow hitting a wall\n");
-              } else {
-                removedMonsters.add(position);
-                location.removeMonster();
-                return new StringBuilder("You hear a great howl in the distance"
-                        + " and the arrow hitting a wall\n");
-              }
-            } else {
-              return new StringBuilder("You hear the arrow hitting a wall\n");
-            }
-          }
-        }
-        power--;
+    Metrics metrics = Metrics.getDefault();
+    boolean isMeasured = metrics.isMeasured(GameEvents.shotType);
+    GameEvents.Shot event = isMeasured ? new GameEvents.Shot() : null;
+    Metrics.Span span = isMeasured ? metrics.start("turn.shoot", event) : null;
+    ArrowFlight flight = fireArrow(weapon, power, direction);
+    Outcome outcome = flight.outcome;
+    metrics.increment(shotMetricNames[outcome.ordinal()], 1);
+    if (isMeasured && span.end()) {
+      event.rows = dungeon.getRows();
+      event.cols = dungeon.getColumns();
+      event.power = power;
+      event.outcome = outcome.name();
+      event.commit();
+    }
+    return flight;
+  }
+
+  private ArrowFlight fireArrow(Weapon weapon, int power, Direction direction) {
+    if (player.getCrookedArrowsLeft() <= 0) {
+      return new ArrowFlight(Outcome.OUT_OF_ARROWS, false);
+    }
+    player.removeWeapon();
+    boolean isStoppedByWall = false;
+    int cell = topology.getCell(player.getPosition());
+    while (power > 0) {
+      int mask = topology.getMask(cell);
+      if (Integer.bitCount(mask) == 2) {
+        // Tunnels bend the arrow out of the first exit it did not come in through
+        int exits = mask & ~direction.reverse().getMask();
+        direction = directions[Integer.numberOfTrailingZeros(exits)];
+      } else if ((mask & direction.getMask()) == 0) {
+        isStoppedByWall = true;
+        break;
       }
-      if (position != null && getLocation(position).hasMonster()) {
-        Location location = getLocation(position);
-        if (location.getMHealth() == 2) {
-          location.hit(weapon.getHitPoints());
-          return new StringBuilder("You hear a small ouch in the distance"
-                  + " and the arrow hitting the ground\n");
-        } else {
-          removedMonsters.add(position);
-          location.removeMonster();
-          return new StringBuilder("You hear a great howl in the distance"
-                  + " and the arrow hitting the ground\n");
-        }
-      } else {
-        return new StringBuilder("You hear the arrow hitting the ground\n");
+      cell = topology.getOpenNeighbour(cell, direction);
+      power--;
+    }
+    Position position = topology.getPosition(cell);
+    if (getLocation(position).hasMonster()) {
+      Location location = getLocation(position);
+      if (location.getMHealth() == 2) {
+        location.hit(weapon.getHitPoints());
+        return new ArrowFlight(Outcome.WOUNDED, isStoppedByWall);
       }
-    } else {
-      return new StringBuilder("You are out of arrows, explore to find more\n");
+      removedMonsters.add(position);
+      location.removeMonster();
+      smellField.removeMonster(position);
+      changedPositions.add(position);
+      // The stench is drawn on the player, whose cell changes along with the monster's
+      markPlayerNeighbourhood();
+      return new ArrowFlight(Outcome.KILLED, isStoppedByWall);
     }
+    return new ArrowFlight(Outcome.MISSED, isStoppedByWall);
   }
 
   @Override
-  public List<Position> getVisitedPositions() {
-    return visitedPositions;
+  public Set<Position> getVisitedPositions() {
+    return visitedPositions.snapshot();
+  }
+
+  @Override
+  public boolean isVisited(Position position) {
+    return visitedPositions.contains(position);
+  }
+
+  @Override
+  public boolean isMonsterRemoved(Position position) {
+    return removedMonsters.contains(position);
+  }
+
+  @Override
+  public int getVisitedCount() {
+    return visitedPositions.size();
   }
 
   @Override
   public void addMovingMonsterState(Location location) {
-    movingMonsterState.add(location);
+    if (movingMonsterCount == movingMonsterCells.length) {
+      movingMonsterCells = Arrays.copyOf(movingMonsterCells, movingMonsterCount * 2);
+    }
+    movingMonsterCells[movingMonsterCount++] = topology.getCell(location.getPosition());
+  }
+
+  @Override
+  public List<Position> getMovingMonsterPositions() {
+    List<Position> positions = new ArrayList<>(movingMonsterCount);
+    for (int i = 0; i < movingMonsterCount; i++) {
+      positions.add(topology.getPosition(movingMonsterCells[i]));
+    }
+    return positions;
   }
 
   @Override
   public void removeMovingMonsterState() {
-    movingMonsterState.remove(getPlayerLocation());
+    int cell = topology.getCell(player.getPosition());
+    for (int i = 0; i < movingMonsterCount; i++) {
+      if (movingMonsterCells[i] == cell) {
+        System.arraycopy(movingMonsterCells, i + 1, movingMonsterCells, i,
+                movingMonsterCount - i - 1);
+        movingMonsterCount--;
+        break;
+      }
+    }
+    changedPositions.add(player.getPosition());
+  }
+
+  private int getRandomNeighbour(int cell) {
+    // Same choice as picking from the valid actions, which list directions in order
+    int mask = topology.getMask(cell);
+    int choice = random.nextInt(Integer.bitCount(mask));
+    for (Direction direction : directions) {
+      if ((mask & direction.getMask()) != 0 && choice-- == 0) {
+        return topology.getNeighbour(cell, direction);
+      }
+    }
+    throw new IllegalStateException("Unexpected direction!");
   }
 
   @Override
   public void resetPlayer() {
+    markPlayerNeighbourhood();
     player.move(dungeon.getStart());
+    markPlayerNeighbourhood();
+  }
+
+  @Override
+  public Set<Position> drainChangedPositions() {
+    Set<Position> changed = changedPositions;
+    changedPositions = new LinkedHashSet<>();
+    return changed;
+  }
+
+  private void markPlayerNeighbourhood() {
+    changedPositions.add(player.getPosition());
+    int cell = topology.getCell(player.getPosition());
+    for (Direction direction : directions) {
+      int next = topology.getOpenNeighbour(cell, direction);
+      if (next >= 0) {
+        changedPositions.add(topology.getPosition(next));
+      }
+    }
+  }
+
+  /**
+   * Where an arrow ended up: the outcome of the shot and whether a wall stopped the
+   * arrow before it ran out of power.
+   */
+  private static final class ArrowFlight {
+
+    private final Outcome outcome;
+    private final boolean isStoppedByWall;
+
+    ArrowFlight(Outcome outcome, boolean isStoppedByWall) {
+      this.outcome = outcome;
+      this.isStoppedByWall = isStoppedByWall;
+    }
   }
 }
@@ -6,6 +6,15 @@ package dungeon;
 public enum Direction {
   NORTH, SOUTH, EAST, WEST;
 
+  /**
+   * Returns the bit used for this direction in a mask of open directions.
+   *
+   * @return direction bit
+   */
+  int getMask() {
+    return 1 << ordinal();
+  }
+
   Direction reverse() {
     switch (this) {
       case NORTH:
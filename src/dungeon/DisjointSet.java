@@ -0,0 +1,77 @@
+package dungeon;
+
+import java.util.Arrays;
+
+/**
+ * A disjoint-set (union-find) forest over the packed cell ids of a grid, using
+ * path compression and union by rank so that every operation runs in
+ * amortised near-constant time.
+ */
+final class DisjointSet {
+
+  private final int[] parent;
+  private final byte[] rank;
+
+  DisjointSet(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Invalid size!");
+    }
+    parent = new int[size];
+    rank = new byte[size];
+    reset();
+  }
+
+  /**
+   * Puts every element back into a set of its own.
+   */
+  void reset() {
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+    }
+    Arrays.fill(rank, (byte) 0);
+  }
+
+  /**
+   * Returns the representative of the set holding the passed element.
+   *
+   * @param element element
+   * @return representative element
+   */
+  int find(int element) {
+    int root = element;
+    while (parent[root] != root) {
+      root = parent[root];
+    }
+    // Path compression
+    while (parent[element] != root) {
+      int next = parent[element];
+      parent[element] = root;
+      element = next;
+    }
+    return root;
+  }
+
+  /**
+   * Merges the sets holding the two passed elements.
+   *
+   * @param a first element
+   * @param b second element
+   * @return true if the sets were disjoint and got merged, else false
+   */
+  boolean union(int a, int b) {
+    int rootA = find(a);
+    int rootB = find(b);
+    if (rootA == rootB) {
+      return false;
+    }
+    if (rank[rootA] < rank[rootB]) {
+      parent[rootA] = rootB;
+    } else if (rank[rootA] > rank[rootB]) {
+      parent[rootB] = rootA;
+    } else {
+      parent[rootB] = rootA;
+      rank[rootA]++;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,141 @@
+package dungeon;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Answers "how far is X from Y" on an immutable maze. Dungeons with at most the
+ * configured number of cells get a dense all-pairs matrix of shorts, built once by
+ * running one BFS per source in parallel on the fork-join pool. Larger dungeons fall
+ * back to BFS rows computed per target on demand and kept in a small LRU cache.
+ * Since the maze is undirected, the row of a target holds the distance from every
+ * cell to it, which is all that distance and next-hop lookups need.
+ */
+class DistanceIndex {
+
+  static final int DEFAULT_DENSE_CELLS = 1024;
+  static final int DEFAULT_CACHED_ROWS = 64;
+
+  private static final Direction[] directions = Direction.values();
+
+  private final Topology topology;
+  private final PathFinder pathFinder;
+  private final int cells;
+  private final short[] matrix;
+  private final Map<Integer, int[]> rows;
+
+  DistanceIndex(Topology topology) {
+    this(topology, DEFAULT_DENSE_CELLS, DEFAULT_CACHED_ROWS);
+  }
+
+  DistanceIndex(Topology topology, int maxDenseCells, int cachedRows) {
+    if (topology == null) {
+      throw new IllegalArgumentException("Invalid topology!");
+    }
+    if (maxDenseCells < 0 || maxDenseCells > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid dense cell count!");
+    }
+    if (cachedRows < 1) {
+      throw new IllegalArgumentException("Invalid cached row count!");
+    }
+    this.topology = topology;
+    this.pathFinder = new PathFinder(topology);
+    this.cells = topology.getRow() * topology.getCol();
+    if (cells <= maxDenseCells) {
+      matrix = new short[cells * cells];
+      ForkJoinPool.commonPool().invoke(new RowTask(0, cells));
+      rows = null;
+    } else {
+      matrix = null;
+      rows = new LinkedHashMap<Integer, int[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+          return size() > cachedRows;
+        }
+      };
+    }
+  }
+
+  /**
+   * Returns the number of moves between the two passed cells, or -1 if there is no path.
+   *
+   * @param from packed cell id
+   * @param to packed cell id
+   * @return distance
+   */
+  int getDistance(int from, int to) {
+    if (matrix != null) {
+      return matrix[to * cells + from];
+    }
+    return getRow(to)[from];
+  }
+
+  /**
+   * Returns the direction of the first move on a shortest path between the two
+   * passed cells, or null if they are the same cell or there is no path.
+   *
+   * @param from packed cell id
+   * @param to packed cell id
+   * @return direction of the next hop
+   */
+  Direction getNextHop(int from, int to) {
+    int distance = getDistance(from, to);
+    if (distance <= 0) {
+      return null;
+    }
+    int mask = topology.getMask(from);
+    for (Direction direction : directions) {
+      if ((mask & direction.getMask()) != 0
+              && getDistance(topology.getNeighbour(from, direction), to) == distance - 1) {
+        return direction;
+      }
+    }
+    throw new IllegalStateException("Inconsistent distances!");
+  }
+
+  private int[] getRow(int target) {
+    synchronized (rows) {
+      int[] row = rows.get(target);
+      if (row != null) {
+        return row;
+      }
+    }
+    int[] row = pathFinder.calculateDistances(target, new int[cells]);
+    synchronized (rows) {
+      rows.put(target, row);
+    }
+    return row;
+  }
+
+  private class RowTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+    private static final int THRESHOLD = 32;
+
+    private final int from;
+    private final int to;
+
+    RowTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > THRESHOLD) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new RowTask(from, mid), new RowTask(mid, to));
+        return;
+      }
+      int[] distances = new int[cells];
+      for (int source = from; source < to; source++) {
+        pathFinder.calculateDistances(source, distances);
+        for (int cell = 0; cell < cells; cell++) {
+          matrix[source * cells + cell] = (short) distances[cell];
+        }
+      }
+    }
+  }
+}
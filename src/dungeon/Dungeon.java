@@ -1,7 +1,12 @@
 package dungeon;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -17,10 +22,13 @@ import java.util.stream.Collectors;
  */
 public class Dungeon implements Model {
 
+  private static final int MIN_START_END_DISTANCE = 5;
+
   private Position end;
   private Position start;
   private final Grid grid;
-  private final Location[][] map;
+  private final Topology topology;
+  private Location[][] map;
   private final int row;
   private final int col;
   private Player player;
@@ -31,8 +39,11 @@ public class Dungeon implements Model {
   private int treasurePercentage;
   private final boolean isWrapping;
   private GameState currentGameState;
+  private SmellField smellField;
   private final int interconnectivity;
   private int movingMonsterPercentage;
+  private final RandomNetwork random;
+  private ItemPlacer placer;
 
   /**
    * Constructor for inititating a dungeon in the provided dimensions
@@ -44,6 +55,33 @@ public class Dungeon implements Model {
    * @param isWrapping whether is wrapping
    */
   public Dungeon(int row, int col, int interconnectivity, boolean isWrapping) {
+    this(row, col, interconnectivity, isWrapping, new RandomNetwork());
+  }
+
+  /**
+   * Constructor for inititating a dungeon in the provided dimensions
+   * and its interconnectivity, and whether it is wrapping or not. The
+   * same seed always generates the same dungeon.
+   *
+   * @param row height of the dungeon
+   * @param col width of the dungeon
+   * @param interconnectivity degree of interconnectivity
+   * @param isWrapping whether is wrapping
+   * @param seed random seed
+   */
+  public Dungeon(int row, int col, int interconnectivity, boolean isWrapping, long seed) {
+    this(row, col, interconnectivity, isWrapping, new RandomNetwork(seed));
+  }
+
+  private Dungeon(int row, int col, int interconnectivity, boolean isWrapping,
+                  RandomNetwork random) {
+    this(row, col, interconnectivity, isWrapping, random,
+            heapMaze(row, col, interconnectivity, isWrapping));
+  }
+
+  private <G extends Grid & Topology> Dungeon(int row, int col, int interconnectivity,
+                                              boolean isWrapping, RandomNetwork random,
+                                              Function<RandomNetwork, G> maze) {
     if (row < 1) {
       throw new IllegalArgumentException("Illegal dungeon row value!");
     }
@@ -63,8 +101,32 @@ public class Dungeon implements Model {
     this.col = col;
     this.interconnectivity = interconnectivity;
     this.isWrapping = isWrapping;
-    grid = new Grid2D(row, col);
-    map = grid.generateMaze(interconnectivity, isWrapping);
+    GameEvents.MazeGeneration event = new GameEvents.MazeGeneration();
+    Metrics.Span span = Metrics.getDefault().start("maze.generate", event);
+    G generated = maze.apply(random.split());
+    if (span.end()) {
+      event.rows = row;
+      event.cols = col;
+      event.interconnectivity = interconnectivity;
+      event.isWrapping = isWrapping;
+      event.caves = generated.getTotalCaves();
+      event.tunnels = generated.getTotalTunnel();
+      event.commit();
+    }
+    grid = generated;
+    topology = generated;
+    this.random = random.split();
+    placer = new ItemPlacer(topology, this.random);
+  }
+
+  private static Function<RandomNetwork, Grid2D> heapMaze(int row, int col,
+                                                          int interconnectivity,
+                                                          boolean isWrapping) {
+    return random -> {
+      Grid2D grid2D = new Grid2D(row, col, random);
+      grid2D.generateMaze(interconnectivity, isWrapping);
+      return grid2D;
+    };
   }
 
   /**
@@ -85,7 +147,55 @@ public class Dungeon implements Model {
   public Dungeon(int row, int col, int interconnectivity, boolean isWrapping,
                  int treasurePercentage, int monsterPercentage, int weaponPercentage,
                  int pitPercentage, int thiefPercentage, int movingMonsterPercentage) {
-    this(row, col, interconnectivity, isWrapping);
+    this(row, col, interconnectivity, isWrapping,
+            treasurePercentage, monsterPercentage, weaponPercentage,
+            pitPercentage, thiefPercentage, movingMonsterPercentage, new RandomNetwork());
+  }
+
+  /**
+   * Constructor for inititating a dungeon in the provided dimensions
+   * and its interconnectivity, and whether it is wrapping or not. The
+   * same seed always generates the same dungeon and plays the same game.
+   *
+   * @param row height of the dungeon
+   * @param col width of the dungeon
+   * @param interconnectivity degree of interconnectivity
+   * @param isWrapping whether is wrapping
+   * @param treasurePercentage percentage of treasure
+   * @param monsterPercentage percentage of monster
+   * @param weaponPercentage percentage of weapons
+   * @param pitPercentage percentage of pits
+   * @param thiefPercentage percentage of thief
+   * @param movingMonsterPercentage percentage of moving monsters
+   * @param seed random seed
+   **/
+  public Dungeon(int row, int col, int interconnectivity, boolean isWrapping,
+                 int treasurePercentage, int monsterPercentage, int weaponPercentage,
+                 int pitPercentage, int thiefPercentage, int movingMonsterPercentage,
+                 long seed) {
+    this(row, col, interconnectivity, isWrapping,
+            treasurePercentage, monsterPercentage, weaponPercentage,
+            pitPercentage, thiefPercentage, movingMonsterPercentage, new RandomNetwork(seed));
+  }
+
+  private Dungeon(int row, int col, int interconnectivity, boolean isWrapping,
+                  int treasurePercentage, int monsterPercentage, int weaponPercentage,
+                  int pitPercentage, int thiefPercentage, int movingMonsterPercentage,
+                  RandomNetwork random) {
+    this(row, col, interconnectivity, isWrapping,
+            treasurePercentage, monsterPercentage, weaponPercentage,
+            pitPercentage, thiefPercentage, movingMonsterPercentage, random,
+            heapMaze(row, col, interconnectivity, isWrapping));
+  }
+
+  private <G extends Grid & Topology> Dungeon(int row, int col, int interconnectivity,
+                                              boolean isWrapping, int treasurePercentage,
+                                              int monsterPercentage, int weaponPercentage,
+                                              int pitPercentage, int thiefPercentage,
+                                              int movingMonsterPercentage,
+                                              RandomNetwork random,
+                                              Function<RandomNetwork, G> maze) {
+    this(row, col, interconnectivity, isWrapping, random, maze);
     generateStartAndEnd();
     createPlayer();
     addPit(pitPercentage);
@@ -93,11 +203,226 @@ public class Dungeon implements Model {
     addWeapon(weaponPercentage);
     addMonster(monsterPercentage);
     addTreasure(treasurePercentage);
-    currentGameState = new CurrentGameState(player, this, end);
-    currentGameState.getVisitedPositions().add(start);
+    smellField = new PrecomputedSmellField(topology,
+            cell -> getLocation(cell).hasMonster(), cell -> getLocation(cell).hasPit());
+    currentGameState = new CurrentGameState(player, this, topology, end, random.split(),
+            smellField);
     addMovingMonster(movingMonsterPercentage);
   }
 
+  /**
+   * Returns a new dungeon of the passed settings whose cells live in the passed
+   * memory-mapped file instead of on the heap, generated and played from the passed
+   * seed. The maze is generated row by row, items are placed in passes over the file,
+   * the start and end are sampled and the smells are worked out when they are checked,
+   * so the heap needed does not grow with the cells and the dungeon may be larger than
+   * the memory available. Moving monsters still take an int each. The file is replaced
+   * and keeps the cells afterwards.
+   *
+   * @param settings settings of the dungeon
+   * @param file backing file
+   * @param seed random seed
+   * @return dungeon
+   * @throws IOException if the file cannot be mapped
+   */
+  static Dungeon createMapped(DungeonSettings settings, Path file, long seed)
+          throws IOException {
+    int row = settings.getRow();
+    int col = settings.getCol();
+    int interconnectivity = settings.getInterconnectivity();
+    boolean isWrapping = settings.isWrapping();
+    RandomNetwork random = new RandomNetwork(seed);
+    Dungeon dungeon;
+    try {
+      dungeon = new Dungeon(row, col, interconnectivity, isWrapping, random, r -> {
+        try {
+          MappedGrid mappedGrid = new MappedGrid(file, row, col, r);
+          mappedGrid.generateByRows(interconnectivity, isWrapping);
+          return mappedGrid;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    // Nothing below may hold an array over the cells, or the heap would bound the size
+    dungeon.placer = new StreamingItemPlacer(dungeon.topology, dungeon.random);
+    int[] cells = new StartEndSelector(dungeon.topology, dungeon.random)
+            .sample(MIN_START_END_DISTANCE);
+    dungeon.start = dungeon.topology.getPosition(cells[0]);
+    dungeon.end = dungeon.topology.getPosition(cells[1]);
+    dungeon.createPlayer();
+    dungeon.addPit(settings.getPitPercentage());
+    dungeon.addThief(settings.getThiefPercentage());
+    dungeon.addWeapon(settings.getWeaponPercentage());
+    dungeon.addMonster(settings.getMonsterPercentage());
+    dungeon.addTreasure(settings.getTreasurePercentage());
+    dungeon.smellField = new OnDemandSmellField(dungeon.topology,
+            cell -> dungeon.getLocation(cell).hasMonster(),
+            cell -> dungeon.getLocation(cell).hasPit());
+    dungeon.currentGameState = new CurrentGameState(dungeon.player, dungeon,
+            dungeon.topology, dungeon.end, random.split(), dungeon.smellField);
+    dungeon.addMovingMonster(settings.getMovingMonsterPercentage());
+    return dungeon;
+  }
+
+  /**
+   * Returns a new dungeon of the passed settings whose maze is kept in 4 bits per cell,
+   * generated and played from the passed seed. It is the same dungeon as a heap
+   * dungeon of the same seed, but no location is kept per cell and the smells are
+   * worked out when they are checked.
+   *
+   * @param settings settings of the dungeon
+   * @param seed random seed
+   * @return dungeon
+   */
+  static Dungeon createPacked(DungeonSettings settings, long seed) {
+    int row = settings.getRow();
+    int col = settings.getCol();
+    int interconnectivity = settings.getInterconnectivity();
+    boolean isWrapping = settings.isWrapping();
+    RandomNetwork random = new RandomNetwork(seed);
+    Dungeon dungeon = new Dungeon(row, col, interconnectivity, isWrapping, random, r -> {
+      PackedGrid packedGrid = new PackedGrid(row, col, r);
+      packedGrid.generate(interconnectivity, isWrapping);
+      return packedGrid;
+    });
+    dungeon.generateStartAndEnd();
+    dungeon.createPlayer();
+    dungeon.addPit(settings.getPitPercentage());
+    dungeon.addThief(settings.getThiefPercentage());
+    dungeon.addWeapon(settings.getWeaponPercentage());
+    dungeon.addMonster(settings.getMonsterPercentage());
+    dungeon.addTreasure(settings.getTreasurePercentage());
+    dungeon.smellField = new OnDemandSmellField(dungeon.topology,
+            cell -> dungeon.getLocation(cell).hasMonster(),
+            cell -> dungeon.getLocation(cell).hasPit());
+    dungeon.currentGameState = new CurrentGameState(dungeon.player, dungeon,
+            dungeon.topology, dungeon.end, random.split(), dungeon.smellField);
+    dungeon.addMovingMonster(settings.getMovingMonsterPercentage());
+    return dungeon;
+  }
+
+  /**
+   * Returns a new dungeon of the passed settings split into tiles that are generated
+   * only when the game first touches them, so it is created in constant time however
+   * large it is. Items and Otyughs are placed per tile as it is generated, the smells
+   * are worked out when they are checked, and moving monsters are only placed in the
+   * start tile. Tiles that changed are swapped out to the passed directory when too
+   * many are in memory.
+   *
+   * @param settings settings of the dungeon
+   * @param swapDirectory directory for swapped out tiles
+   * @param seed random seed
+   * @return dungeon
+   */
+  static Dungeon createChunked(DungeonSettings settings, Path swapDirectory, long seed) {
+    RandomNetwork random = new RandomNetwork(seed);
+    ChunkedGrid world = new ChunkedGrid(settings, ChunkedGrid.TILE_SIZE,
+            ChunkedGrid.DEFAULT_RESIDENT_TILES, MIN_START_END_DISTANCE, swapDirectory,
+            random.split());
+    Dungeon dungeon = new Dungeon(settings.getRow(), settings.getCol(),
+            settings.getInterconnectivity(), settings.isWrapping(), random, r -> world);
+    dungeon.treasurePercentage = settings.getTreasurePercentage();
+    dungeon.monsterPercentage = settings.getMonsterPercentage();
+    dungeon.weaponPercentage = settings.getWeaponPercentage();
+    dungeon.pitPercentage = settings.getPitPercentage();
+    dungeon.thiefPercentage = settings.getThiefPercentage();
+    dungeon.movingMonsterPercentage = settings.getMovingMonsterPercentage();
+    dungeon.start = world.getStart();
+    dungeon.end = world.getEnd();
+    dungeon.createPlayer();
+    dungeon.smellField = new OnDemandSmellField(world,
+            cell -> dungeon.getLocation(cell).hasMonster(),
+            cell -> dungeon.getLocation(cell).hasPit());
+    dungeon.currentGameState = new CurrentGameState(dungeon.player, dungeon, world,
+            dungeon.end, random.split(), dungeon.smellField);
+    for (int cell : world.placeMovingMonsters(settings.getMovingMonsterPercentage())) {
+      dungeon.currentGameState.addMovingMonsterState(dungeon.getLocation(cell));
+    }
+    return dungeon;
+  }
+
+  /**
+   * Constructor for a dungeon restored from the saved direction mask of every cell.
+   * The saved items and monsters are put back into the map before the game is
+   * resumed; until then the dungeon is not playable.
+   *
+   * @param settings settings the dungeon was generated from
+   * @param masks direction mask of every cell
+   * @param start start position
+   * @param end end position
+   * @param random random used to place items
+   * @throws IllegalArgumentException if the settings could not have generated a dungeon
+   */
+  Dungeon(DungeonSettings settings, byte[] masks, Position start, Position end,
+          RandomNetwork random) {
+    if (settings.getRow() < 6 || settings.getCol() < 6) {
+      throw new IllegalArgumentException("Invalid dungeon size!");
+    }
+    if (settings.getInterconnectivity() < 0) {
+      throw new IllegalArgumentException("Illegal dungeon interconnectivity value!");
+    }
+    int[] percentages = {settings.getTreasurePercentage(), settings.getMonsterPercentage(),
+        settings.getWeaponPercentage(), settings.getPitPercentage(),
+        settings.getThiefPercentage(), settings.getMovingMonsterPercentage()};
+    for (int percentage : percentages) {
+      if (percentage < 1 || percentage > 100) {
+        throw new IllegalArgumentException("Invalid percentage!");
+      }
+    }
+    row = settings.getRow();
+    col = settings.getCol();
+    interconnectivity = settings.getInterconnectivity();
+    isWrapping = settings.isWrapping();
+    treasurePercentage = settings.getTreasurePercentage();
+    monsterPercentage = settings.getMonsterPercentage();
+    weaponPercentage = settings.getWeaponPercentage();
+    pitPercentage = settings.getPitPercentage();
+    thiefPercentage = settings.getThiefPercentage();
+    movingMonsterPercentage = settings.getMovingMonsterPercentage();
+    Grid2D grid2D = new Grid2D(row, col);
+    grid = grid2D;
+    topology = grid2D;
+    map = grid2D.restoreMaze(masks, isWrapping);
+    this.start = start;
+    this.end = end;
+    this.random = random;
+    placer = new ItemPlacer(topology, random);
+  }
+
+  /**
+   * Resumes a restored dungeon with the saved player and game state. The smells are
+   * derived from the monsters and pits in place, and the moving monsters move in
+   * the passed order.
+   *
+   * @param player restored player
+   * @param gameRandom random of the game state
+   * @param visited visited positions
+   * @param removed positions of slain monsters
+   * @param movingMonsters positions of the moving monsters
+   */
+  void resume(Player player, RandomNetwork gameRandom, PositionSet visited,
+              PositionSet removed, List<Position> movingMonsters) {
+    this.player = player;
+    smellField = new PrecomputedSmellField(topology,
+            cell -> getLocation(cell).hasMonster(), cell -> getLocation(cell).hasPit());
+    currentGameState = new CurrentGameState(player, this, topology, end, gameRandom,
+            smellField, visited, removed);
+    for (Position position : movingMonsters) {
+      currentGameState.addMovingMonsterState(currentGameState.getLocation(position));
+    }
+  }
+
+  Topology getTopology() {
+    return topology;
+  }
+
+  RandomNetwork getRandom() {
+    return random;
+  }
+
   @Override
   public Grid getGrid() {
     return grid;
@@ -139,12 +464,35 @@ public class Dungeon implements Model {
   }
 
   @Override
-  public List<Position> getRemovedMonsters() {
+  public Set<Position> getRemovedMonsters() {
     return currentGameState.getRemovedMonsters();
   }
 
+  @Override
+  public boolean isMonsterRemoved(Position position) {
+    return currentGameState.isMonsterRemoved(position);
+  }
+
+  /**
+   * {@inheritDoc} Only dungeons whose locations live on the heap have a map; the
+   * locations of other dungeons are read one at a time from {@link #getGrid()}.
+   *
+   * @throws UnsupportedOperationException if the locations do not live on the heap
+   */
   @Override
   public Location[][] getMap() {
+    if (!(grid instanceof Grid2D)) {
+      throw new UnsupportedOperationException("Dungeon keeps no map!");
+    }
+    if (map == null) {
+      Location[][] locations = new Location[row][col];
+      for (int i = 0; i < row; i++) {
+        for (int j = 0; j < col; j++) {
+          locations[i][j] = grid.getLocation(i, j);
+        }
+      }
+      map = locations;
+    }
     return map;
   }
 
@@ -231,8 +579,18 @@ public class Dungeon implements Model {
   }
 
   @Override
-  public List<Position> getVisitedPositions() {
-    return new ArrayList<>(currentGameState.getVisitedPositions());
+  public Set<Position> getVisitedPositions() {
+    return currentGameState.getVisitedPositions();
+  }
+
+  @Override
+  public boolean isVisited(Position position) {
+    return currentGameState.isVisited(position);
+  }
+
+  @Override
+  public int getVisitedCount() {
+    return currentGameState.getVisitedCount();
   }
 
   @Override
@@ -306,21 +664,19 @@ public class Dungeon implements Model {
     if (percentage < 1 || percentage > 100) {
       throw new IllegalArgumentException("Invalid percentage!");
     }
-    int timeout = 1000;
+    GameEvents.ItemPlacement event = new GameEvents.ItemPlacement();
+    Metrics.Span span = Metrics.getDefault().start("place.beholder", event);
     int totalLocationsWithMovingMonster =
             percentage * (grid.getTotalCaves() + grid.getTotalTunnel()) / 100;
-    while (totalLocationsWithMovingMonster > 0 && timeout > 0) {
-      Location location = map[RandomNetwork.nextInt(grid.getRow())]
-              [RandomNetwork.nextInt(grid.getCol())];
-      if (!location.hasMovingMonster()
-              && !location.getPosition().equals(start) && !location.getPosition().equals(end)) {
-        if (location.addMovingMonster(Monster.BEHOLDER)) {
-          currentGameState.addMovingMonsterState(location);
-          totalLocationsWithMovingMonster--;
-        }
-      }
-      timeout--;
-    }
+    int placed = placer.place(false,
+            cell -> !isStartOrEnd(cell) && !getLocation(cell).hasMovingMonster(),
+            totalLocationsWithMovingMonster, false, cell -> {
+              Location location = getLocation(cell);
+              if (location.addMovingMonster(Monster.BEHOLDER)) {
+                currentGameState.addMovingMonsterState(location);
+              }
+            });
+    recordPlacement(span, event, "beholder", percentage, placed);
   }
 
   @Override
@@ -350,18 +706,15 @@ public class Dungeon implements Model {
     if (percentage < 1 || percentage > 100) {
       throw new IllegalArgumentException("Invalid percentage!");
     }
+    GameEvents.ItemPlacement event = new GameEvents.ItemPlacement();
+    Metrics.Span span = Metrics.getDefault().start("place.treasure", event);
     int totalCavesWithTreasure = percentage * grid.getTotalCaves() / 100;
-    while (totalCavesWithTreasure != 0) {
-      Location location = map[RandomNetwork.nextInt(grid.getRow())]
-                                 [RandomNetwork.nextInt(grid.getCol())];
-      int randomTreasureIndex = RandomNetwork.nextInt(Treasure.values().length);
-      Treasure randomTreasure = Treasure.values()[randomTreasureIndex];
-      if (location.getTreasures() != null && location.getTreasures().size() == 0) {
-        if (location.addTreasure(randomTreasure)) {
-          totalCavesWithTreasure--;
-        }
-      }
-    }
+    int placed = placer.place(true, cell -> !getLocation(cell).hasTreasure(),
+            totalCavesWithTreasure, false, cell -> {
+              int randomTreasureIndex = random.nextInt(Treasure.values().length);
+              getLocation(cell).addTreasure(Treasure.values()[randomTreasureIndex]);
+            });
+    recordPlacement(span, event, "treasure", percentage, placed);
   }
 
   @Override
@@ -370,20 +723,22 @@ public class Dungeon implements Model {
     if (percentage < 1 || percentage > 100) {
       throw new IllegalArgumentException("Invalid percentage!");
     }
-    int timeout = 1000;
+    GameEvents.ItemPlacement event = new GameEvents.ItemPlacement();
+    Metrics.Span span = Metrics.getDefault().start("place.otyugh", event);
     int totalCavesWithMonster = percentage * grid.getTotalCaves() / 100;
-    map[end.getX()][end.getY()].addMonster(Monster.OTYUGH);
-    totalCavesWithMonster--;
-    while (totalCavesWithMonster > 0 && timeout > 0) {
-      Location location = map[RandomNetwork.nextInt(grid.getRow())]
-              [RandomNetwork.nextInt(grid.getCol())];
-      if (!location.hasMonster() && !location.getPosition().equals(start)) {
-        if (location.addMonster(Monster.OTYUGH)) {
-          totalCavesWithMonster--;
-        }
-      }
-      timeout--;
+    boolean isEndSmelling = grid.getLocation(end).hasMonster();
+    grid.getLocation(end).addMonster(Monster.OTYUGH);
+    if (!isEndSmelling) {
+      addSmellOfMonster(topology.getCell(end));
     }
+    totalCavesWithMonster--;
+    int placed = placer.place(true,
+            cell -> !isStartOrEnd(cell) && !getLocation(cell).hasMonster(),
+            Math.max(totalCavesWithMonster, 0), false, cell -> {
+              getLocation(cell).addMonster(Monster.OTYUGH);
+              addSmellOfMonster(cell);
+            });
+    recordPlacement(span, event, "otyugh", percentage, placed + 1);
   }
 
   @Override
@@ -392,19 +747,16 @@ public class Dungeon implements Model {
     if (percentage < 1 || percentage > 100) {
       throw new IllegalArgumentException("Invalid percentage!");
     }
+    GameEvents.ItemPlacement event = new GameEvents.ItemPlacement();
+    Metrics.Span span = Metrics.getDefault().start("place.weapon", event);
     int totalCavesWithWeapons = percentage * grid.getTotalCaves() / 100;
-    while (totalCavesWithWeapons > 0) {
-      Location location = map[RandomNetwork.nextInt(grid.getRow())]
-              [RandomNetwork.nextInt(grid.getCol())];
-      int randomWeaponIndex = RandomNetwork.nextInt(Weapon.values().length);
-      Weapon randomWeapon = Weapon.values()[randomWeaponIndex];
-      if (location.getWeapons() != null
-              && !location.getPosition().equals(start) && !location.getPosition().equals(end)) {
-        if (location.addWeapon(randomWeapon)) {
-          totalCavesWithWeapons--;
-        }
-      }
-    }
+    // Weapons stack, so the exact count is met even with fewer eligible caves
+    int placed = placer.place(true, cell -> !isStartOrEnd(cell), totalCavesWithWeapons, true,
+            cell -> {
+              int randomWeaponIndex = random.nextInt(Weapon.values().length);
+              getLocation(cell).addWeapon(Weapon.values()[randomWeaponIndex]);
+            });
+    recordPlacement(span, event, "weapon", percentage, placed);
   }
 
   @Override
@@ -413,19 +765,18 @@ public class Dungeon implements Model {
     if (percentage < 1 || percentage > 100) {
       throw new IllegalArgumentException("Invalid percentage!");
     }
-    int timeout = 1000;
+    GameEvents.ItemPlacement event = new GameEvents.ItemPlacement();
+    Metrics.Span span = Metrics.getDefault().start("place.pit", event);
     int totalCavesWithPits = percentage * grid.getTotalCaves() / 100;
-    while (totalCavesWithPits > 0 && timeout > 0) {
-      Location location = map[RandomNetwork.nextInt(grid.getRow())]
-              [RandomNetwork.nextInt(grid.getCol())];
-      if (!location.hasPit()
-              && !location.getPosition().equals(start) && !location.getPosition().equals(end)) {
-        if (location.addPit(Pit.DEEP_PIT)) {
-          totalCavesWithPits--;
-        }
-      }
-      timeout--;
-    }
+    int placed = placer.place(true,
+            cell -> !isStartOrEnd(cell) && !getLocation(cell).hasPit(),
+            totalCavesWithPits, false, cell -> {
+              getLocation(cell).addPit(Pit.DEEP_PIT);
+              if (smellField != null) {
+                smellField.addPit(cell);
+              }
+            });
+    recordPlacement(span, event, "pit", percentage, placed);
   }
 
   @Override
@@ -434,34 +785,51 @@ public class Dungeon implements Model {
     if (percentage < 1 || percentage > 100) {
       throw new IllegalArgumentException("Invalid percentage!");
     }
-    int timeout = 1000;
+    GameEvents.ItemPlacement event = new GameEvents.ItemPlacement();
+    Metrics.Span span = Metrics.getDefault().start("place.thief", event);
     int totalLocationsWithThieves =
             percentage * (grid.getTotalCaves() + grid.getTotalTunnel()) / 100;
-    while (totalLocationsWithThieves > 0 && timeout > 0) {
-      Location location = map[RandomNetwork.nextInt(grid.getRow())]
-              [RandomNetwork.nextInt(grid.getCol())];
-      if (!location.hasThief()
-              && !location.getPosition().equals(start) && !location.getPosition().equals(end)) {
-        if (location.addThief(Thief.TREASURE_THIEF)) {
-          totalLocationsWithThieves--;
-        }
-      }
-      timeout--;
+    int placed = placer.place(false,
+            cell -> !isStartOrEnd(cell) && !getLocation(cell).hasThief(),
+            totalLocationsWithThieves, false,
+            cell -> getLocation(cell).addThief(Thief.TREASURE_THIEF));
+    recordPlacement(span, event, "thief", percentage, placed);
+  }
+
+  private void recordPlacement(Metrics.Span span, GameEvents.ItemPlacement event, String item,
+                               int percentage, int placed) {
+    Metrics.getDefault().increment("placed." + item, placed);
+    if (span.end()) {
+      event.item = item;
+      event.percentage = percentage;
+      event.placed = placed;
+      event.rows = row;
+      event.cols = col;
+      event.commit();
     }
   }
 
+  private void addSmellOfMonster(int cell) {
+    // Monsters placed before the game state exists are picked up when the field is built
+    if (smellField != null) {
+      smellField.addMonster(cell);
+    }
+  }
+
+  private Location getLocation(int cell) {
+    return grid.getLocation(cell / col, cell % col);
+  }
+
+  private boolean isStartOrEnd(int cell) {
+    return (start != null && cell == topology.getCell(start))
+            || (end != null && cell == topology.getCell(end));
+  }
+
   @Override
   public Position[] generateStartAndEnd() {
-    int timer = 1000;
-    do {
-      if (timer == 0) {
-        throw new IllegalStateException("Start end make failed!");
-      }
-      start = getRandomPosition();
-      end = getRandomPosition();
-      timer--;
-    }
-    while (isIllegalStartAndEnd(start, end));
+    int[] cells = new StartEndSelector(topology, random).select(MIN_START_END_DISTANCE);
+    start = topology.getPosition(cells[0]);
+    end = topology.getPosition(cells[1]);
     return new Position[]{start, end};
   }
 
@@ -483,14 +851,9 @@ public class Dungeon implements Model {
     if (end == null) {
       throw new IllegalArgumentException("Invalid end!");
     }
-    return grid.getLocation(start) instanceof Tunnel
-              || grid.getLocation(end) instanceof Tunnel
-              || Math.abs(start.getX() - end.getX()) < 5
-              || Math.abs(start.getY() - end.getY()) < 5;
-  }
-
-  private Position getRandomPosition() {
-    return new Position(RandomNetwork.nextInt(grid.getRow()), RandomNetwork.nextInt(grid.getCol()));
+    return Integer.bitCount(topology.getMask(topology.getCell(start))) == 2
+              || Integer.bitCount(topology.getMask(topology.getCell(end))) == 2
+              || grid.getDistance(start, end) < MIN_START_END_DISTANCE;
   }
 
   @Override
@@ -506,9 +869,9 @@ public class Dungeon implements Model {
   @Override
   public String toString() {
     StringBuilder stringBuilder = new StringBuilder();
-    for (Location[] row : map) {
-      for (Location col : row) {
-        stringBuilder.append(String.format("%-10s", col));
+    for (int i = 0; i < row; i++) {
+      for (int j = 0; j < col; j++) {
+        stringBuilder.append(String.format("%-10s", grid.getLocation(i, j)));
       }
       stringBuilder.append("\n");
     }
@@ -14,6 +14,7 @@ class DungeonMouseListener extends MouseAdapter {
   @Override
   public void mouseClicked(MouseEvent e) {
     super.mouseClicked(e);
-    listener.handlePlayerMove(Math.floorDiv(e.getY(), 64), Math.floorDiv(e.getX(), 64));
+    listener.handlePlayerMove(Math.floorDiv(e.getY(), GuiPanel.TILE_SIZE),
+            Math.floorDiv(e.getX(), GuiPanel.TILE_SIZE));
   }
 }
@@ -0,0 +1,159 @@
+package dungeon;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps ready-made dungeons for each settings key, generated on background threads, so
+ * that starting a new game takes a dungeon from a queue instead of generating one on the
+ * Event Dispatch Thread. Every dungeon taken schedules a replacement, and a dungeon is
+ * only generated in the caller's thread when none of its settings is ready yet. Only
+ * the settings used most recently keep their dungeons; older ones are dropped along
+ * with whatever was generated for them, so custom sizes do not pile up. A dungeon that
+ * fails to generate in the background stops its settings from being filled until the
+ * failure is reported by the next {@link #take}.
+ */
+class DungeonPool {
+
+  static final int DEFAULT_CAPACITY = 2;
+  static final int DEFAULT_MAX_SETTINGS = 3;
+
+  private final int capacity;
+  private final ExecutorService executor;
+  private final Map<DungeonSettings, Slot> slots;
+
+  DungeonPool() {
+    this(DEFAULT_CAPACITY, DEFAULT_MAX_SETTINGS,
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  }
+
+  DungeonPool(int capacity, int maxSettings, int threads) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Invalid capacity!");
+    }
+    if (maxSettings < 1) {
+      throw new IllegalArgumentException("Invalid settings count!");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid thread count!");
+    }
+    this.capacity = capacity;
+    this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "dungeon-pool");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    this.slots = new LinkedHashMap<DungeonSettings, Slot>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<DungeonSettings, Slot> eldest) {
+        return size() > maxSettings;
+      }
+    };
+  }
+
+  /**
+   * Returns a new dungeon of the passed settings, taken from the ready dungeons if there
+   * is one, and schedules the pool to be filled up again.
+   *
+   * @param settings settings of the dungeon
+   * @return dungeon
+   * @throws IllegalStateException if a dungeon of the settings failed to generate in
+   *         the background since the last take
+   */
+  Dungeon take(DungeonSettings settings) {
+    if (settings == null) {
+      throw new IllegalArgumentException("Invalid settings!");
+    }
+    Slot slot = getSlot(settings);
+    RuntimeException failure = slot.failure;
+    if (failure != null) {
+      slot.failure = null;
+      throw new IllegalStateException(failure.getMessage(), failure);
+    }
+    Dungeon dungeon = slot.ready.poll();
+    if (dungeon == null) {
+      dungeon = settings.createDungeon();
+    }
+    fill(settings);
+    return dungeon;
+  }
+
+  /**
+   * Fills the pool with dungeons of the passed settings like {@link #fill}, unless they
+   * were asked for before; from then on every take fills it again.
+   *
+   * @param settings settings of the dungeons
+   */
+  void prepare(DungeonSettings settings) {
+    if (getSlot(settings).isPrepared.compareAndSet(false, true)) {
+      fill(settings);
+    }
+  }
+
+  /**
+   * Schedules dungeons of the passed settings to be generated until as many are ready,
+   * or being generated, as the capacity of the pool.
+   *
+   * @param settings settings of the dungeons
+   */
+  void fill(DungeonSettings settings) {
+    Slot slot = getSlot(settings);
+    BlockingQueue<Dungeon> queue = slot.ready;
+    AtomicInteger pending = slot.pending;
+    while (slot.failure == null) {
+      int count = pending.get();
+      if (queue.size() + count >= capacity) {
+        return;
+      }
+      if (pending.compareAndSet(count, count + 1)) {
+        executor.execute(() -> {
+          try {
+            queue.offer(settings.createDungeon());
+          } catch (RuntimeException e) {
+            slot.failure = e;
+          } finally {
+            pending.decrementAndGet();
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Returns the number of dungeons of the passed settings that are ready to be taken.
+   *
+   * @param settings settings of the dungeons
+   * @return number of ready dungeons
+   */
+  int getReadyCount(DungeonSettings settings) {
+    synchronized (slots) {
+      Slot slot = slots.get(settings);
+      return slot == null ? 0 : slot.ready.size();
+    }
+  }
+
+  private Slot getSlot(DungeonSettings settings) {
+    synchronized (slots) {
+      return slots.computeIfAbsent(settings, s -> new Slot());
+    }
+  }
+
+  /**
+   * The dungeons of one settings key that are ready, the number being generated, and
+   * the last background failure not yet reported.
+   */
+  private static final class Slot {
+
+    private final BlockingQueue<Dungeon> ready = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean isPrepared = new AtomicBoolean();
+    private volatile RuntimeException failure;
+  }
+}
@@ -0,0 +1,248 @@
+package dungeon;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The settings a dungeon game is generated from: its size, interconnectivity, whether
+ * it wraps, and the percentages of treasure, Otyughs, weapons, pits, thieves and
+ * Beholders. Settings are immutable and can be used as keys.
+ */
+public final class DungeonSettings {
+
+  /**
+   * Settings of the default game.
+   */
+  public static final DungeonSettings DEFAULT = new DungeonSettings(8, 9, 72, true,
+          15, 5, 15,
+          5, 5, 5);
+
+  private final int row;
+  private final int col;
+  private final int interconnectivity;
+  private final boolean isWrapping;
+  private final int treasurePercentage;
+  private final int monsterPercentage;
+  private final int weaponPercentage;
+  private final int pitPercentage;
+  private final int thiefPercentage;
+  private final int movingMonsterPercentage;
+
+  /**
+   * Constructor for the settings of a dungeon game.
+   *
+   * @param row height of the dungeon
+   * @param col width of the dungeon
+   * @param interconnectivity degree of interconnectivity
+   * @param isWrapping whether is wrapping
+   * @param treasurePercentage percentage of caves with treasure
+   * @param monsterPercentage percentage of caves with an Otyugh
+   * @param weaponPercentage percentage of locations with weapons
+   * @param pitPercentage percentage of caves with a pit
+   * @param thiefPercentage percentage of caves with a thief
+   * @param movingMonsterPercentage percentage of caves with a Beholder
+   */
+  public DungeonSettings(int row, int col, int interconnectivity, boolean isWrapping,
+                         int treasurePercentage, int monsterPercentage, int weaponPercentage,
+                         int pitPercentage, int thiefPercentage, int movingMonsterPercentage) {
+    this.row = row;
+    this.col = col;
+    this.interconnectivity = interconnectivity;
+    this.isWrapping = isWrapping;
+    this.treasurePercentage = treasurePercentage;
+    this.monsterPercentage = monsterPercentage;
+    this.weaponPercentage = weaponPercentage;
+    this.pitPercentage = pitPercentage;
+    this.thiefPercentage = thiefPercentage;
+    this.movingMonsterPercentage = movingMonsterPercentage;
+  }
+
+  /**
+   * Returns the settings the passed model was generated from.
+   *
+   * @param model model
+   * @return settings of the model
+   */
+  public static DungeonSettings of(ReadOnlyModel model) {
+    if (model == null) {
+      throw new IllegalArgumentException("Invalid model!");
+    }
+    return new DungeonSettings(model.getRows(), model.getColumns(),
+            model.getInterconnectivity(), model.getIsWrapping(),
+            model.getTreasurePercentage(), model.getMonsterPercentage(),
+            model.getWeaponsPercentage(), model.getPitPercentage(),
+            model.getThiefPercentage(), model.getMovingMonsterPercentage());
+  }
+
+  /**
+   * Returns these settings with the percentages that the difficulty slider of the game
+   * settings dialog derives from the passed difficulty. Percentages never go below one,
+   * the minimum of the sliders.
+   *
+   * @param difficulty difficulty from 1 to 10
+   * @return settings of that difficulty
+   */
+  public DungeonSettings withDifficulty(int difficulty) {
+    if (difficulty < 1 || difficulty > 10) {
+      throw new IllegalArgumentException("Invalid difficulty!");
+    }
+    int loot = atLeastOne(Math.sin(Math.toRadians(difficulty * 18)) * 80);
+    int hazard = atLeastOne(difficulty * 8);
+    int monster = atLeastOne(Math.pow(difficulty, 2) * 0.8);
+    return new DungeonSettings(row, col, interconnectivity, isWrapping,
+            loot, monster, loot,
+            hazard, hazard, monster);
+  }
+
+  private static int atLeastOne(double percentage) {
+    return Math.max(1, (int) percentage);
+  }
+
+  /**
+   * Returns a new dungeon of these settings with a game state.
+   *
+   * @return dungeon
+   */
+  public Dungeon createDungeon() {
+    return new Dungeon(row, col, interconnectivity, isWrapping,
+            treasurePercentage, monsterPercentage, weaponPercentage,
+            pitPercentage, thiefPercentage, movingMonsterPercentage);
+  }
+
+  /**
+   * Returns a new dungeon of these settings with a game state, generated and played
+   * from the passed seed.
+   *
+   * @param seed random seed
+   * @return dungeon
+   */
+  public Dungeon createDungeon(long seed) {
+    return new Dungeon(row, col, interconnectivity, isWrapping,
+            treasurePercentage, monsterPercentage, weaponPercentage,
+            pitPercentage, thiefPercentage, movingMonsterPercentage, seed);
+  }
+
+  /**
+   * Returns a new dungeon of these settings with a game state, generated and played
+   * from the passed seed, that keeps its maze in 4 bits per cell and its items apart
+   * instead of a location per cell. It is the same dungeon as
+   * {@link #createDungeon(long)} returns for the seed.
+   *
+   * @param seed random seed
+   * @return dungeon
+   */
+  public Dungeon createPackedDungeon(long seed) {
+    return Dungeon.createPacked(this, seed);
+  }
+
+  /**
+   * Returns a new dungeon of these settings with a game state, generated and played
+   * from the passed seed, whose cells live in the passed memory-mapped file instead
+   * of on the heap. Such dungeons may be larger than the memory available. The maze
+   * is generated a row at a time, so a wrapping dungeon only wraps from east to west:
+   * it still reports wrapping, but no edge from the last row to the first is opened.
+   *
+   * @param file backing file, replaced if it exists
+   * @param seed random seed
+   * @return dungeon
+   * @throws IOException if the file cannot be mapped
+   */
+  public Dungeon createMappedDungeon(Path file, long seed) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("Invalid file!");
+    }
+    return Dungeon.createMapped(this, file, seed);
+  }
+
+  /**
+   * Returns a new dungeon of these settings with a game state, generated and played
+   * from the passed seed, that is split into tiles generated as the game reaches
+   * them. Such dungeons are created in constant time whatever their size. Changed
+   * tiles are swapped out to a directory of the dungeon's own inside the passed one,
+   * which is deleted when its {@link ChunkedGrid} is closed.
+   *
+   * @param swapDirectory existing directory that changed tiles are swapped out to
+   * @param seed random seed
+   * @return dungeon
+   */
+  public Dungeon createChunkedDungeon(Path swapDirectory, long seed) {
+    if (swapDirectory == null) {
+      throw new IllegalArgumentException("Invalid swap directory!");
+    }
+    return Dungeon.createChunked(this, swapDirectory, seed);
+  }
+
+  public int getRow() {
+    return row;
+  }
+
+  public int getCol() {
+    return col;
+  }
+
+  public int getInterconnectivity() {
+    return interconnectivity;
+  }
+
+  public boolean isWrapping() {
+    return isWrapping;
+  }
+
+  public int getTreasurePercentage() {
+    return treasurePercentage;
+  }
+
+  public int getMonsterPercentage() {
+    return monsterPercentage;
+  }
+
+  public int getWeaponPercentage() {
+    return weaponPercentage;
+  }
+
+  public int getPitPercentage() {
+    return pitPercentage;
+  }
+
+  public int getThiefPercentage() {
+    return thiefPercentage;
+  }
+
+  public int getMovingMonsterPercentage() {
+    return movingMonsterPercentage;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof DungeonSettings)) {
+      return false;
+    }
+    DungeonSettings that = (DungeonSettings) o;
+    return row == that.row && col == that.col && interconnectivity == that.interconnectivity
+            && isWrapping == that.isWrapping && treasurePercentage == that.treasurePercentage
+            && monsterPercentage == that.monsterPercentage
+            && weaponPercentage == that.weaponPercentage && pitPercentage == that.pitPercentage
+            && thiefPercentage == that.thiefPercentage
+            && movingMonsterPercentage == that.movingMonsterPercentage;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(row, col, interconnectivity, isWrapping, treasurePercentage,
+            monsterPercentage, weaponPercentage, pitPercentage, thiefPercentage,
+            movingMonsterPercentage);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%dx%d, interconnectivity %d, %s, treasure %d%%, Otyugh %d%%,"
+                    + " weapon %d%%, pit %d%%, thief %d%%, Beholder %d%%",
+            row, col, interconnectivity, isWrapping ? "wrapping" : "non-wrapping",
+            treasurePercentage, monsterPercentage, weaponPercentage, pitPercentage,
+            thiefPercentage, movingMonsterPercentage);
+  }
+}
@@ -0,0 +1,209 @@
+package dungeon;
+
+import java.util.Arrays;
+
+/**
+ * Generates the dungeon maze one row at a time using Eller's algorithm, so that only
+ * the sets of the current row are kept and the working memory is linear in the number
+ * of columns however tall the maze is. Each row is handed to a {@link RowSink} as soon
+ * as it is complete.
+ * <p>
+ * Within a row, neighbouring cells of different sets are joined at random, including
+ * the edge from the last column back to the first when the maze wraps. Every set then
+ * opens at least one cell to the row below, and the last row joins all sets that are
+ * left. Like {@link KruskalMazeGenerator}, the result is a spanning tree to which up to
+ * the passed number of leftover edges are added back; since the total number of
+ * leftovers is known up front, each one is kept with the probability that samples the
+ * budget uniformly across the whole maze. Edges wrapping from the last row to the first
+ * cannot be streamed and are never opened.
+ */
+final class EllerMazeGenerator {
+
+  private final int row;
+  private final int col;
+  private final boolean isWrapping;
+  private final RandomNetwork random;
+
+  EllerMazeGenerator(int row, int col, boolean isWrapping, RandomNetwork random) {
+    if (row < 0) {
+      throw new IllegalArgumentException("Invalid row!");
+    }
+    if (col < 0) {
+      throw new IllegalArgumentException("Invalid col!");
+    }
+    if (random == null) {
+      throw new IllegalArgumentException("Invalid random!");
+    }
+    this.row = row;
+    this.col = col;
+    this.isWrapping = isWrapping;
+    this.random = random;
+  }
+
+  /**
+   * Returns the open directions of every cell as a bit mask of
+   * {@link Direction#getMask()} values, indexed by packed cell id.
+   *
+   * @param interconnectivity degree of interconnectivity
+   * @return direction masks per cell
+   */
+  byte[] generate(int interconnectivity) {
+    byte[] masks = new byte[row * col];
+    generate(interconnectivity, (x, cells) -> System.arraycopy(cells, 0, masks, x * col, col));
+    return masks;
+  }
+
+  /**
+   * Generates the maze and passes every row, from the first to the last, to the sink.
+   *
+   * @param interconnectivity degree of interconnectivity
+   * @param sink receiver of the rows
+   */
+  void generate(int interconnectivity, RowSink sink) {
+    if (interconnectivity < 0) {
+      throw new IllegalArgumentException("Invalid interconnectivity!");
+    }
+    if (sink == null) {
+      throw new IllegalArgumentException("Invalid sink!");
+    }
+    if (row == 0 || col == 0) {
+      return;
+    }
+    // A wrapping edge would duplicate a regular edge (or loop onto itself)
+    // unless there are at least three cells in that dimension
+    boolean wrapEast = isWrapping && col > 2;
+    long edges = (long) row * (wrapEast ? col : col - 1) + (long) col * (row - 1);
+    Budget budget = new Budget(interconnectivity, edges - ((long) row * col - 1));
+
+    byte[] current = new byte[col];
+    byte[] below = new byte[col];
+    DisjointSet sets = new DisjointSet(col);
+    DisjointSet nextSets = new DisjointSet(col);
+    int[] members = new int[col];
+    int[] opened = new int[col];
+    int[] first = new int[col];
+    boolean[] isOpen = new boolean[col];
+    for (int x = 0; x < row; x++) {
+      boolean isLast = x == row - 1;
+
+      // Joining neighbours of different sets; the last row joins all of them
+      for (int y = 0; y < (wrapEast ? col : col - 1); y++) {
+        int east = (y + 1) % col;
+        if (sets.find(y) != sets.find(east) && (isLast || random.nextInt(2) == 0)) {
+          sets.union(y, east);
+          openEast(current, y, east);
+        } else if (budget.take()) {
+          openEast(current, y, east);
+        }
+      }
+
+      if (!isLast) {
+        // Opening cells downwards at random, then at least one cell of every set
+        for (int y = 0; y < col; y++) {
+          int root = sets.find(y);
+          members[root]++;
+          isOpen[y] = random.nextInt(2) == 0;
+          if (isOpen[y]) {
+            opened[root]++;
+          }
+        }
+        for (int y = 0; y < col; y++) {
+          int root = sets.find(y);
+          if (opened[root] == 0) {
+            // Picking one of the remaining members with equal chance
+            if (random.nextInt(members[root]) == 0) {
+              isOpen[y] = true;
+              opened[root]++;
+            } else {
+              members[root]--;
+            }
+          }
+        }
+        // Cells opened from the same set keep sharing a set in the row below
+        nextSets.reset();
+        Arrays.fill(first, -1);
+        for (int y = 0; y < col; y++) {
+          if (isOpen[y]) {
+            int root = sets.find(y);
+            if (first[root] < 0) {
+              first[root] = y;
+            } else {
+              nextSets.union(first[root], y);
+            }
+          }
+        }
+        for (int y = 0; y < col; y++) {
+          if (isOpen[y] || budget.take()) {
+            current[y] |= Direction.SOUTH.getMask();
+            below[y] |= Direction.NORTH.getMask();
+          }
+        }
+      }
+
+      sink.accept(x, current);
+      byte[] done = current;
+      current = below;
+      below = done;
+      Arrays.fill(below, (byte) 0);
+      DisjointSet tmp = sets;
+      sets = nextSets;
+      nextSets = tmp;
+      Arrays.fill(members, 0);
+      Arrays.fill(opened, 0);
+    }
+  }
+
+  private static void openEast(byte[] cells, int y, int east) {
+    cells[y] |= Direction.EAST.getMask();
+    cells[east] |= Direction.WEST.getMask();
+  }
+
+  /**
+   * Receives the rows of a maze as they are generated.
+   */
+  interface RowSink {
+
+    /**
+     * Accepts the open directions of every cell of a complete row. The array is
+     * reused for later rows, so it must be copied if it is kept.
+     *
+     * @param x index of the row
+     * @param cells direction masks of the row, indexed by column
+     */
+    void accept(int x, byte[] cells);
+  }
+
+  /**
+   * Selection sampling over the leftover edges: each leftover is kept with the
+   * chance of the budget still to be spent over the leftovers still to come.
+   */
+  private class Budget {
+
+    private long needed;
+    private long remaining;
+
+    Budget(int interconnectivity, long leftovers) {
+      this.remaining = leftovers;
+      this.needed = Math.min(interconnectivity, leftovers);
+    }
+
+    boolean take() {
+      if (remaining <= 0) {
+        return false;
+      }
+      boolean isTaken = needed > 0 && nextLong(remaining) < needed;
+      remaining--;
+      if (isTaken) {
+        needed--;
+      }
+      return isTaken;
+    }
+
+    private long nextLong(long bound) {
+      if (bound <= Integer.MAX_VALUE) {
+        return random.nextInt((int) bound);
+      }
+      return Math.floorMod(random.nextLong(), bound);
+    }
+  }
+}
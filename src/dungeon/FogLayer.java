@@ -0,0 +1,169 @@
+package dungeon;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Offscreen image of the revealed dungeon: the tile of every visited cell with its pit,
+ * Otyugh, thief and blood, and fog over every other cell. The image is split into
+ * chunks of tiles that are rendered when first drawn and kept in a small LRU cache,
+ * so memory stays bounded on large dungeons. A cell is redrawn only when it is
+ * invalidated, which is when it is visited or its contents change.
+ */
+class FogLayer {
+
+  private static final int CHUNK_TILES = 8;
+  private static final int MAX_CHUNKS = 32;
+
+  private final ReadOnlyModel model;
+  private final int rows;
+  private final int cols;
+  private final int chunkCols;
+  private final Sprite[] tiles;
+  private final BitSet revealed;
+  private final Map<Integer, BufferedImage> chunks;
+
+  FogLayer(ReadOnlyModel model) {
+    if (model == null) {
+      throw new IllegalArgumentException("Invalid model!");
+    }
+    this.model = model;
+    this.rows = model.getRows();
+    this.cols = model.getColumns();
+    this.chunkCols = (cols + CHUNK_TILES - 1) / CHUNK_TILES;
+    this.tiles = new Sprite[rows * cols];
+    this.revealed = new BitSet(rows * cols);
+    this.chunks = new LinkedHashMap<Integer, BufferedImage>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+        return size() > MAX_CHUNKS;
+      }
+    };
+    invalidateAll();
+  }
+
+  /**
+   * Draws the chunks covering the passed range of cells.
+   *
+   * @param g2d graphics in dungeon pixel coordinates
+   * @param rowFrom first row
+   * @param rowTo last row, inclusive
+   * @param colFrom first column
+   * @param colTo last column, inclusive
+   */
+  void paint(Graphics2D g2d, int rowFrom, int rowTo, int colFrom, int colTo) {
+    int size = CHUNK_TILES * GuiPanel.TILE_SIZE;
+    for (int ci = rowFrom / CHUNK_TILES; ci <= rowTo / CHUNK_TILES; ci++) {
+      for (int cj = colFrom / CHUNK_TILES; cj <= colTo / CHUNK_TILES; cj++) {
+        g2d.drawImage(getChunk(ci, cj), cj * size, ci * size, null);
+      }
+    }
+  }
+
+  /**
+   * Updates the passed cell after it was visited or its contents changed.
+   *
+   * @param position position of the cell
+   */
+  void invalidate(Position position) {
+    int cell = position.getX() * cols + position.getY();
+    revealed.set(cell, model.isVisited(position));
+    BufferedImage chunk = chunks.get(getChunkKey(position.getX(), position.getY()));
+    if (chunk != null) {
+      Graphics2D g2d = chunk.createGraphics();
+      renderCell(g2d, position.getX(), position.getY());
+      g2d.dispose();
+    }
+  }
+
+  /**
+   * Drops every rendered chunk and reads the visited cells from the model again.
+   */
+  void invalidateAll() {
+    chunks.clear();
+    revealed.clear();
+    for (Position position : model.getVisitedPositions()) {
+      revealed.set(position.getX() * cols + position.getY());
+    }
+  }
+
+  /**
+   * Returns whether the cell at the passed row and column has been visited.
+   *
+   * @param i row
+   * @param j column
+   * @return true, if visited, else false
+   */
+  boolean isRevealed(int i, int j) {
+    return revealed.get(i * cols + j);
+  }
+
+  /**
+   * Returns the sprite of the cell at the passed row and column, without fog.
+   *
+   * @param i row
+   * @param j column
+   * @return tile sprite
+   */
+  Sprite getTile(int i, int j) {
+    int cell = i * cols + j;
+    if (tiles[cell] == null) {
+      tiles[cell] = LiMappings.getCellSprite(model.getGrid().getMask(i, j));
+    }
+    return tiles[cell];
+  }
+
+  private int getChunkKey(int i, int j) {
+    return (i / CHUNK_TILES) * chunkCols + j / CHUNK_TILES;
+  }
+
+  private BufferedImage getChunk(int ci, int cj) {
+    int key = ci * chunkCols + cj;
+    BufferedImage chunk = chunks.get(key);
+    if (chunk == null) {
+      int size = CHUNK_TILES * GuiPanel.TILE_SIZE;
+      chunk = SpriteCache.createImage(size, size);
+      Graphics2D g2d = chunk.createGraphics();
+      int rowTo = Math.min(rows, (ci + 1) * CHUNK_TILES);
+      int colTo = Math.min(cols, (cj + 1) * CHUNK_TILES);
+      for (int i = ci * CHUNK_TILES; i < rowTo; i++) {
+        for (int j = cj * CHUNK_TILES; j < colTo; j++) {
+          renderCell(g2d, i, j);
+        }
+      }
+      g2d.dispose();
+      chunks.put(key, chunk);
+    }
+    return chunk;
+  }
+
+  private void renderCell(Graphics2D g2d, int i, int j) {
+    int x = (j % CHUNK_TILES) * GuiPanel.TILE_SIZE;
+    int y = (i % CHUNK_TILES) * GuiPanel.TILE_SIZE;
+    g2d.setComposite(AlphaComposite.Clear);
+    g2d.fillRect(x, y, GuiPanel.TILE_SIZE, GuiPanel.TILE_SIZE);
+    g2d.setComposite(AlphaComposite.SrcOver);
+    g2d.drawImage(SpriteCache.getImage(getTile(i, j)), x, y, null);
+    if (!isRevealed(i, j)) {
+      g2d.drawImage(SpriteCache.getImage(Sprite.BLANK), x, y, null);
+      return;
+    }
+    Position position = model.getGrid().getPosition(i, j);
+    if (model.isMonsterRemoved(position)) {
+      g2d.drawImage(SpriteCache.getImage(Sprite.BLOOD), x + 8, y + 8, null);
+    }
+    if (model.hasPit(position)) {
+      g2d.drawImage(SpriteCache.getImage(Sprite.PIT), x, y, null);
+    }
+    if (model.hasMonster(position)) {
+      g2d.drawImage(SpriteCache.getImage(Sprite.OTYUGH), x + 8, y + 15, null);
+    }
+    if (model.hasThief(position)) {
+      g2d.drawImage(SpriteCache.getImage(Sprite.THIEF), x + 8, y + 8, null);
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package dungeon;
+
+/**
+ * Applies the rules of the game to a model without any view: typed commands go in and
+ * typed outcomes come out, with no string formatting and no dialogs. The graphical
+ * controller and headless simulations share these rules, so a simulated game plays
+ * exactly like one played on screen with the same seed.
+ */
+public class GameEngine {
+
+  private final Model model;
+  private final GameState gameState;
+  private int turns;
+  private boolean isDead;
+  private boolean isWon;
+  private boolean isOutOfHealth;
+  private Treasure lastStolenTreasure;
+
+  /**
+   * Constructor to initialize the engine over a model that has a game state.
+   *
+   * @param model model
+   */
+  public GameEngine(Model model) {
+    if (model == null) {
+      throw new IllegalArgumentException("Invalid model!");
+    }
+    if (model.getCurrentGameState() == null) {
+      throw new IllegalArgumentException("Invalid state!");
+    }
+    this.model = model;
+    this.gameState = model.getCurrentGameState();
+  }
+
+  /**
+   * Applies the passed command and counts it as a turn. Once the player is dead and not
+   * respawned, or the game is finished, commands are not applied.
+   *
+   * @param command command
+   * @return outcome of the command
+   */
+  public Outcome apply(Command command) {
+    if (command == null) {
+      throw new IllegalArgumentException("Invalid command!");
+    }
+    if (isDead || isFinished()) {
+      return Outcome.GAME_OVER;
+    }
+    turns++;
+    switch (command.getType()) {
+      case MOVE:
+        return move(command.getDirection());
+      case PICK_TREASURE:
+        return pickTreasure(command.getValue());
+      case PICK_WEAPON:
+        return pickWeapon(command.getValue());
+      case SHOOT:
+        return gameState.fire(Weapon.CROOKED_ARROW, command.getValue(), command.getDirection());
+      default:
+        throw new IllegalArgumentException("No such command!");
+    }
+  }
+
+  /**
+   * Moves the player in the passed direction, if there is a door, and resolves whatever
+   * is found there: an Otyugh, a pit, a thief, a Beholder or the end.
+   *
+   * @param direction direction
+   * @return outcome of the move
+   */
+  public Outcome move(Direction direction) {
+    boolean isOpen = false;
+    for (Action action : gameState.getValidActions()) {
+      if (action.getDirection() == direction) {
+        isOpen = true;
+        break;
+      }
+    }
+    if (!isOpen) {
+      return Outcome.BLOCKED;
+    }
+    gameState.movePlayer(direction);
+    Location location = gameState.getPlayerLocation();
+    if (location.hasMonster()) {
+      // An unhurt Otyugh always eats the player, a wounded one half of the time
+      if (location.getMonster().getHealthPoints() == 2 || gameState.getRandom().nextInt(2) == 0) {
+        isDead = true;
+        return Outcome.EATEN_BY_OTYUGH;
+      }
+      return Outcome.ESCAPED_OTYUGH;
+    }
+    if (location.hasPit()) {
+      isDead = true;
+      return Outcome.FELL_INTO_PIT;
+    }
+    if (location.hasThief()) {
+      if (gameState.getPlayerTreasures().isEmpty()) {
+        lastStolenTreasure = null;
+        return Outcome.ESCAPED_THIEF;
+      }
+      int i = gameState.getRandom().nextInt(gameState.getPlayer().getTreasures().size());
+      lastStolenTreasure = gameState.getPlayer().getTreasures().remove(i);
+      return Outcome.ROBBED;
+    }
+    if (location.hasMovingMonster()) {
+      if (gameState.getRandom().nextInt(2) == 0) {
+        isDead = true;
+        return Outcome.EATEN_BY_BEHOLDER;
+      }
+      gameState.removeMovingMonsterState();
+      return Outcome.ESCAPED_BEHOLDER;
+    }
+    if (gameState.isGameOver()) {
+      isWon = true;
+      return Outcome.WON;
+    }
+    return Outcome.MOVED;
+  }
+
+  /**
+   * Uses up a health point to restart the player from the start, or ends the game if
+   * the player has none left.
+   *
+   * @return outcome of the respawn
+   */
+  public Outcome respawn() {
+    if (gameState.getPlayer().getHealth() > 0) {
+      gameState.getPlayer().useHealth();
+      gameState.resetPlayer();
+      isDead = false;
+      return Outcome.RESPAWNED;
+    }
+    isOutOfHealth = true;
+    return Outcome.OUT_OF_HEALTH;
+  }
+
+  private Outcome pickTreasure(int index) {
+    if (index < 0 || index >= gameState.getPlayerLocation().getTreasures().size()) {
+      return Outcome.NOTHING_TO_PICK;
+    }
+    return model.pickTreasure(index) ? Outcome.PICKED : Outcome.NOTHING_TO_PICK;
+  }
+
+  private Outcome pickWeapon(int index) {
+    if (index < 0 || index >= gameState.getPlayerLocation().getWeapons().size()) {
+      return Outcome.NOTHING_TO_PICK;
+    }
+    return model.pickWeapon(index) ? Outcome.PICKED : Outcome.NOTHING_TO_PICK;
+  }
+
+  /**
+   * Returns whether the game has ended, either won or lost for lack of health.
+   *
+   * @return true, if finished, else false
+   */
+  public boolean isFinished() {
+    return isWon || isOutOfHealth;
+  }
+
+  public boolean isDead() {
+    return isDead;
+  }
+
+  public boolean isWon() {
+    return isWon;
+  }
+
+  /**
+   * Returns the number of commands applied so far.
+   *
+   * @return number of turns
+   */
+  public int getTurns() {
+    return turns;
+  }
+
+  /**
+   * Returns the treasure taken by the last thief that robbed the player.
+   *
+   * @return stolen treasure, or null
+   */
+  public Treasure getLastStolenTreasure() {
+    return lastStolenTreasure;
+  }
+
+  public Model getModel() {
+    return model;
+  }
+
+  public GameState getGameState() {
+    return gameState;
+  }
+}
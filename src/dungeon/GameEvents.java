@@ -0,0 +1,162 @@
+package dungeon;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events of the game, so a recording shows where the time of a
+ * game goes. Each event is timed from {@code begin()} to {@code commit()} and carries
+ * the size of the dungeon along with counts of the work done. Events cost next to
+ * nothing unless a recording with them enabled is running.
+ */
+final class GameEvents {
+
+  // Types of the events of every turn and query, checked before an event is created
+  static final EventType playerMoveType = EventType.getEventType(PlayerMove.class);
+  static final EventType shotType = EventType.getEventType(Shot.class);
+  static final EventType pathQueryType = EventType.getEventType(PathQuery.class);
+  static final EventType viewRefreshType = EventType.getEventType(ViewRefresh.class);
+
+  private GameEvents() {
+  }
+
+  /**
+   * Generation of a maze, or of one tile of a tiled world.
+   */
+  @Name("dungeon.MazeGeneration")
+  @Label("Maze Generation")
+  @Category("Dungeon")
+  static final class MazeGeneration extends Event {
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int cols;
+
+    @Label("Interconnectivity")
+    int interconnectivity;
+
+    @Label("Wrapping")
+    boolean isWrapping;
+
+    @Label("Caves")
+    int caves;
+
+    @Label("Tunnels")
+    int tunnels;
+  }
+
+  /**
+   * Placement of one kind of item or monster.
+   */
+  @Name("dungeon.ItemPlacement")
+  @Label("Item Placement")
+  @Category("Dungeon")
+  static final class ItemPlacement extends Event {
+
+    @Label("Item")
+    String item;
+
+    @Label("Percentage")
+    int percentage;
+
+    @Label("Placed")
+    @Description("Number of locations the item was placed in")
+    int placed;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int cols;
+  }
+
+  /**
+   * A move of the player, along with the move of every Beholder.
+   */
+  @Name("dungeon.PlayerMove")
+  @Label("Player Move")
+  @Category("Dungeon")
+  static final class PlayerMove extends Event {
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int cols;
+
+    @Label("Beholders")
+    @Description("Number of Beholders moved along with the player")
+    int beholders;
+
+    @Label("Moved")
+    boolean isMoved;
+  }
+
+  /**
+   * A shot of a weapon.
+   */
+  @Name("dungeon.Shot")
+  @Label("Shot")
+  @Category("Dungeon")
+  static final class Shot extends Event {
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int cols;
+
+    @Label("Power")
+    int power;
+
+    @Label("Outcome")
+    String outcome;
+  }
+
+  /**
+   * A query for a path between two positions.
+   */
+  @Name("dungeon.PathQuery")
+  @Label("Path Query")
+  @Category("Dungeon")
+  static final class PathQuery extends Event {
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int cols;
+
+    @Label("Method")
+    String method;
+
+    @Label("Length")
+    @Description("Number of moves of the path found")
+    int length;
+  }
+
+  /**
+   * A paint of the dungeon view.
+   */
+  @Name("dungeon.ViewRefresh")
+  @Label("View Refresh")
+  @Category("Dungeon")
+  static final class ViewRefresh extends Event {
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int cols;
+
+    @Label("Tiles")
+    @Description("Number of tiles inside the clip")
+    int tiles;
+  }
+}
@@ -1,6 +1,7 @@
 package dungeon;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Keeps a state of the current game being played starting all required positions,
@@ -22,6 +23,13 @@ public interface GameState {
    */
   Player getPlayer();
 
+  /**
+   * Returns the random source that drives monster movement and dice rolls in this game.
+   *
+   * @return random source
+   */
+  RandomNetwork getRandom();
+
   /**
    * Returns the location of the player at the current game state.
    *
@@ -30,11 +38,19 @@ public interface GameState {
   Location getPlayerLocation();
 
   /**
-   * Returns a list of all monsters that have been killed.
+   * Returns a snapshot of the positions of all monsters that have been killed.
    *
-   * @return list of removed monsters
+   * @return set of removed monster positions
+   */
+  Set<Position> getRemovedMonsters();
+
+  /**
+   * Returns whether the monster at the passed position has been killed.
+   *
+   * @param position position
+   * @return true, if killed, else false
    */
-  List<Position> getRemovedMonsters();
+  boolean isMonsterRemoved(Position position);
 
   /**
    * Returns the location at the passed position.
@@ -113,11 +129,37 @@ public interface GameState {
   StringBuilder shoot(Weapon weapon, int power, Direction direction);
 
   /**
-   * Returns a list of visited positions by the player.
+   * Fires a weapon like {@link #shoot(Weapon, int, Direction)}, but returns the typed
+   * outcome of the shot instead of a message.
    *
-   * @return lits of visited positions
+   * @param weapon weapon that is fired
+   * @param power power of the shot
+   * @param direction direction of the shot
+   * @return outcome of the shot
+   */
+  Outcome fire(Weapon weapon, int power, Direction direction);
+
+  /**
+   * Returns a snapshot of the positions visited by the player.
+   *
+   * @return set of visited positions
    */
-  List<Position> getVisitedPositions();
+  Set<Position> getVisitedPositions();
+
+  /**
+   * Returns whether the player has visited the passed position.
+   *
+   * @param position position
+   * @return true, if visited, else false
+   */
+  boolean isVisited(Position position);
+
+  /**
+   * Returns the number of distinct positions visited by the player.
+   *
+   * @return number of visited positions
+   */
+  int getVisitedCount();
 
   /**
    * Adds the location to the state list containing all monsters.
@@ -126,6 +168,13 @@ public interface GameState {
    */
   void addMovingMonsterState(Location location);
 
+  /**
+   * Returns the positions of the moving monsters in the order they move.
+   *
+   * @return moving monster positions
+   */
+  List<Position> getMovingMonsterPositions();
+
   /**
    * Removes the moving monster state.
    */
@@ -135,4 +184,13 @@ public interface GameState {
    * Restarts the game from the start position.
    */
   void resetPlayer();
+
+  /**
+   * Returns the positions whose drawing may have changed since the last call, such as
+   * the player's old and new position and neighbours, moved and slain monsters, and
+   * starts collecting a new set.
+   *
+   * @return set of changed positions
+   */
+  Set<Position> drainChangedPositions();
 }
@@ -53,6 +53,36 @@ public interface Grid {
    */
   Location getLocation(int x, int y);
 
+  /**
+   * Returns the position at the passed x and y coordinates. Grids that keep every
+   * location on the heap return the same instance for a coordinate every time.
+   *
+   * @param x row
+   * @param y column
+   * @return position at coordinate
+   */
+  Position getPosition(int x, int y);
+
+  /**
+   * Returns the open directions at the passed x and y coordinates as a mask of
+   * {@link Direction#getMask()} values, without materialising the location.
+   *
+   * @param x row
+   * @param y column
+   * @return direction mask
+   */
+  int getMask(int x, int y);
+
+  /**
+   * Returns the position reached by moving from the passed position in the passed
+   * direction, or null if that direction is closed.
+   *
+   * @param position position from
+   * @param direction direction
+   * @return neighbour position, or null
+   */
+  Position getNeighbour(Position position, Direction direction);
+
   /**
    * Returns the location present at the passed position.
    *
@@ -83,4 +113,38 @@ public interface Grid {
    * @return list of action
    */
   List<Action> calculatePath(Position start, Position end, String method);
+
+  /**
+   * Returns the set of actions required to be taken to move
+   * from start position to end position, using the passed
+   * strategy to calculate the path.
+   *
+   * @param start start position
+   * @param end end position
+   * @param strategy algorithm to be used
+   * @return list of action
+   */
+  List<Action> calculatePath(Position start, Position end, PathStrategy strategy);
+
+  /**
+   * Returns the number of moves on a shortest path between the passed positions,
+   * or -1 if there is no path. The distance index behind it is built along with
+   * the maze on heap grids and by the first query on others; it answers every later
+   * query in constant time.
+   *
+   * @param from position from
+   * @param to position to
+   * @return distance
+   */
+  int getDistance(Position from, Position to);
+
+  /**
+   * Returns the direction of the first move on a shortest path between the passed
+   * positions, or null if they are the same position or there is no path.
+   *
+   * @param from position from
+   * @param to position to
+   * @return direction of the next move
+   */
+  Direction getNextHop(Position from, Position to);
 }
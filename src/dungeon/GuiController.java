@@ -13,6 +13,7 @@ public class GuiController implements EnhancedController {
   private final View view;
   private final Model model;
   private final GameState gameState;
+  private final GameEngine engine;
   private boolean playerInWait = false;
 
   @Override
@@ -31,10 +32,12 @@ public class GuiController implements EnhancedController {
     this.view = view;
     this.model = model;
     this.gameState = model.getCurrentGameState();
+    this.engine = new GameEngine(model);
   }
 
   @Override
   public void playGame() {
+    Metrics.dumpOnExit();
     view.addAllListeners(this);
     view.makeVisible();
   }
@@ -46,7 +49,7 @@ public class GuiController implements EnhancedController {
         move(a);
       }
     });
-    view.refresh();
+    view.refresh(gameState.drainChangedPositions());
   }
 
   @Override
@@ -56,67 +59,54 @@ public class GuiController implements EnhancedController {
         move(a);
       }
     });
-    view.refresh();
+    view.refresh(gameState.drainChangedPositions());
   }
 
   private void move(Action action) {
-    gameState.movePlayer(action.getDirection());
-    if (gameState.getPlayerLocation().hasMonster()) {
-      Monster monster = gameState.getPlayerLocation().getMonster();
-      if (monster.getHealthPoints() == 2) {
+    switch (engine.move(action.getDirection())) {
+      case EATEN_BY_OTYUGH:
         deadGame("You have been eaten by a Otyugh!");
         flipPlayerWait();
-      } else {
-        if (RandomNetwork.nextInt(2) == 0) {
-          deadGame("You have been eaten by a Otyugh!");
-          flipPlayerWait();
-        } else {
-          diceRoll();
-        }
-      }
-      return;
-    }
-    if (gameState.getPlayerLocation().hasPit()) {
-      deadGame("You fell into a pit!");
-      flipPlayerWait();
-      return;
-    }
-    if (gameState.getPlayerLocation().hasThief()) {
-      if (gameState.getPlayerTreasures().isEmpty()) {
+        break;
+      case ESCAPED_OTYUGH:
+      case ESCAPED_BEHOLDER:
+        diceRoll();
+        break;
+      case FELL_INTO_PIT:
+        deadGame("You fell into a pit!");
+        flipPlayerWait();
+        break;
+      case ESCAPED_THIEF:
         infoDialogGame("You are broke!", "Thief sends his deepest sympathies!");
-      } else {
-        int i = RandomNetwork.nextInt(gameState.getPlayer().getTreasures().size());
+        break;
+      case ROBBED:
         infoDialogGame(String.format("You were looted of a %s!",
-                gameState.getPlayer().getTreasures().remove(i).name().toLowerCase(Locale.ROOT)));
-      }
-      return;
-    }
-    if (gameState.getPlayerLocation().hasMovingMonster()) {
-      if (RandomNetwork.nextInt(2) == 0) {
+                engine.getLastStolenTreasure().name().toLowerCase(Locale.ROOT)));
+        break;
+      case EATEN_BY_BEHOLDER:
         deadGame("You have been eaten by a Beholder!");
         flipPlayerWait();
-      } else {
-        diceRoll();
-        gameState.removeMovingMonsterState();
-      }
-      return;
-    }
-    if (gameState.isGameOver()) {
-      infoDialogGame("You emerged victorious!");
-      view.removeAllListeners();
+        break;
+      case WON:
+        infoDialogGame("You emerged victorious!");
+        view.removeAllListeners();
+        break;
+      default:
+        // Nothing happened that needs a dialog
+        break;
     }
   }
 
   @Override
   public void pickTreasure(int index) {
     model.pickTreasure(index);
-    view.refresh();
+    view.refresh(gameState.drainChangedPositions());
   }
 
   @Override
   public void pickWeapon(int index) {
     model.pickWeapon(index);
-    view.refresh();
+    view.refresh(gameState.drainChangedPositions());
   }
 
   private void flipPlayerWait() {
@@ -126,20 +116,18 @@ public class GuiController implements EnhancedController {
   @Override
   public void shoot(Weapon weapon, int power, Direction direction) {
     model.shoot(weapon, power, direction);
-    view.refresh();
+    view.refresh(gameState.drainChangedPositions());
   }
 
   @Override
   public void restartPlayer() {
-    if (gameState.getPlayer().getHealth() > 0) {
-      gameState.getPlayer().useHealth();
-      gameState.resetPlayer();
+    if (engine.respawn() == Outcome.RESPAWNED) {
       flipPlayerWait();
     } else {
       deadGame("You are out of health!");
       view.removeAllListeners();
     }
-    view.refresh();
+    view.refresh(gameState.drainChangedPositions());
   }
 
   private void diceRoll() throws IllegalStateException {
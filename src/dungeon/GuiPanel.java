@@ -1,114 +1,114 @@
 package dungeon;
 
+import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.GridLayout;
-import java.awt.Point;
-import java.io.File;
-import java.io.IOException;
-import java.util.Comparator;
-import java.util.List;
-import java.util.stream.Collectors;
-import javax.imageio.ImageIO;
-import javax.swing.ImageIcon;
-import javax.swing.JLabel;
+import java.awt.Rectangle;
+import java.util.Collection;
 import javax.swing.JPanel;
 
+/**
+ * Draws the dungeon as a single canvas of 64 pixel tiles. The revealed map comes from
+ * an offscreen fog layer, and only the player, the moves open to it, smells and
+ * Beholders are drawn over it on every frame. Only the part of the canvas inside the
+ * clip, which in a scroll pane is at most the visible viewport, is drawn, so the cost
+ * of a frame does not grow with the size of the dungeon.
+ */
 class GuiPanel extends JPanel {
 
-  private final JLabel[][] cells;
+  static final int TILE_SIZE = 64;
+
   private final ReadOnlyModel model;
+  private final FogLayer fogLayer;
 
   GuiPanel(ReadOnlyModel readOnlyModel) {
     this.model = readOnlyModel;
+    this.fogLayer = new FogLayer(readOnlyModel);
     int rows = readOnlyModel.getRows();
     int cols = readOnlyModel.getColumns();
-    cells = new JLabel[rows][cols];
-    setLayout(new GridLayout(rows, cols, 0, 0));
-    setSize(rows * 64, cols * 64);
-    for (int i = 0; i < rows; i++) {
-      for (int j = 0; j < cols; j++) {
-        String directions = model.getGrid()
-                .getLocation(i, j)
-                .getValidActions()
-                .stream()
-                .map(Action::getDirection)
-                .sorted(Comparator.comparing(Enum::name))
-                .collect(Collectors.toList()).toString();
-        cells[i][j] = new JLabel(new ImageIcon(LiMappings.getLocationImage(directions)));
-        add(cells[i][j]);
-      }
+    setPreferredSize(new Dimension(cols * TILE_SIZE, rows * TILE_SIZE));
+  }
+
+  /**
+   * Repaints only the cells at the passed positions instead of the whole dungeon.
+   *
+   * @param positions positions whose drawing may have changed
+   */
+  void repaintPositions(Collection<Position> positions) {
+    for (Position position : positions) {
+      fogLayer.invalidate(position);
+      repaint(position.getY() * TILE_SIZE, position.getX() * TILE_SIZE, TILE_SIZE, TILE_SIZE);
     }
   }
 
+  /**
+   * Redraws the whole fog layer and repaints the dungeon.
+   */
+  void repaintAll() {
+    fogLayer.invalidateAll();
+    repaint();
+  }
+
   @Override
   public void paint(Graphics g) {
     super.paint(g);
     Graphics2D g2d = (Graphics2D) g;
-    for (int i = 0; i < model.getRows(); i++) {
-      for (int j = 0; j < model.getColumns(); j++) {
-        Point p = cells[i][j].getLocation();
-        try {
-          int player_x = model.getPlayerPosition().getX();
-          int player_y = model.getPlayerPosition().getY();
-          List<Position> validDirections = model.getValidPositions();
-          if (i == player_x && j == player_y) {
-            g2d.drawImage(ImageIO.read(
-                    new File(LiMappings.getLocationImage("Player"))), p.x + 8, p.y + 8, null);
-            if (model.isSmellingPetrichorNearby()) {
-              g2d.drawImage(ImageIO.read(
-                      new File(LiMappings.getLocationImage("Petrichor"))), p.x, p.y, null);
-            }
-            if (model.isSmellingMorePungentNearby()) {
-              g2d.drawImage(ImageIO.read(
-                      new File(LiMappings.getLocationImage("More Stench"))), p.x, p.y, null);
-            } else if (model.isSmellingLessPungentNearby()) {
-              g2d.drawImage(ImageIO.read(
-                      new File(LiMappings.getLocationImage("Less Stench"))), p.x, p.y, null);
-            }
-          } else if (validDirections.contains(new Position(i, j))) {
-            if (model.getVisitedPositions().contains(new Position(i, j))) {
-              g2d.drawImage(ImageIO.read(
-                      new File(LiMappings.getLocationImage("Valid Visited"))), p.x, p.y, null);
-            } else {
-              g2d.drawImage(ImageIO.read(
-                      new File(LiMappings.getLocationImage("Valid Unvisited"))), p.x, p.y, null);
-            }
-          } else {
-            if (!model.getVisitedPositions().contains(new Position(i, j))) {
-              g2d.drawImage(ImageIO.read(
-                      new File(LiMappings.getLocationImage("Blank"))), p.x, p.y, null);
-            }
-          }
-          if (model.getRemovedMonsters().contains(new Position(i, j))
-                  && model.getVisitedPositions().contains(new Position(i, j))) {
-            g2d.drawImage(ImageIO.read(
-                    new File(LiMappings.getLocationImage("Blood"))), p.x + 8, p.y + 8, null);
-          }
-          if (model.hasPit(new Position(i, j))
-                  && model.getVisitedPositions().contains(new Position(i, j))) {
-            g2d.drawImage(ImageIO.read(
-                    new File(LiMappings.getLocationImage("Pit"))), p.x, p.y, null);
-          }
-          if (model.hasMonster(new Position(i, j))
-                  && model.getVisitedPositions().contains(new Position(i, j))) {
-            g2d.drawImage(ImageIO.read(
-                    new File(LiMappings.getLocationImage("Otyugh"))), p.x + 8, p.y + 15, null);
-          }
-          if (model.hasThief(new Position(i, j))
-                  && model.getVisitedPositions().contains(new Position(i, j))) {
-            g2d.drawImage(ImageIO.read(
-                    new File(LiMappings.getLocationImage("Thief"))), p.x + 8, p.y + 8, null);
-          }
-          if (model.hasMovingMonster(new Position(i, j))
-                  && model.getVisitedPositions().contains(new Position(i, j))) {
-            g2d.drawImage(ImageIO.read(
-                    new File(LiMappings.getLocationImage("Beholder"))), p.x + 8, p.y + 8, null);
-          }
-        } catch (IOException e) {
-          e.printStackTrace();
+    int rowFrom = 0;
+    int rowTo = model.getRows() - 1;
+    int colFrom = 0;
+    int colTo = model.getColumns() - 1;
+    Rectangle clip = g.getClipBounds();
+    if (clip != null) {
+      rowFrom = Math.max(rowFrom, Math.floorDiv(clip.y, TILE_SIZE));
+      rowTo = Math.min(rowTo, Math.floorDiv(clip.y + clip.height - 1, TILE_SIZE));
+      colFrom = Math.max(colFrom, Math.floorDiv(clip.x, TILE_SIZE));
+      colTo = Math.min(colTo, Math.floorDiv(clip.x + clip.width - 1, TILE_SIZE));
+    }
+    if (rowFrom > rowTo || colFrom > colTo) {
+      return;
+    }
+    Metrics metrics = Metrics.getDefault();
+    boolean isMeasured = metrics.isMeasured(GameEvents.viewRefreshType);
+    GameEvents.ViewRefresh event = isMeasured ? new GameEvents.ViewRefresh() : null;
+    Metrics.Span span = isMeasured ? metrics.start("view.paint", event) : null;
+    fogLayer.paint(g2d, rowFrom, rowTo, colFrom, colTo);
+    for (Position position : model.getValidPositions()) {
+      int x = position.getY() * TILE_SIZE;
+      int y = position.getX() * TILE_SIZE;
+      if (fogLayer.isRevealed(position.getX(), position.getY())) {
+        g2d.drawImage(SpriteCache.getImage(Sprite.VALID_VISITED), x, y, null);
+      } else {
+        g2d.drawImage(SpriteCache.getImage(fogLayer.getTile(position.getX(), position.getY())),
+                x, y, null);
+        g2d.drawImage(SpriteCache.getImage(Sprite.VALID_UNVISITED), x, y, null);
+      }
+    }
+    Grid grid = model.getGrid();
+    for (int i = rowFrom; i <= rowTo; i++) {
+      for (int j = colFrom; j <= colTo; j++) {
+        if (fogLayer.isRevealed(i, j) && model.hasMovingMonster(grid.getPosition(i, j))) {
+          g2d.drawImage(SpriteCache.getImage(Sprite.BEHOLDER),
+                  j * TILE_SIZE + 8, i * TILE_SIZE + 8, null);
         }
       }
     }
+    Position player = model.getPlayerPosition();
+    int x = player.getY() * TILE_SIZE;
+    int y = player.getX() * TILE_SIZE;
+    g2d.drawImage(SpriteCache.getImage(Sprite.PLAYER), x + 8, y + 8, null);
+    if (model.isSmellingPetrichorNearby()) {
+      g2d.drawImage(SpriteCache.getImage(Sprite.PETRICHOR), x, y, null);
+    }
+    if (model.isSmellingMorePungentNearby()) {
+      g2d.drawImage(SpriteCache.getImage(Sprite.MORE_STENCH), x, y, null);
+    } else if (model.isSmellingLessPungentNearby()) {
+      g2d.drawImage(SpriteCache.getImage(Sprite.LESS_STENCH), x, y, null);
+    }
+    if (isMeasured && span.end()) {
+      event.rows = model.getRows();
+      event.cols = model.getColumns();
+      event.tiles = (rowTo - rowFrom + 1) * (colTo - colFrom + 1);
+      event.commit();
+    }
   }
 }
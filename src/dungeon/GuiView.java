@@ -1,15 +1,17 @@
 package dungeon;
 
 import java.awt.BorderLayout;
+import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.FontFormatException;
 import java.awt.GraphicsEnvironment;
 import java.awt.GridLayout;
-import java.awt.ScrollPane;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
 import javax.swing.ButtonGroup;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -19,9 +21,11 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
+import javax.swing.JScrollPane;
 import javax.swing.JSlider;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
 
 /**
  * This class enables to play the game using an interactive graphical user interface (GUI).
@@ -61,6 +65,9 @@ public class GuiView extends JFrame implements View {
     }
   }
 
+  // Shared by every window, since a new game replaces the window it was started from
+  private static final DungeonPool dungeonPool = new DungeonPool();
+
   private final GuiPanel panel;
   private final ReadOnlyModel model;
   private final SettingsPanel settingsPanel;
@@ -83,10 +90,14 @@ public class GuiView extends JFrame implements View {
 
     setJMenuBar(new MenuBar().getMenuBar());
 
+    SpriteCache.loadAll();
+    dungeonPool.prepare(DungeonSettings.DEFAULT);
+    dungeonPool.prepare(DungeonSettings.of(readOnlyModel));
     panel = new GuiPanel(readOnlyModel);
-    ScrollPane scrollPane = new ScrollPane();
+    JScrollPane scrollPane = new JScrollPane(panel);
     scrollPane.setPreferredSize(new Dimension(500, 500));
-    scrollPane.add(panel);
+    scrollPane.getHorizontalScrollBar().setUnitIncrement(GuiPanel.TILE_SIZE / 4);
+    scrollPane.getVerticalScrollBar().setUnitIncrement(GuiPanel.TILE_SIZE / 4);
     gameStatePanel = new GameStatePanel(readOnlyModel);
     settingsPanel = new SettingsPanel(readOnlyModel);
 
@@ -119,7 +130,14 @@ public class GuiView extends JFrame implements View {
 
   @Override
   public void refresh() {
-    panel.repaint();
+    panel.repaintAll();
+    gameStatePanel.repaint();
+    settingsPanel.repaint();
+  }
+
+  @Override
+  public void refresh(Collection<Position> changedPositions) {
+    panel.repaintPositions(changedPositions);
     gameStatePanel.repaint();
     settingsPanel.repaint();
   }
@@ -139,9 +157,7 @@ public class GuiView extends JFrame implements View {
       JMenu file = new JMenu("File");
 
       JMenuItem newGame = new JMenuItem("New default game...");
-      newGame.addActionListener(e -> handleNewGame(8, 9, 72, true,
-              15, 5, 15,
-              5, 5, 5));
+      newGame.addActionListener(e -> handleNewGame(DungeonSettings.DEFAULT));
       file.add(newGame);
 
       JMenuItem reset = new JMenu("Reset game");
@@ -166,14 +182,15 @@ public class GuiView extends JFrame implements View {
         difficulty.addChangeListener(changeEvent -> {
           JSlider theSlider = (JSlider) changeEvent.getSource();
           if (!theSlider.getValueIsAdjusting()) {
-            trs.setValue((int) (Math.sin(Math.toRadians(difficulty.getValue() * 18)) * 80));
-            wpn.setValue((int) (Math.sin(Math.toRadians(difficulty.getValue() * 18)) * 80));
-            pit.setValue(difficulty.getValue() * 8);
-            thf.setValue(difficulty.getValue() * 8);
-            mns.setValue((int) (Math.pow(difficulty.getValue(), 2) * 0.8));
-            mms.setValue((int) (Math.pow(difficulty.getValue(), 2) * 0.8));
-            // mns.setValue((int) (Math.exp(difficulty.getValue() / 2.171d) * 0.8));
-            // mms.setValue((int) (Math.exp(difficulty.getValue() / 2.171d) * 0.8));
+            // The formulas live in DungeonSettings so that Tournament can measure them
+            DungeonSettings settings =
+                    DungeonSettings.DEFAULT.withDifficulty(difficulty.getValue());
+            trs.setValue(settings.getTreasurePercentage());
+            wpn.setValue(settings.getWeaponPercentage());
+            pit.setValue(settings.getPitPercentage());
+            thf.setValue(settings.getThiefPercentage());
+            mns.setValue(settings.getMonsterPercentage());
+            mms.setValue(settings.getMovingMonsterPercentage());
           }
         });
         gameSettingsPanel.add(new JLabel("Rows", SwingConstants.CENTER));
@@ -205,20 +222,17 @@ public class GuiView extends JFrame implements View {
         JOptionPane.showConfirmDialog(GuiView.this, gameSettingsPanel,
                 "Game Settings", JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE);
         try {
-          handleNewGame(Integer.parseInt(row.getText()), Integer.parseInt(col.getText()),
-                  Integer.parseInt(icv.getText()), wrpTrue.isSelected(),
-                  trs.getValue(), mns.getValue(), wpn.getValue(),
-                  pit.getValue(), thf.getValue(), mms.getValue());
+          handleNewGame(new DungeonSettings(Integer.parseInt(row.getText()),
+                  Integer.parseInt(col.getText()), Integer.parseInt(icv.getText()),
+                  wrpTrue.isSelected(), trs.getValue(), mns.getValue(), wpn.getValue(),
+                  pit.getValue(), thf.getValue(), mms.getValue()));
         } catch (NumberFormatException numberFormatException) {
           // Intentionally left blank
         }
       });
       reset.add(newOptions);
       JMenuItem currentOptions = new JMenuItem("with current options...");
-      currentOptions.addActionListener(e -> handleNewGame(model.getRows(), model.getColumns(),
-              model.getInterconnectivity(), model.getIsWrapping(), model.getTreasurePercentage(),
-              model.getMonsterPercentage(), model.getWeaponsPercentage(), model.getPitPercentage(),
-              model.getThiefPercentage(), model.getMovingMonsterPercentage()));
+      currentOptions.addActionListener(e -> handleNewGame(DungeonSettings.of(model)));
       reset.add(currentOptions);
       file.add(reset);
 
@@ -235,20 +249,37 @@ public class GuiView extends JFrame implements View {
       return menuBar;
     }
 
-    private void handleNewGame(int row, int col, int interconnectivity,
-                               boolean isWrapping, int treasurePercentage,
-                               int monsterPercentage, int weaponPercentage,
-                               int pitPercentage, int thiefPercentage,
-                               int movingMonsterPercentage) {
-      Model model = new Dungeon(row, col, interconnectivity, isWrapping,
-              treasurePercentage, monsterPercentage, weaponPercentage,
-              pitPercentage, thiefPercentage, movingMonsterPercentage);
-      ReadOnlyModel readOnlyModel = model;
-      View view = new GuiView(readOnlyModel);
-      GuiController controller = new GuiController(view, model);
-      controller.playGame();
-      setVisible(false);
-      dispose();
+    private void handleNewGame(DungeonSettings settings) {
+      // A dungeon of new settings is generated here, so keep it off the Event Dispatch Thread
+      menuBar.setEnabled(false);
+      setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+      new SwingWorker<Model, Void>() {
+        @Override
+        protected Model doInBackground() {
+          return dungeonPool.take(settings);
+        }
+
+        @Override
+        protected void done() {
+          Model model;
+          try {
+            model = get();
+          } catch (InterruptedException | ExecutionException exception) {
+            setCursor(Cursor.getDefaultCursor());
+            menuBar.setEnabled(true);
+            Throwable cause = exception.getCause() == null ? exception : exception.getCause();
+            JOptionPane.showMessageDialog(GuiView.this, cause.getMessage(),
+                    "Game Settings", JOptionPane.ERROR_MESSAGE);
+            return;
+          }
+          ReadOnlyModel readOnlyModel = model;
+          View view = new GuiView(readOnlyModel);
+          GuiController controller = new GuiController(view, model);
+          controller.playGame();
+          setVisible(false);
+          dispose();
+        }
+      }.execute();
     }
 
     private JSlider makeJSlider(int max, int tick, int initialValue, boolean enabled) {
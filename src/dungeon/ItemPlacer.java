@@ -0,0 +1,120 @@
+package dungeon;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Chooses the cells that items and monsters are placed in. The eligible cells are
+ * collected into an index array once and partially shuffled, so every placement
+ * takes a single pass over the grid, always terminates and places the exact count
+ * requested whenever enough eligible cells exist.
+ */
+class ItemPlacer {
+
+  private final Topology topology;
+  private final RandomNetwork random;
+
+  ItemPlacer(Topology topology, RandomNetwork random) {
+    if (topology == null) {
+      throw new IllegalArgumentException("Invalid topology!");
+    }
+    if (random == null) {
+      throw new IllegalArgumentException("Invalid random!");
+    }
+    this.topology = topology;
+    this.random = random;
+  }
+
+  /**
+   * Chooses the passed number of eligible cells like {@link #choose} and passes each
+   * chosen cell to the action, in the order chosen.
+   *
+   * @param isCaveOnly whether only caves are eligible
+   * @param isEligible filter over packed cell ids
+   * @param count number of cells to choose
+   * @param isRepeating whether a cell may be chosen more than once
+   * @param action what to place in a chosen cell; it may only change that cell
+   * @return number of cells chosen
+   */
+  int place(boolean isCaveOnly, IntPredicate isEligible, int count, boolean isRepeating,
+            IntConsumer action) {
+    int[] chosen = choose(getCells(isCaveOnly, isEligible), count, isRepeating);
+    for (int cell : chosen) {
+      action.accept(cell);
+    }
+    return chosen.length;
+  }
+
+  /**
+   * Returns the packed ids of all cells that pass the filter.
+   *
+   * @param isCaveOnly whether only caves are eligible
+   * @param isEligible filter over packed cell ids
+   * @return eligible cells
+   */
+  int[] getCells(boolean isCaveOnly, IntPredicate isEligible) {
+    int cells = topology.getRow() * topology.getCol();
+    int[] eligible = new int[cells];
+    int count = 0;
+    for (int cell = 0; cell < cells; cell++) {
+      if (isPlaceable(cell, isCaveOnly, isEligible)) {
+        eligible[count++] = cell;
+      }
+    }
+    int[] result = new int[count];
+    System.arraycopy(eligible, 0, result, 0, count);
+    return result;
+  }
+
+  /**
+   * Returns whether the passed cell is eligible for a placement.
+   *
+   * @param cell packed cell id
+   * @param isCaveOnly whether only caves are eligible
+   * @param isEligible filter over packed cell ids
+   * @return whether eligible
+   */
+  boolean isPlaceable(int cell, boolean isCaveOnly, IntPredicate isEligible) {
+    return (!isCaveOnly || Integer.bitCount(topology.getMask(cell)) != 2)
+            && isEligible.test(cell);
+  }
+
+  Topology getTopology() {
+    return topology;
+  }
+
+  RandomNetwork getRandom() {
+    return random;
+  }
+
+  /**
+   * Returns the passed number of cells chosen at random from the eligible cells.
+   * Without repeats no cell is chosen twice and the result may be shorter than
+   * asked for; with repeats the eligible cells are reused in the same random
+   * order until the count is met.
+   *
+   * @param cells eligible cells, shuffled in place
+   * @param count number of cells to choose
+   * @param isRepeating whether a cell may be chosen more than once
+   * @return chosen cells
+   */
+  int[] choose(int[] cells, int count, boolean isRepeating) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Invalid count!");
+    }
+    int distinct = Math.min(count, cells.length);
+    // Partial Fisher-Yates; only the chosen prefix is shuffled
+    for (int i = 0; i < distinct; i++) {
+      int j = i + random.nextInt(cells.length - i);
+      int tmp = cells[i];
+      cells[i] = cells[j];
+      cells[j] = tmp;
+    }
+    int total = isRepeating && distinct > 0 ? count : distinct;
+    int[] chosen = new int[total];
+    for (int i = 0; i < total; i++) {
+      chosen[i] = cells[i % distinct];
+    }
+    return chosen;
+  }
+}
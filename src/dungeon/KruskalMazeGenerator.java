@@ -0,0 +1,124 @@
+package dungeon;
+
+/**
+ * Generates the dungeon maze using Kruskal's algorithm over a disjoint-set of
+ * packed cell ids (row * col + column). Every candidate edge is packed into a
+ * single int as (cell id * 2 + 0) for the edge going east and (cell id * 2 + 1)
+ * for the edge going south, so the whole edge list lives in one int array that
+ * is shuffled once before the algorithm starts.
+ */
+final class KruskalMazeGenerator {
+
+  private final int row;
+  private final int col;
+  private final boolean isWrapping;
+  private final RandomNetwork random;
+
+  KruskalMazeGenerator(int row, int col, boolean isWrapping, RandomNetwork random) {
+    if (row < 0) {
+      throw new IllegalArgumentException("Invalid row!");
+    }
+    if (col < 0) {
+      throw new IllegalArgumentException("Invalid col!");
+    }
+    if (random == null) {
+      throw new IllegalArgumentException("Invalid random!");
+    }
+    this.row = row;
+    this.col = col;
+    this.isWrapping = isWrapping;
+    this.random = random;
+  }
+
+  /**
+   * Returns the open directions of every cell as a bit mask of
+   * {@link Direction#getMask()} values, indexed by packed cell id.
+   * Once the spanning tree is complete, up to the passed number of
+   * leftover edges are added back to increase interconnectivity.
+   *
+   * @param interconnectivity degree of interconnectivity
+   * @return direction masks per cell
+   */
+  byte[] generate(int interconnectivity) {
+    if (interconnectivity < 0) {
+      throw new IllegalArgumentException("Invalid interconnectivity!");
+    }
+    byte[] masks = new byte[row * col];
+    int[] edges = generateAllPossibleEdges();
+    shuffle(edges);
+
+    // Kruskal's algorithm; rejected edges are compacted to the front of the
+    // same array as leftovers, keeping their shuffled order
+    DisjointSet sets = new DisjointSet(row * col);
+    int leftovers = 0;
+    for (int edge : edges) {
+      int cell = edge >>> 1;
+      if (sets.union(cell, getNeighbour(edge))) {
+        open(masks, edge);
+      } else {
+        edges[leftovers++] = edge;
+      }
+    }
+
+    // Adding leftovers
+    for (int i = 0; i < interconnectivity && i < leftovers; i++) {
+      open(masks, edges[i]);
+    }
+    return masks;
+  }
+
+  private int[] generateAllPossibleEdges() {
+    // A wrapping edge would duplicate a regular edge (or loop onto itself)
+    // unless there are at least three cells in that dimension
+    boolean wrapEast = isWrapping && col > 2;
+    boolean wrapSouth = isWrapping && row > 2;
+    int total = row * (wrapEast ? col : Math.max(col - 1, 0))
+            + col * (wrapSouth ? row : Math.max(row - 1, 0));
+    int[] edges = new int[total];
+    int index = 0;
+    for (int i = 0; i < row; i++) {
+      for (int j = 0; j < col; j++) {
+        int cell = i * col + j;
+        if (j < col - 1 || wrapEast) {
+          edges[index++] = cell << 1;
+        }
+        if (i < row - 1 || wrapSouth) {
+          edges[index++] = (cell << 1) | 1;
+        }
+      }
+    }
+    return edges;
+  }
+
+  private void shuffle(int[] edges) {
+    // Fisher-Yates
+    for (int i = edges.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int tmp = edges[i];
+      edges[i] = edges[j];
+      edges[j] = tmp;
+    }
+  }
+
+  private int getNeighbour(int edge) {
+    int cell = edge >>> 1;
+    int x = cell / col;
+    int y = cell % col;
+    if ((edge & 1) == 0) {
+      return x * col + (y + 1) % col;
+    }
+    return ((x + 1) % row) * col + y;
+  }
+
+  private void open(byte[] masks, int edge) {
+    int cell = edge >>> 1;
+    int neighbour = getNeighbour(edge);
+    if ((edge & 1) == 0) {
+      masks[cell] |= Direction.EAST.getMask();
+      masks[neighbour] |= Direction.WEST.getMask();
+    } else {
+      masks[cell] |= Direction.SOUTH.getMask();
+      masks[neighbour] |= Direction.NORTH.getMask();
+    }
+  }
+}
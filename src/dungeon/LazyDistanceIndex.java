@@ -0,0 +1,72 @@
+package dungeon;
+
+/**
+ * The distance index of a grid, built the first time a distance is asked for and
+ * dropped whenever the maze is generated again. Grids hand their position queries to
+ * it, so the locking and the position to cell conversion live in one place.
+ */
+final class LazyDistanceIndex {
+
+  private final Topology topology;
+  private volatile DistanceIndex index;
+
+  LazyDistanceIndex(Topology topology) {
+    if (topology == null) {
+      throw new IllegalArgumentException("Invalid topology!");
+    }
+    this.topology = topology;
+  }
+
+  /**
+   * Replaces the index with the passed one, or drops it if null so that the next
+   * query builds a new one.
+   *
+   * @param index distance index, or null
+   */
+  void set(DistanceIndex index) {
+    this.index = index;
+  }
+
+  /**
+   * Returns the index, building it if needed.
+   *
+   * @return distance index
+   */
+  DistanceIndex get() {
+    DistanceIndex current = index;
+    if (current == null) {
+      synchronized (this) {
+        current = index;
+        if (current == null) {
+          current = new DistanceIndex(topology);
+          index = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Returns the number of moves on a shortest path between the passed positions,
+   * or -1 if there is no path.
+   *
+   * @param from position from
+   * @param to position to
+   * @return distance
+   */
+  int getDistance(Position from, Position to) {
+    return get().getDistance(topology.getCell(from), topology.getCell(to));
+  }
+
+  /**
+   * Returns the direction of the first move on a shortest path between the passed
+   * positions, or null if they are the same position or there is no path.
+   *
+   * @param from position from
+   * @param to position to
+   * @return direction of the next move
+   */
+  Direction getNextHop(Position from, Position to) {
+    return get().getNextHop(topology.getCell(from), topology.getCell(to));
+  }
+}
@@ -135,6 +135,23 @@ public interface Location {
    */
   List<Action> getValidActions();
 
+  /**
+   * Returns the directions the player can take from this location as a mask of
+   * {@link Direction#getMask()} values.
+   *
+   * @return direction mask
+   */
+  int getMask();
+
+  /**
+   * Returns the position reached by moving from this location in the passed
+   * direction, or null if there is no entrance that way.
+   *
+   * @param direction direction
+   * @return neighbour position, or null
+   */
+  Position getNeighbour(Direction direction);
+
   /**
    * Returns whether the location has a pit.
    *
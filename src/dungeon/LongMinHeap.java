@@ -0,0 +1,64 @@
+package dungeon;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of primitive longs. Callers pack a priority into the high bits
+ * and a payload such as a cell id into the low bits, so nothing is ever boxed.
+ */
+final class LongMinHeap {
+
+  private long[] heap;
+  private int size;
+
+  LongMinHeap() {
+    heap = new long[16];
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  void add(long value) {
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size * 2);
+    }
+    int i = size++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (heap[parent] <= value) {
+        break;
+      }
+      heap[i] = heap[parent];
+      i = parent;
+    }
+    heap[i] = value;
+  }
+
+  long poll() {
+    if (size == 0) {
+      throw new IllegalStateException("Heap is empty!");
+    }
+    long min = heap[0];
+    long last = heap[--size];
+    int i = 0;
+    int half = size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (last <= heap[child]) {
+        break;
+      }
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = last;
+    return min;
+  }
+}
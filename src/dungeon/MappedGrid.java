@@ -0,0 +1,298 @@
+package dungeon;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A grid whose cells live in a memory-mapped file instead of on the heap, for worlds
+ * too large for a map of locations. Every cell is a {@link CellRecords} record of its
+ * open directions, pit, thief, monsters and item counts. Locations are flyweights
+ * created on access that read and write their record directly, so nothing per cell is
+ * kept on the heap and the operating system pages records in and out as they are
+ * touched.
+ */
+class MappedGrid implements Grid, CellRecords {
+
+  private static final int RECORD_SIZE = CellRecords.RECORD_SIZE;
+  private static final int SEGMENT_SHIFT = 28;
+  private static final int SEGMENT_CELLS = 1 << SEGMENT_SHIFT;
+
+  private final int row;
+  private final int col;
+  private int totalCaves;
+  private int totalTunnel;
+  private boolean isWrapping;
+  private final MappedByteBuffer[] segments;
+  private final RandomNetwork random;
+  private final PathFinder pathFinder;
+  private final LazyDistanceIndex distanceIndex;
+
+  /**
+   * Creates a grid backed by the passed file, replacing its contents. The file
+   * keeps the cells after the grid is no longer used.
+   *
+   * @param file backing file
+   * @param row number of rows
+   * @param col number of columns
+   * @param random random used to generate the maze
+   * @throws IOException if the file cannot be mapped
+   */
+  MappedGrid(Path file, int row, int col, RandomNetwork random) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("Invalid file!");
+    }
+    if (row < 0) {
+      throw new IllegalArgumentException("Invalid row!");
+    }
+    if (col < 0) {
+      throw new IllegalArgumentException("Invalid col!");
+    }
+    if ((long) row * col > PathFinder.MAX_CELLS) {
+      throw new IllegalArgumentException("Invalid size!");
+    }
+    if (random == null) {
+      throw new IllegalArgumentException("Invalid random!");
+    }
+    this.row = row;
+    this.col = col;
+    this.random = random;
+    pathFinder = new PathFinder(this);
+    distanceIndex = new LazyDistanceIndex(this);
+    int cells = row * col;
+    segments = new MappedByteBuffer[(cells + SEGMENT_CELLS - 1) >>> SEGMENT_SHIFT];
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (int i = 0; i < segments.length; i++) {
+        long from = (long) i << SEGMENT_SHIFT;
+        long size = Math.min(SEGMENT_CELLS, cells - from) * RECORD_SIZE;
+        segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, from * RECORD_SIZE, size);
+      }
+    }
+  }
+
+  private MappedGrid(MappedGrid grid) {
+    row = grid.row;
+    col = grid.col;
+    totalCaves = grid.totalCaves;
+    totalTunnel = grid.totalTunnel;
+    isWrapping = grid.isWrapping;
+    segments = grid.segments;
+    random = grid.random.split();
+    pathFinder = new PathFinder(this);
+    distanceIndex = new LazyDistanceIndex(this);
+  }
+
+  /**
+   * {@inheritDoc} The copy shares the cells of this grid.
+   */
+  @Override
+  public Grid copy() {
+    return new MappedGrid(this);
+  }
+
+  @Override
+  public int getRow() {
+    return row;
+  }
+
+  @Override
+  public int getCol() {
+    return col;
+  }
+
+  @Override
+  public boolean isWrapping() {
+    return isWrapping;
+  }
+
+  @Override
+  public int getMask(int cell) {
+    return readRecord(cell, 0) & 0xF;
+  }
+
+  @Override
+  public int getMask(int x, int y) {
+    if (x < 0 || x >= row) {
+      throw new IllegalArgumentException("Invalid x!");
+    }
+    if (y < 0 || y >= col) {
+      throw new IllegalArgumentException("Invalid y!");
+    }
+    return getMask(x * col + y);
+  }
+
+  @Override
+  public Position getNeighbour(Position position, Direction direction) {
+    if (direction == null) {
+      throw new IllegalArgumentException("Invalid direction!");
+    }
+    int next = getOpenNeighbour(getCell(position), direction);
+    return next < 0 ? null : getPosition(next);
+  }
+
+  @Override
+  public int getTotalCaves() {
+    return totalCaves;
+  }
+
+  @Override
+  public int getTotalTunnel() {
+    return totalTunnel;
+  }
+
+  @Override
+  public Location getLocation(Position position) {
+    if (position == null) {
+      throw new IllegalArgumentException("Invalid position!");
+    }
+    return getLocation(position.getX(), position.getY());
+  }
+
+  @Override
+  public Location getLocation(int x, int y) {
+    if (x < 0 || x >= row) {
+      throw new IllegalArgumentException("Invalid x!");
+    }
+    if (y < 0 || y >= col) {
+      throw new IllegalArgumentException("Invalid y!");
+    }
+    return new RecordLocation(this, x * col + y);
+  }
+
+  @Override
+  public Position getPosition(int x, int y) {
+    if (x < 0 || x >= row) {
+      throw new IllegalArgumentException("Invalid x!");
+    }
+    if (y < 0 || y >= col) {
+      throw new IllegalArgumentException("Invalid y!");
+    }
+    return getPosition(x * col + y);
+  }
+
+  /**
+   * Generates the dungeon maze with the passed level of interconnectivity,
+   * clearing every cell and writing only its topology.
+   *
+   * @param interconnectivity degree of interconnectivity
+   * @param isWrapping whether wrapping
+   */
+  void generate(int interconnectivity, boolean isWrapping) {
+    if (interconnectivity < 0) {
+      throw new IllegalArgumentException("Invalid interconnectivity!");
+    }
+    byte[] masks = new KruskalMazeGenerator(row, col, isWrapping, random)
+            .generate(interconnectivity);
+    this.isWrapping = isWrapping;
+    distanceIndex.set(null);
+    totalCaves = 0;
+    totalTunnel = 0;
+    for (int cell = 0; cell < masks.length; cell++) {
+      writeMask(cell, masks[cell]);
+    }
+  }
+
+  /**
+   * Generates the dungeon maze like {@link #generate(int, boolean)}, but one row at
+   * a time with Eller's algorithm, writing every row straight into the file. Apart
+   * from the file, the memory needed only grows with the number of columns. Edges
+   * wrapping from the last row to the first are never opened.
+   *
+   * @param interconnectivity degree of interconnectivity
+   * @param isWrapping whether wrapping
+   */
+  void generateByRows(int interconnectivity, boolean isWrapping) {
+    if (interconnectivity < 0) {
+      throw new IllegalArgumentException("Invalid interconnectivity!");
+    }
+    this.isWrapping = isWrapping;
+    distanceIndex.set(null);
+    totalCaves = 0;
+    totalTunnel = 0;
+    new EllerMazeGenerator(row, col, isWrapping, random).generate(interconnectivity,
+            (x, cells) -> {
+              for (int y = 0; y < col; y++) {
+                writeMask(x * col + y, cells[y]);
+              }
+            });
+  }
+
+  private void writeMask(int cell, int mask) {
+    // Clears the rest of the record along with it
+    segments[cell >>> SEGMENT_SHIFT].putInt((cell & (SEGMENT_CELLS - 1)) * RECORD_SIZE,
+            mask << 24);
+    if (Integer.bitCount(mask) == 2) {
+      totalTunnel++;
+    } else {
+      totalCaves++;
+    }
+  }
+
+  /**
+   * {@inheritDoc} Returning the whole map creates a flyweight for every
+   * location, so callers that care about memory should use {@link #generate}
+   * and {@link #getLocation(int, int)} instead.
+   */
+  @Override
+  public Location[][] generateMaze(int interconnectivity, boolean isWrapping) {
+    generate(interconnectivity, isWrapping);
+    Location[][] map = new Location[row][col];
+    for (int i = 0; i < row; i++) {
+      for (int j = 0; j < col; j++) {
+        map[i][j] = getLocation(i, j);
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Writes every changed cell back to the file.
+   */
+  void force() {
+    for (MappedByteBuffer segment : segments) {
+      segment.force();
+    }
+  }
+
+  @Override
+  public List<Action> calculatePath(Position start, Position end, String method) {
+    return pathFinder.calculatePath(start, end, method);
+  }
+
+  @Override
+  public List<Action> calculatePath(Position start, Position end, PathStrategy strategy) {
+    return pathFinder.calculatePath(start, end, strategy);
+  }
+
+  @Override
+  public DistanceIndex getDistanceIndex() {
+    return distanceIndex.get();
+  }
+
+  @Override
+  public int getDistance(Position from, Position to) {
+    return distanceIndex.getDistance(from, to);
+  }
+
+  @Override
+  public Direction getNextHop(Position from, Position to) {
+    return distanceIndex.getNextHop(from, to);
+  }
+
+  @Override
+  public int readRecord(int cell, int offset) {
+    return segments[cell >>> SEGMENT_SHIFT]
+            .get((cell & (SEGMENT_CELLS - 1)) * RECORD_SIZE + offset) & 0xFF;
+  }
+
+  @Override
+  public void writeRecord(int cell, int offset, int value) {
+    segments[cell >>> SEGMENT_SHIFT]
+            .put((cell & (SEGMENT_CELLS - 1)) * RECORD_SIZE + offset, (byte) value);
+  }
+}
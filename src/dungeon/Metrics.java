@@ -0,0 +1,324 @@
+package dungeon;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+
+/**
+ * In-process counters, latency histograms and allocation histograms of the game, kept
+ * for the whole process. Counters are always on and take an atomic addition; spans are
+ * only recorded by the default metrics if the {@value #PROPERTY} system property is set
+ * to true, in which case the controllers print everything recorded when the game exits.
+ */
+final class Metrics {
+
+  static final String PROPERTY = "dungeon.metrics";
+
+  private static final Metrics defaultMetrics = new Metrics(isEnabled());
+  private static final AtomicBoolean isHookAdded = new AtomicBoolean();
+
+  private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+  private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+  private final Map<String, Histogram> allocations = new ConcurrentSkipListMap<>();
+  private final boolean isRecording;
+
+  Metrics() {
+    this(true);
+  }
+
+  Metrics(boolean isRecording) {
+    this.isRecording = isRecording;
+  }
+
+  /**
+   * Returns the metrics of the process.
+   *
+   * @return default metrics
+   */
+  static Metrics getDefault() {
+    return defaultMetrics;
+  }
+
+  /**
+   * Returns whether the metrics should be printed when the game exits.
+   *
+   * @return true, if enabled, else false
+   */
+  static boolean isEnabled() {
+    return Boolean.getBoolean(PROPERTY);
+  }
+
+  /**
+   * Prints the default metrics to the standard error when the process exits, if they
+   * are enabled. Only the first call has any effect.
+   */
+  static void dumpOnExit() {
+    if (isEnabled() && isHookAdded.compareAndSet(false, true)) {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          defaultMetrics.dump(System.err);
+        } catch (IOException e) {
+          // Nothing to do this late
+        }
+      }));
+    }
+  }
+
+  /**
+   * Adds the passed amount to a counter.
+   *
+   * @param name name of the counter
+   * @param delta amount to add
+   */
+  void increment(String name, long delta) {
+    counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+  }
+
+  /**
+   * Returns the value of a counter, 0 if it was never incremented.
+   *
+   * @param name name of the counter
+   * @return value
+   */
+  long getCount(String name) {
+    LongAdder counter = counters.get(name);
+    return counter == null ? 0 : counter.sum();
+  }
+
+  /**
+   * Returns whether work with events of the passed type should be measured, which is
+   * when these metrics record spans or a Flight Recorder recording has the type enabled.
+   * Otherwise callers create neither the event nor the span, so the work allocates
+   * nothing for them.
+   *
+   * @param type type of the events of the work
+   * @return true, if measured, else false
+   */
+  boolean isMeasured(EventType type) {
+    return isRecording || type.isEnabled();
+  }
+
+  /**
+   * Starts measuring work recorded under the passed name and begins the passed Flight
+   * Recorder event. The time the work takes and the bytes the thread allocates for it
+   * are recorded when the returned span is ended.
+   *
+   * @param name name of the histograms
+   * @param event event of the work, not yet begun
+   * @return span to end once the work is done
+   */
+  Span start(String name, Event event) {
+    return new Span(getHistogram(name), getAllocationHistogram(name), event);
+  }
+
+  /**
+   * Returns a histogram, creating it if needed.
+   *
+   * @param name name of the histogram
+   * @return histogram
+   */
+  Histogram getHistogram(String name) {
+    return histograms.computeIfAbsent(name, k -> new Histogram());
+  }
+
+  /**
+   * Returns a histogram of the bytes allocated, creating it if needed.
+   *
+   * @param name name of the histogram
+   * @return histogram
+   */
+  Histogram getAllocationHistogram(String name) {
+    return allocations.computeIfAbsent(name, k -> new Histogram());
+  }
+
+  /**
+   * Appends every counter and a summary of every histogram, times in microseconds and
+   * allocations in bytes.
+   *
+   * @param out output
+   * @throws IOException if appending fails
+   */
+  void dump(Appendable out) throws IOException {
+    out.append("\nMetrics:\n");
+    for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+      out.append(String.format("  %-24s %d\n", counter.getKey(), counter.getValue().sum()));
+    }
+    for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+      Histogram histogram = entry.getValue();
+      out.append(String.format("  %-24s count=%d mean=%.1fus p50=%.1fus p90=%.1fus "
+                      + "p99=%.1fus max=%.1fus\n", entry.getKey(), histogram.getCount(),
+              histogram.getMean() / 1e3, histogram.getPercentile(50) / 1e3,
+              histogram.getPercentile(90) / 1e3, histogram.getPercentile(99) / 1e3,
+              histogram.getMax() / 1e3));
+    }
+    for (Map.Entry<String, Histogram> entry : allocations.entrySet()) {
+      Histogram histogram = entry.getValue();
+      out.append(String.format("  %-24s count=%d mean=%.0fB p50=%dB p90=%dB p99=%dB "
+                      + "max=%dB\n", entry.getKey(), histogram.getCount(), histogram.getMean(),
+              histogram.getPercentile(50), histogram.getPercentile(90),
+              histogram.getPercentile(99), histogram.getMax()));
+    }
+  }
+
+  /**
+   * One measured piece of work, from {@link #start} to {@link #end()}. Allocation is
+   * only recorded where the JVM counts the bytes each thread allocates.
+   */
+  static final class Span {
+
+    private final Histogram time;
+    private final Histogram allocation;
+    private final Event event;
+    private final long startBytes;
+    private final long startNanos;
+
+    private Span(Histogram time, Histogram allocation, Event event) {
+      this.time = time;
+      this.allocation = allocation;
+      this.event = event;
+      event.begin();
+      startBytes = Allocation.getBytes();
+      startNanos = System.nanoTime();
+    }
+
+    /**
+     * Ends the work, recording its time and allocation, and returns whether its event
+     * should be committed; if so, the caller sets the fields of the event and commits it.
+     *
+     * @return true, if the event should be committed, else false
+     */
+    boolean end() {
+      time.record(System.nanoTime() - startNanos);
+      if (startBytes >= 0) {
+        allocation.record(Allocation.getBytes() - startBytes - Allocation.overhead);
+      }
+      event.end();
+      return event.shouldCommit();
+    }
+  }
+
+  /**
+   * Reads the bytes allocated by the current thread, loaded with the first span.
+   */
+  private static final class Allocation {
+
+    private static final com.sun.management.ThreadMXBean threads = getThreads();
+    // Reading the count allocates a little itself, which is left out of every span
+    private static final long overhead = getOverhead();
+
+    private static com.sun.management.ThreadMXBean getThreads() {
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean allocating = (com.sun.management.ThreadMXBean) threads;
+        if (allocating.isThreadAllocatedMemorySupported()
+                && allocating.isThreadAllocatedMemoryEnabled()) {
+          return allocating;
+        }
+      }
+      return null;
+    }
+
+    private static long getOverhead() {
+      long first = getBytes();
+      return first < 0 ? 0 : Math.max(getBytes() - first, 0);
+    }
+
+    static long getBytes() {
+      return threads == null ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+  }
+
+  /**
+   * A histogram of non-negative values with log-linear buckets, as in HdrHistogram:
+   * every power of two is split into 32 buckets, so any value is reported within about
+   * 3% of itself while the histogram takes a fixed 15KB whatever it records.
+   */
+  static final class Histogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a value; negative values are recorded as 0.
+     *
+     * @param value value
+     */
+    void record(long value) {
+      long v = Math.max(value, 0);
+      buckets.incrementAndGet(getIndex(v));
+      count.increment();
+      total.add(v);
+      max.accumulate(v);
+    }
+
+    long getCount() {
+      return count.sum();
+    }
+
+    long getMax() {
+      return max.get();
+    }
+
+    double getMean() {
+      long n = count.sum();
+      return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    /**
+     * Returns the highest value of the bucket holding the passed percentile, never
+     * above the largest value recorded.
+     *
+     * @param percentile percentile from 0 to 100
+     * @return value at the percentile
+     */
+    long getPercentile(double percentile) {
+      if (percentile < 0 || percentile > 100) {
+        throw new IllegalArgumentException("Invalid percentile!");
+      }
+      long n = count.sum();
+      if (n == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += buckets.get(i);
+        if (seen >= rank) {
+          return Math.min(getHighestValue(i), getMax());
+        }
+      }
+      return getMax();
+    }
+
+    private static int getIndex(long value) {
+      if (value < 2 * SUB_COUNT) {
+        return (int) value;
+      }
+      int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+      return (shift + 1) * SUB_COUNT + (int) (value >>> shift) - SUB_COUNT;
+    }
+
+    private static long getHighestValue(int index) {
+      if (index < 2 * SUB_COUNT) {
+        return index;
+      }
+      int shift = index / SUB_COUNT - 1;
+      long sub = index % SUB_COUNT + SUB_COUNT;
+      return ((sub + 1) << shift) - 1;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package dungeon;
 
 import java.io.IOException;
+import java.util.Collection;
 
 /**
  * A mock version of the view to facilitate testing.
@@ -36,6 +37,15 @@ public class MockView implements View {
     }
   }
 
+  @Override
+  public void refresh(Collection<Position> changedPositions) {
+    try {
+      log.append("Refresh!\n");
+    } catch (IOException e) {
+      // do nothing
+    }
+  }
+
   @Override
   public void makeVisible() {
     try {
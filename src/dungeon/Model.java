@@ -75,7 +75,7 @@ public interface Model extends ReadOnlyModel {
   boolean addMovingMonster(Position position, Monster monster);
 
   /**
-   * Returns a generated start and end position that follows the requirements of >5 length.
+   * Returns a generated start and end cave with a path of at least length 5 between them.
    *
    * @return a two value array of start and end positions
    */
@@ -0,0 +1,68 @@
+package dungeon;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Smells that keep nothing per cell: the monsters and pits around a position are
+ * counted whenever its smell is asked for, so adding or slaying an Otyugh needs no
+ * update. Meant for worlds too large to scan up front.
+ */
+class OnDemandSmellField implements SmellField {
+
+  private final Topology topology;
+  private final IntPredicate hasMonster;
+  private final IntPredicate hasPit;
+
+  OnDemandSmellField(Topology topology, IntPredicate hasMonster, IntPredicate hasPit) {
+    if (topology == null) {
+      throw new IllegalArgumentException("Invalid topology!");
+    }
+    this.topology = topology;
+    this.hasMonster = hasMonster;
+    this.hasPit = hasPit;
+  }
+
+  @Override
+  public void addMonster(int cell) {
+    // Counted when checked
+  }
+
+  @Override
+  public void addPit(int cell) {
+    // Counted when checked
+  }
+
+  @Override
+  public void removeMonster(Position position) {
+    // Counted when checked
+  }
+
+  @Override
+  public boolean isSmellingLessPungent(Position position) {
+    int cell = topology.getCell(position);
+    int[] near = new int[4];
+    int[] far = new int[12];
+    int totalNear = SmellField.collectNear(topology, cell, near);
+    return SmellField.count(near, totalNear, hasMonster) == 0
+            && SmellField.count(far,
+                    SmellField.collectFar(topology, cell, near, totalNear, far), hasMonster) == 1;
+  }
+
+  @Override
+  public boolean isSmellingMorePungent(Position position) {
+    int cell = topology.getCell(position);
+    int[] near = new int[4];
+    int[] far = new int[12];
+    int totalNear = SmellField.collectNear(topology, cell, near);
+    int totalFar = SmellField.collectFar(topology, cell, near, totalNear, far);
+    int nearCount = SmellField.count(near, totalNear, hasMonster);
+    return nearCount > 0 || nearCount + SmellField.count(far, totalFar, hasMonster) > 1;
+  }
+
+  @Override
+  public boolean isSmellingPetrichor(Position position) {
+    int[] near = new int[4];
+    return SmellField.count(near,
+            SmellField.collectNear(topology, topology.getCell(position), near), hasPit) > 0;
+  }
+}
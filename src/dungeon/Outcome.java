@@ -0,0 +1,35 @@
+package dungeon;
+
+/**
+ * Enum for all the typed results of applying a command to a game.
+ */
+public enum Outcome {
+  MOVED,
+  BLOCKED,
+  WON,
+  EATEN_BY_OTYUGH,
+  ESCAPED_OTYUGH,
+  FELL_INTO_PIT,
+  ROBBED,
+  ESCAPED_THIEF,
+  EATEN_BY_BEHOLDER,
+  ESCAPED_BEHOLDER,
+  PICKED,
+  NOTHING_TO_PICK,
+  MISSED,
+  WOUNDED,
+  KILLED,
+  OUT_OF_ARROWS,
+  RESPAWNED,
+  OUT_OF_HEALTH,
+  GAME_OVER;
+
+  /**
+   * Returns whether this outcome is the death of the player.
+   *
+   * @return true, if the player died, else false
+   */
+  public boolean isDeath() {
+    return this == EATEN_BY_OTYUGH || this == FELL_INTO_PIT || this == EATEN_BY_BEHOLDER;
+  }
+}
@@ -0,0 +1,288 @@
+package dungeon;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A grid that keeps the maze topology in 4 bits per cell (two cells per byte) and
+ * derives neighbours arithmetically, wrapping or not. Whatever the cells hold is kept
+ * apart in a small open-addressing table keyed by packed cell id, in the
+ * {@link CellRecords} record layout, so only the cells that ever held something cost
+ * more than half a byte. Locations are {@link RecordLocation} flyweights created on
+ * every access and never kept, so reading a whole map does not grow the grid.
+ */
+class PackedGrid implements Grid, CellRecords {
+
+  private static final int EMPTY = -1;
+
+  private final int row;
+  private final int col;
+  private int totalCaves;
+  private int totalTunnel;
+  private boolean isWrapping;
+  private final byte[] masks;
+  private final RandomNetwork random;
+  private final PathFinder pathFinder;
+  private final LazyDistanceIndex distanceIndex;
+  private int[] contentCells;
+  private int[] contents;
+  private int contentCount;
+
+  PackedGrid(int row, int col) {
+    this(row, col, new RandomNetwork());
+  }
+
+  PackedGrid(int row, int col, RandomNetwork random) {
+    if (row < 0) {
+      throw new IllegalArgumentException("Invalid row!");
+    }
+    if (col < 0) {
+      throw new IllegalArgumentException("Invalid col!");
+    }
+    if ((long) row * col > PathFinder.MAX_CELLS) {
+      throw new IllegalArgumentException("Invalid size!");
+    }
+    if (random == null) {
+      throw new IllegalArgumentException("Invalid random!");
+    }
+    this.row = row;
+    this.col = col;
+    this.random = random;
+    pathFinder = new PathFinder(this);
+    distanceIndex = new LazyDistanceIndex(this);
+    masks = new byte[(row * col + 1) / 2];
+    clearContents();
+  }
+
+  /**
+   * {@inheritDoc} The copy holds copies of the items and monsters of this grid.
+   */
+  @Override
+  public Grid copy() {
+    PackedGrid copy = new PackedGrid(row, col, random.split());
+    System.arraycopy(masks, 0, copy.masks, 0, masks.length);
+    copy.totalCaves = totalCaves;
+    copy.totalTunnel = totalTunnel;
+    copy.isWrapping = isWrapping;
+    copy.contentCells = contentCells.clone();
+    copy.contents = contents.clone();
+    copy.contentCount = contentCount;
+    return copy;
+  }
+
+  @Override
+  public int getRow() {
+    return row;
+  }
+
+  @Override
+  public int getCol() {
+    return col;
+  }
+
+  @Override
+  public boolean isWrapping() {
+    return isWrapping;
+  }
+
+  @Override
+  public int getMask(int cell) {
+    return (masks[cell >> 1] >> ((cell & 1) << 2)) & 0xF;
+  }
+
+  private void setMask(int cell, int mask) {
+    int shift = (cell & 1) << 2;
+    masks[cell >> 1] = (byte) ((masks[cell >> 1] & ~(0xF << shift)) | (mask << shift));
+  }
+
+  @Override
+  public int getMask(int x, int y) {
+    if (x < 0 || x >= row) {
+      throw new IllegalArgumentException("Invalid x!");
+    }
+    if (y < 0 || y >= col) {
+      throw new IllegalArgumentException("Invalid y!");
+    }
+    return getMask(x * col + y);
+  }
+
+  @Override
+  public Position getNeighbour(Position position, Direction direction) {
+    if (direction == null) {
+      throw new IllegalArgumentException("Invalid direction!");
+    }
+    int next = getOpenNeighbour(getCell(position), direction);
+    return next < 0 ? null : getPosition(next);
+  }
+
+  @Override
+  public int getTotalCaves() {
+    return totalCaves;
+  }
+
+  @Override
+  public int getTotalTunnel() {
+    return totalTunnel;
+  }
+
+  @Override
+  public Location getLocation(Position position) {
+    if (position == null) {
+      throw new IllegalArgumentException("Invalid position!");
+    }
+    return getLocation(position.getX(), position.getY());
+  }
+
+  @Override
+  public Location getLocation(int x, int y) {
+    if (x < 0 || x >= row) {
+      throw new IllegalArgumentException("Invalid x!");
+    }
+    if (y < 0 || y >= col) {
+      throw new IllegalArgumentException("Invalid y!");
+    }
+    return new RecordLocation(this, x * col + y);
+  }
+
+  @Override
+  public Position getPosition(int x, int y) {
+    if (x < 0 || x >= row) {
+      throw new IllegalArgumentException("Invalid x!");
+    }
+    if (y < 0 || y >= col) {
+      throw new IllegalArgumentException("Invalid y!");
+    }
+    return getPosition(x * col + y);
+  }
+
+  /**
+   * Generates the dungeon maze with the passed level of interconnectivity, clearing
+   * every cell and storing only its topology; no location is created.
+   *
+   * @param interconnectivity degree of interconnectivity
+   * @param isWrapping whether wrapping
+   */
+  void generate(int interconnectivity, boolean isWrapping) {
+    if (interconnectivity < 0) {
+      throw new IllegalArgumentException("Invalid interconnectivity!");
+    }
+    byte[] generated = new KruskalMazeGenerator(row, col, isWrapping, random)
+            .generate(interconnectivity);
+    this.isWrapping = isWrapping;
+    distanceIndex.set(null);
+    clearContents();
+    totalCaves = 0;
+    totalTunnel = 0;
+    for (int cell = 0; cell < generated.length; cell++) {
+      setMask(cell, generated[cell]);
+      if (Integer.bitCount(generated[cell]) == 2) {
+        totalTunnel++;
+      } else {
+        totalCaves++;
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} Returning the whole map creates a flyweight for every
+   * location, so callers that care about memory should use {@link #generate}
+   * and {@link #getLocation(int, int)} instead.
+   */
+  @Override
+  public Location[][] generateMaze(int interconnectivity, boolean isWrapping) {
+    generate(interconnectivity, isWrapping);
+    Location[][] map = new Location[row][col];
+    for (int i = 0; i < row; i++) {
+      for (int j = 0; j < col; j++) {
+        map[i][j] = getLocation(i, j);
+      }
+    }
+    return map;
+  }
+
+  @Override
+  public List<Action> calculatePath(Position start, Position end, String method) {
+    return pathFinder.calculatePath(start, end, method);
+  }
+
+  @Override
+  public List<Action> calculatePath(Position start, Position end, PathStrategy strategy) {
+    return pathFinder.calculatePath(start, end, strategy);
+  }
+
+  @Override
+  public DistanceIndex getDistanceIndex() {
+    return distanceIndex.get();
+  }
+
+  @Override
+  public int getDistance(Position from, Position to) {
+    return distanceIndex.getDistance(from, to);
+  }
+
+  @Override
+  public Direction getNextHop(Position from, Position to) {
+    return distanceIndex.getNextHop(from, to);
+  }
+
+  @Override
+  public int readRecord(int cell, int offset) {
+    int content = contents[findSlot(cell)];
+    int value = (content >>> (offset << 3)) & 0xFF;
+    return offset == 0 ? value | getMask(cell) : value;
+  }
+
+  @Override
+  public void writeRecord(int cell, int offset, int value) {
+    if (offset == 0) {
+      setMask(cell, value & 0xF);
+      value &= 0xF0;
+    }
+    int slot = findSlot(cell);
+    if (contentCells[slot] == EMPTY) {
+      if (value == 0) {
+        return;
+      }
+      if (2 * (contentCount + 1) > contentCells.length) {
+        resizeContents();
+        slot = findSlot(cell);
+      }
+      contentCells[slot] = cell;
+      contentCount++;
+    }
+    int shift = offset << 3;
+    contents[slot] = (contents[slot] & ~(0xFF << shift)) | ((value & 0xFF) << shift);
+  }
+
+  private int findSlot(int cell) {
+    // Linear probing over a power of two table that is never more than half full;
+    // cells emptied again keep their slot, as they are likely to be filled again
+    int slot = (cell * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(contentCells.length));
+    while (contentCells[slot] != EMPTY && contentCells[slot] != cell) {
+      slot = (slot + 1) & (contentCells.length - 1);
+    }
+    return slot;
+  }
+
+  private void clearContents() {
+    contentCells = new int[16];
+    Arrays.fill(contentCells, EMPTY);
+    contents = new int[16];
+    contentCount = 0;
+  }
+
+  private void resizeContents() {
+    int[] oldCells = contentCells;
+    int[] oldContents = contents;
+    contentCells = new int[oldCells.length * 2];
+    Arrays.fill(contentCells, EMPTY);
+    contents = new int[oldCells.length * 2];
+    for (int i = 0; i < oldCells.length; i++) {
+      if (oldCells[i] != EMPTY) {
+        int slot = findSlot(oldCells[i]);
+        contentCells[slot] = oldCells[i];
+        contents[slot] = oldContents[i];
+      }
+    }
+  }
+}
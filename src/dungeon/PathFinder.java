@@ -0,0 +1,440 @@
+package dungeon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Calculates the set of actions needed to move between two positions of a grid.
+ * The search runs over packed cell ids with int parent links and int frontiers. These
+ * buffers are kept per thread and reused, so a query allocates nothing but the list
+ * of actions it returns, and its event and span when it is measured. Grids of more
+ * than {@value #MAX_DENSE_CELLS} cells, or of more than the finder is created for,
+ * keep the links of the cells a search reaches in hash tables instead of arrays the
+ * size of the grid, and buffers grown past that size by one query are dropped before
+ * the next.
+ */
+class PathFinder {
+
+  /**
+   * Most cells a grid may have for its paths to be found, as a parent link packs a
+   * cell id and a direction into one int.
+   */
+  static final int MAX_CELLS = 1 << 29;
+
+  static final int MAX_DENSE_CELLS = 1 << 20;
+
+  private static final Direction[] directions = Direction.values();
+  private static final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+  private static final String[] metricNames = Arrays.stream(PathStrategy.values())
+          .map(strategy -> "path." + strategy).toArray(String[]::new);
+
+  private final Topology topology;
+  private final int maxDenseCells;
+
+  PathFinder(Topology topology) {
+    this(topology, MAX_DENSE_CELLS);
+  }
+
+  PathFinder(Topology topology, int maxDenseCells) {
+    if (topology == null) {
+      throw new IllegalArgumentException("Invalid topology!");
+    }
+    if (maxDenseCells < 0 || maxDenseCells > MAX_DENSE_CELLS) {
+      throw new IllegalArgumentException("Invalid dense cell count!");
+    }
+    this.topology = topology;
+    this.maxDenseCells = maxDenseCells;
+  }
+
+  List<Action> calculatePath(Position start, Position end, String method) {
+    return calculatePath(start, end, PathStrategy.of(method));
+  }
+
+  List<Action> calculatePath(Position start, Position end, PathStrategy strategy) {
+    if (start == null) {
+      throw new IllegalArgumentException("Invalid position!");
+    }
+    if (end == null) {
+      throw new IllegalArgumentException("Invalid position!");
+    }
+    if (strategy == null) {
+      throw new IllegalArgumentException("Invalid method!");
+    }
+    Metrics metrics = Metrics.getDefault();
+    boolean isMeasured = metrics.isMeasured(GameEvents.pathQueryType);
+    GameEvents.PathQuery event = isMeasured ? new GameEvents.PathQuery() : null;
+    Metrics.Span span = isMeasured ? metrics.start(metricNames[strategy.ordinal()], event) : null;
+    List<Action> path;
+    switch (strategy) {
+      case DFS:
+        path = calculatePathByDfs(topology.getCell(start), topology.getCell(end));
+        break;
+      case BFS:
+        path = calculatePathByBfs(topology.getCell(start), topology.getCell(end));
+        break;
+      case A_STAR:
+        path = calculatePathByAStar(topology.getCell(start), topology.getCell(end));
+        break;
+      case BIDIRECTIONAL:
+        path = calculatePathByBidirectionalBfs(topology.getCell(start), topology.getCell(end));
+        break;
+      default:
+        throw new IllegalArgumentException("No such method!");
+    }
+    if (isMeasured && span.end()) {
+      event.rows = topology.getRow();
+      event.cols = topology.getCol();
+      event.method = strategy.toString();
+      event.length = path.size();
+      event.commit();
+    }
+    return path;
+  }
+
+  private List<Action> calculatePathByDfs(int start, int end) {
+    Scratch s = getScratch();
+    // Cells are marked explored when pushed, so each enters the stack at most once
+    int top = 0;
+    s.frontier[top++] = start;
+    s.parent.put(start, 0);
+    while (top > 0) {
+      int node = s.frontier[--top];
+      if (node == end) {
+        return buildPath(s, start, end);
+      }
+      int mask = topology.getMask(node);
+      for (Direction direction : directions) {
+        if ((mask & direction.getMask()) != 0) {
+          int next = topology.getNeighbour(node, direction);
+          if (!s.parent.contains(next)) {
+            s.parent.put(next, (node << 2) | direction.ordinal());
+            s.frontier = ensureCapacity(s.frontier, top);
+            s.frontier[top++] = next;
+          }
+        }
+      }
+    }
+    throw new IllegalStateException("Frontier is empty!");
+  }
+
+  private List<Action> calculatePathByBfs(int start, int end) {
+    Scratch s = getScratch();
+    // Each cell is queued at most once, so the queue never wraps
+    int head = 0;
+    int tail = 0;
+    s.frontier[tail++] = start;
+    s.parent.put(start, 0);
+    while (head < tail) {
+      int node = s.frontier[head++];
+      if (node == end) {
+        return buildPath(s, start, end);
+      }
+      int mask = topology.getMask(node);
+      for (Direction direction : directions) {
+        if ((mask & direction.getMask()) != 0) {
+          int next = topology.getNeighbour(node, direction);
+          if (!s.parent.contains(next)) {
+            s.parent.put(next, (node << 2) | direction.ordinal());
+            s.frontier = ensureCapacity(s.frontier, tail);
+            s.frontier[tail++] = next;
+          }
+        }
+      }
+    }
+    throw new IllegalStateException("Frontier is empty!");
+  }
+
+  private List<Action> calculatePathByAStar(int start, int end) {
+    Scratch s = getScratch();
+    // The open set holds (estimated total cost << 32 | cell); stale entries are skipped
+    // once their cell is closed. Cells with a known cost have been explored.
+    s.cost.put(start, 0);
+    s.open.add(((long) estimate(start, end) << 32) | start);
+    while (!s.open.isEmpty()) {
+      int node = (int) s.open.poll();
+      if (s.closed.contains(node)) {
+        continue;
+      }
+      if (node == end) {
+        return buildPath(s, start, end);
+      }
+      s.closed.put(node, 0);
+      int mask = topology.getMask(node);
+      int cost = s.cost.get(node) + 1;
+      for (Direction direction : directions) {
+        if ((mask & direction.getMask()) != 0) {
+          int next = topology.getNeighbour(node, direction);
+          if (!s.closed.contains(next) && (!s.cost.contains(next) || cost < s.cost.get(next))) {
+            s.cost.put(next, cost);
+            s.parent.put(next, (node << 2) | direction.ordinal());
+            s.open.add(((long) (cost + estimate(next, end)) << 32) | next);
+          }
+        }
+      }
+    }
+    throw new IllegalStateException("Frontier is empty!");
+  }
+
+  /**
+   * Fills the passed array with the number of moves from the source cell to
+   * every cell, or -1 for cells that cannot be reached.
+   *
+   * @param source packed cell id
+   * @param distances array of at least one entry per cell
+   * @return the passed array
+   */
+  int[] calculateDistances(int source, int[] distances) {
+    int size = topology.getRow() * topology.getCol();
+    Scratch s = getScratch();
+    Arrays.fill(distances, 0, size, -1);
+    int head = 0;
+    int tail = 0;
+    s.frontier[tail++] = source;
+    distances[source] = 0;
+    while (head < tail) {
+      int node = s.frontier[head++];
+      for (Direction direction : directions) {
+        int next = topology.getOpenNeighbour(node, direction);
+        if (next >= 0 && distances[next] < 0) {
+          distances[next] = distances[node] + 1;
+          s.frontier = ensureCapacity(s.frontier, tail);
+          s.frontier[tail++] = next;
+        }
+      }
+    }
+    return distances;
+  }
+
+  private int estimate(int cell, int end) {
+    // Manhattan distance, taking the shorter way around when the maze wraps
+    int row = topology.getRow();
+    int col = topology.getCol();
+    int dx = Math.abs(cell / col - end / col);
+    int dy = Math.abs(cell % col - end % col);
+    if (topology.isWrapping()) {
+      dx = Math.min(dx, row - dx);
+      dy = Math.min(dy, col - dy);
+    }
+    return dx + dy;
+  }
+
+  private List<Action> calculatePathByBidirectionalBfs(int start, int end) {
+    if (start == end) {
+      return new ArrayList<>();
+    }
+    Scratch s = getScratch();
+    // Each side keeps its level in its own frontier array; parent links point back
+    // towards the start, and backward links point onwards towards the end
+    s.frontier[0] = start;
+    s.parent.put(start, 0);
+    int forwardCount = 1;
+    s.backwardFrontier[0] = end;
+    s.backward.put(end, 0);
+    int backwardCount = 1;
+    while (forwardCount > 0 && backwardCount > 0) {
+      int meet;
+      if (forwardCount <= backwardCount) {
+        meet = expandLevel(s.frontier, forwardCount, s.parent, s.backward, false);
+        s.frontier = s.swapLevel(s.frontier);
+        forwardCount = s.levelSize;
+      } else {
+        meet = expandLevel(s.backwardFrontier, backwardCount, s.backward, s.parent, true);
+        s.backwardFrontier = s.swapLevel(s.backwardFrontier);
+        backwardCount = s.levelSize;
+      }
+      if (meet >= 0) {
+        List<Action> sequence = buildPath(s, start, meet);
+        for (int node = meet; node != end; ) {
+          int link = s.backward.get(node);
+          int next = link >>> 2;
+          sequence.add(new Action(topology.getPosition(next), directions[link & 3]));
+          node = next;
+        }
+        return sequence;
+      }
+    }
+    throw new IllegalStateException("Frontier is empty!");
+  }
+
+  private int expandLevel(int[] frontier, int count, CellValues links, CellValues otherLinks,
+                          boolean isBackward) {
+    Scratch s = scratch.get();
+    // The next level is collected apart and then swapped in for the current one
+    int added = 0;
+    for (int i = 0; i < count; i++) {
+      int node = frontier[i];
+      int mask = topology.getMask(node);
+      for (Direction direction : directions) {
+        if ((mask & direction.getMask()) != 0) {
+          int next = topology.getNeighbour(node, direction);
+          if (!links.contains(next)) {
+            Direction move = isBackward ? direction.reverse() : direction;
+            links.put(next, (node << 2) | move.ordinal());
+            if (otherLinks.contains(next)) {
+              return next;
+            }
+            s.level = ensureCapacity(s.level, added);
+            s.level[added++] = next;
+          }
+        }
+      }
+    }
+    s.levelSize = added;
+    return -1;
+  }
+
+  private List<Action> buildPath(Scratch s, int start, int end) {
+    List<Action> sequence = new ArrayList<>();
+    for (int node = end; node != start; ) {
+      int link = s.parent.get(node);
+      sequence.add(new Action(topology.getPosition(node), directions[link & 3]));
+      node = link >>> 2;
+    }
+    Collections.reverse(sequence);
+    return sequence;
+  }
+
+  private Scratch getScratch() {
+    int size = topology.getRow() * topology.getCol();
+    return scratch.get().reset(size, size <= maxDenseCells);
+  }
+
+  private static int[] ensureCapacity(int[] array, int index) {
+    return index < array.length ? array : Arrays.copyOf(array, Math.max(2 * array.length, 16));
+  }
+
+  private static class Scratch {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private final CellValues parent = new CellValues();
+    private final CellValues backward = new CellValues();
+    private final CellValues cost = new CellValues();
+    private final CellValues closed = new CellValues();
+    private int[] frontier = new int[INITIAL_CAPACITY];
+    private int[] backwardFrontier = new int[INITIAL_CAPACITY];
+    private int[] level = new int[INITIAL_CAPACITY];
+    private int levelSize;
+    private final LongMinHeap open = new LongMinHeap();
+
+    Scratch reset(int size, boolean isDense) {
+      parent.reset(size, isDense);
+      backward.reset(size, isDense);
+      cost.reset(size, isDense);
+      closed.reset(size, isDense);
+      frontier = trim(frontier);
+      backwardFrontier = trim(backwardFrontier);
+      level = trim(level);
+      open.clear();
+      return this;
+    }
+
+    /**
+     * Makes the level just collected the passed frontier, whose array is kept to
+     * collect the next level in.
+     *
+     * @param current array of the frontier expanded
+     * @return array of the new frontier
+     */
+    int[] swapLevel(int[] current) {
+      int[] next = level;
+      level = current;
+      return next;
+    }
+
+    private static int[] trim(int[] array) {
+      return array.length > MAX_DENSE_CELLS ? new int[INITIAL_CAPACITY] : array;
+    }
+  }
+
+  /**
+   * An int for each cell a search has reached, kept in an array indexed by cell for
+   * dense searches. Other searches keep only the cells reached, in an open-addressing
+   * table that is shrunk again once a search has grown it past
+   * {@value #RETAINED_SLOTS} slots.
+   */
+  private static final class CellValues {
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_SLOTS = 1 << 10;
+    private static final int RETAINED_SLOTS = 1 << 16;
+
+    private int[] values = new int[0];
+    private BitSet present = new BitSet();
+    private int[] cells;
+    private int count;
+
+    void reset(int size, boolean isDense) {
+      if (isDense) {
+        cells = null;
+        if (values.length < size) {
+          values = new int[size];
+        }
+        present.clear();
+        return;
+      }
+      if (cells == null || cells.length > RETAINED_SLOTS) {
+        cells = new int[INITIAL_SLOTS];
+        values = new int[INITIAL_SLOTS];
+        present = new BitSet();
+      } else if (count == 0) {
+        return;
+      }
+      Arrays.fill(cells, EMPTY);
+      count = 0;
+    }
+
+    boolean contains(int cell) {
+      return cells == null ? present.get(cell) : cells[findSlot(cell)] == cell;
+    }
+
+    int get(int cell) {
+      return values[cells == null ? cell : findSlot(cell)];
+    }
+
+    void put(int cell, int value) {
+      if (cells == null) {
+        values[cell] = value;
+        present.set(cell);
+        return;
+      }
+      int slot = findSlot(cell);
+      if (cells[slot] == EMPTY) {
+        if (2 * (count + 1) > cells.length) {
+          resize();
+          slot = findSlot(cell);
+        }
+        cells[slot] = cell;
+        count++;
+      }
+      values[slot] = value;
+    }
+
+    private int findSlot(int cell) {
+      // Linear probing over a power of two table that is never more than half full
+      int slot = (cell * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(cells.length));
+      while (cells[slot] != EMPTY && cells[slot] != cell) {
+        slot = (slot + 1) & (cells.length - 1);
+      }
+      return slot;
+    }
+
+    private void resize() {
+      int[] oldCells = cells;
+      int[] oldValues = values;
+      cells = new int[oldCells.length * 2];
+      Arrays.fill(cells, EMPTY);
+      values = new int[oldCells.length * 2];
+      for (int i = 0; i < oldCells.length; i++) {
+        if (oldCells[i] != EMPTY) {
+          int slot = findSlot(oldCells[i]);
+          cells[slot] = oldCells[i];
+          values[slot] = oldValues[i];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package dungeon;
+
+import java.util.Locale;
+
+/**
+ * Enum for having all the algorithms that can be used to calculate a path in the grid.
+ */
+public enum PathStrategy {
+  DFS("dfs"), BFS("bfs"), A_STAR("astar"), BIDIRECTIONAL("bidirectional");
+
+  private final String method;
+
+  PathStrategy(String method) {
+    this.method = method;
+  }
+
+  /**
+   * Returns the strategy for the passed method name, ignoring case.
+   *
+   * @param method method name such as "bfs" or "astar"
+   * @return path strategy
+   */
+  static PathStrategy of(String method) {
+    if (method == null) {
+      throw new IllegalArgumentException("Invalid method!");
+    }
+    String name = method.toLowerCase(Locale.getDefault());
+    for (PathStrategy strategy : values()) {
+      if (strategy.method.equals(name)) {
+        return strategy;
+      }
+    }
+    throw new IllegalArgumentException("No such method!");
+  }
+
+  @Override
+  public String toString() {
+    return method;
+  }
+}
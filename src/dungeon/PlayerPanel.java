@@ -4,11 +4,7 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GridLayout;
-import java.awt.Image;
 import java.awt.Point;
-import java.io.File;
-import java.io.IOException;
-import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
@@ -30,23 +26,20 @@ class PlayerPanel extends JPanel {
             BorderFactory.createEmptyBorder(3, 3, 3, 3)
     ));
     for (int i = 0; i < 4; i++) {
-      JLabel t = new JLabel(new ImageIcon(new ImageIcon(
-              LiMappings.getLocationImage("Health")).getImage()
-              .getScaledInstance(25, 25, Image.SCALE_SMOOTH)));
+      JLabel t = new JLabel(new ImageIcon(
+              SpriteCache.getScaledImage(Sprite.HEALTH, 25, 25)));
       playerStats[i] = t;
       add(t);
     }
     for (int i = 4; i < 8; i++) {
-      JLabel t = new JLabel(new ImageIcon(new ImageIcon(
-              LiMappings.getLocationImage("Blank")).getImage()
-              .getScaledInstance(25, 25, Image.SCALE_SMOOTH)));
+      JLabel t = new JLabel(new ImageIcon(
+              SpriteCache.getScaledImage(Sprite.BLANK, 25, 25)));
       playerStats[i] = t;
       add(t);
     }
     for (int i = 8; i < 12; i++) {
-      JLabel t = new JLabel(new ImageIcon(new ImageIcon(
-              LiMappings.getLocationImage("Blank")).getImage()
-              .getScaledInstance(25, 25, Image.SCALE_SMOOTH)));
+      JLabel t = new JLabel(new ImageIcon(
+              SpriteCache.getScaledImage(Sprite.BLANK, 25, 25)));
       playerStats[i] = t;
       add(t);
     }
@@ -57,19 +50,19 @@ class PlayerPanel extends JPanel {
     super.paint(g);
     Graphics2D g2d = (Graphics2D) g;
     for (int i = model.getPlayerHealth(); i < 4; i++) {
-      updateTreasureIcons(g2d, i, "Blank");
+      updateTreasureIcons(g2d, i, Sprite.BLANK);
     }
     int treasureTopFour = 4;
     for (Treasure t : model.getPlayerTreasure()) {
       switch (t) {
         case DIAMOND:
-          updateTreasureIcons(g2d, treasureTopFour, "Diamond");
+          updateTreasureIcons(g2d, treasureTopFour, Sprite.DIAMOND);
           break;
         case RUBY:
-          updateTreasureIcons(g2d, treasureTopFour, "Ruby");
+          updateTreasureIcons(g2d, treasureTopFour, Sprite.RUBY);
           break;
         case SAPPHIRE:
-          updateTreasureIcons(g2d, treasureTopFour, "Sapphire");
+          updateTreasureIcons(g2d, treasureTopFour, Sprite.SAPPHIRE);
           break;
         default:
           // Not required
@@ -83,7 +76,7 @@ class PlayerPanel extends JPanel {
     int weaponTopFour = 8;
     for (Weapon w : model.getPlayerWeapon()) {
       if (w == Weapon.CROOKED_ARROW) {
-        updateTreasureIcons(g2d, weaponTopFour, "White Arrow");
+        updateTreasureIcons(g2d, weaponTopFour, Sprite.WHITE_ARROW);
       }
       weaponTopFour++;
       if (weaponTopFour > 11) {
@@ -92,13 +85,8 @@ class PlayerPanel extends JPanel {
     }
   }
 
-  private void updateTreasureIcons(Graphics2D g2d, int i, String icon) {
-    try {
-      Point p = playerStats[i].getLocation();
-      g2d.drawImage(ImageIO.read(new File(LiMappings.getLocationImage(icon)))
-              .getScaledInstance(28, 28, Image.SCALE_SMOOTH), p.x, p.y, null);
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
+  private void updateTreasureIcons(Graphics2D g2d, int i, Sprite icon) {
+    Point p = playerStats[i].getLocation();
+    g2d.drawImage(SpriteCache.getScaledImage(icon, 28, 28), p.x, p.y, null);
   }
 }
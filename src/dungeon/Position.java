@@ -1,7 +1,5 @@
 package dungeon;
 
-import java.util.Objects;
-
 /**
  * Position represents a coordinate in the 2-D grid space. A position is comparable
  * to another position, and used in cases like comparing edge preference.
@@ -44,7 +42,8 @@ public class Position implements Comparable<Position> {
 
   @Override
   public int hashCode() {
-    return Objects.hash(x, y);
+    // Unique for coordinates below 65536; 31 * x + y collides along every diagonal
+    return Integer.rotateLeft(x, 16) ^ y;
   }
 
   @Override
@@ -0,0 +1,145 @@
+package dungeon;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of positions of a grid with a fixed number of rows and columns, stored as one bit
+ * per cell. Membership, insertion and size are constant time, and a snapshot is a copy
+ * of the bits that cannot be modified.
+ */
+final class PositionSet extends AbstractSet<Position> {
+
+  private final int row;
+  private final int col;
+  private final BitSet cells;
+  private final boolean isReadOnly;
+  private int size;
+
+  PositionSet(int row, int col) {
+    this(row, col, new BitSet(), 0, false);
+  }
+
+  PositionSet(int row, int col, BitSet cells) {
+    this(row, col, (BitSet) cells.clone(), cells.cardinality(), false);
+    if (cells.length() > row * col) {
+      throw new IllegalArgumentException("Invalid cells!");
+    }
+  }
+
+  private PositionSet(int row, int col, BitSet cells, int size, boolean isReadOnly) {
+    if (row <= 0 || col <= 0) {
+      throw new IllegalArgumentException("Invalid size!");
+    }
+    this.row = row;
+    this.col = col;
+    this.cells = cells;
+    this.size = size;
+    this.isReadOnly = isReadOnly;
+  }
+
+  /**
+   * Returns an unmodifiable copy of the positions currently in this set.
+   *
+   * @return snapshot of this set
+   */
+  PositionSet snapshot() {
+    return new PositionSet(row, col, (BitSet) cells.clone(), size, true);
+  }
+
+  @Override
+  public boolean add(Position position) {
+    if (isReadOnly) {
+      throw new UnsupportedOperationException("Read only set!");
+    }
+    int cell = toCell(position);
+    if (cell < 0) {
+      throw new IllegalArgumentException("Invalid position!");
+    }
+    if (cells.get(cell)) {
+      return false;
+    }
+    cells.set(cell);
+    size++;
+    return true;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    if (isReadOnly) {
+      throw new UnsupportedOperationException("Read only set!");
+    }
+    int cell = o instanceof Position ? toCell((Position) o) : -1;
+    if (cell < 0 || !cells.get(cell)) {
+      return false;
+    }
+    cells.clear(cell);
+    size--;
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    if (isReadOnly) {
+      throw new UnsupportedOperationException("Read only set!");
+    }
+    cells.clear();
+    size = 0;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (!(o instanceof Position)) {
+      return false;
+    }
+    int cell = toCell((Position) o);
+    return cell >= 0 && cells.get(cell);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Iterator<Position> iterator() {
+    return new Iterator<Position>() {
+
+      private int next = cells.nextSetBit(0);
+      private int last = -1;
+
+      @Override
+      public boolean hasNext() {
+        return next >= 0;
+      }
+
+      @Override
+      public Position next() {
+        if (next < 0) {
+          throw new NoSuchElementException();
+        }
+        last = next;
+        next = cells.nextSetBit(next + 1);
+        return new Position(last / col, last % col);
+      }
+
+      @Override
+      public void remove() {
+        if (last < 0) {
+          throw new IllegalStateException();
+        }
+        PositionSet.this.remove(new Position(last / col, last % col));
+        last = -1;
+      }
+    };
+  }
+
+  private int toCell(Position position) {
+    if (position.getX() >= row || position.getY() >= col) {
+      return -1;
+    }
+    return position.getX() * col + position.getY();
+  }
+}
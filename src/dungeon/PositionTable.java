@@ -0,0 +1,40 @@
+package dungeon;
+
+/**
+ * The canonical positions of a grid, one immutable instance per cell looked up by
+ * packed cell id. Each position is created the first time its cell is asked for and
+ * shared from then on, so looking up a cell neither allocates nor hashes. Two threads
+ * racing on the same cell may each create an instance, which is harmless since
+ * positions are immutable and compare by value.
+ */
+final class PositionTable {
+
+  private final int col;
+  private final Position[] positions;
+
+  PositionTable(int row, int col) {
+    if (row < 0) {
+      throw new IllegalArgumentException("Invalid row!");
+    }
+    if (col < 0) {
+      throw new IllegalArgumentException("Invalid col!");
+    }
+    this.col = col;
+    positions = new Position[row * col];
+  }
+
+  /**
+   * Returns the position of the passed cell.
+   *
+   * @param cell packed cell id
+   * @return canonical position
+   */
+  Position get(int cell) {
+    Position position = positions[cell];
+    if (position == null) {
+      position = new Position(cell / col, cell % col);
+      positions[cell] = position;
+    }
+    return position;
+  }
+}
@@ -0,0 +1,83 @@
+package dungeon;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Precomputed smells of every cell. The field is built once after the monsters and
+ * pits are placed and is updated incrementally when an Otyugh or a pit is added later
+ * or an Otyugh is slain, so every smell check is an array read.
+ */
+class PrecomputedSmellField implements SmellField {
+
+  private final Topology topology;
+  private final byte[] nearMonsters;
+  private final byte[] farMonsters;
+  private final byte[] nearPits;
+  private final int[] near = new int[4];
+  private final int[] far = new int[12];
+
+  PrecomputedSmellField(Topology topology, IntPredicate hasMonster, IntPredicate hasPit) {
+    if (topology == null) {
+      throw new IllegalArgumentException("Invalid topology!");
+    }
+    this.topology = topology;
+    int cells = topology.getRow() * topology.getCol();
+    nearMonsters = new byte[cells];
+    farMonsters = new byte[cells];
+    nearPits = new byte[cells];
+    for (int cell = 0; cell < cells; cell++) {
+      if (hasMonster.test(cell)) {
+        spread(cell, 1);
+      }
+      if (hasPit.test(cell)) {
+        addPit(cell);
+      }
+    }
+  }
+
+  @Override
+  public void addMonster(int cell) {
+    spread(cell, 1);
+  }
+
+  @Override
+  public void addPit(int cell) {
+    int total = SmellField.collectNear(topology, cell, near);
+    for (int i = 0; i < total; i++) {
+      nearPits[near[i]]++;
+    }
+  }
+
+  @Override
+  public void removeMonster(Position position) {
+    spread(topology.getCell(position), -1);
+  }
+
+  @Override
+  public boolean isSmellingLessPungent(Position position) {
+    int cell = topology.getCell(position);
+    return nearMonsters[cell] == 0 && farMonsters[cell] == 1;
+  }
+
+  @Override
+  public boolean isSmellingMorePungent(Position position) {
+    int cell = topology.getCell(position);
+    return nearMonsters[cell] > 0 || nearMonsters[cell] + farMonsters[cell] > 1;
+  }
+
+  @Override
+  public boolean isSmellingPetrichor(Position position) {
+    return nearPits[topology.getCell(position)] > 0;
+  }
+
+  private void spread(int cell, int delta) {
+    int totalNear = SmellField.collectNear(topology, cell, near);
+    int totalFar = SmellField.collectFar(topology, cell, near, totalNear, far);
+    for (int i = 0; i < totalNear; i++) {
+      nearMonsters[near[i]] += delta;
+    }
+    for (int i = 0; i < totalFar; i++) {
+      farMonsters[far[i]] += delta;
+    }
+  }
+}
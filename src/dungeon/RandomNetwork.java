@@ -1,14 +1,84 @@
 package dungeon;
 
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Helper class for generating random number in range.
- * Other methods can be added later by extending this class.
+ * Seedable source of random numbers used across the dungeon. Each instance is an
+ * independent SplitMix64 generator (the algorithm behind SplittableRandom), so the
+ * same seed always reproduces the same sequence. Instances are not thread-safe;
+ * subsystems and threads should each {@link #split()} their own generator instead
+ * of sharing one, which also keeps them from contending on a lock.
  */
 public class RandomNetwork {
 
-  private static final Random random = new Random();
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+  private static final AtomicLong defaultSeed = new AtomicLong(System.nanoTime());
+
+  private long seed;
+  private final long gamma;
+
+  /**
+   * Initialises the generator with a seed that differs for every instance.
+   */
+  public RandomNetwork() {
+    this(mix64(defaultSeed.getAndAdd(2 * GOLDEN_GAMMA) ^ System.nanoTime()));
+  }
+
+  /**
+   * Initialises the generator with the passed seed.
+   *
+   * @param seed seed
+   */
+  public RandomNetwork(long seed) {
+    this(seed, GOLDEN_GAMMA);
+  }
+
+  /**
+   * Initialises the generator with the passed state, as returned by
+   * {@link #getSeed()} and {@link #getGamma()}, so a saved generator resumes
+   * exactly where it stopped.
+   *
+   * @param seed current seed
+   * @param gamma odd increment
+   */
+  RandomNetwork(long seed, long gamma) {
+    if ((gamma & 1L) == 0) {
+      throw new IllegalArgumentException("Invalid gamma!");
+    }
+    this.seed = seed;
+    this.gamma = gamma;
+  }
+
+  long getSeed() {
+    return seed;
+  }
+
+  long getGamma() {
+    return gamma;
+  }
+
+  /**
+   * Returns a new generator that shares no state with this one. The sequence of
+   * the new generator is fully determined by the state of this generator.
+   *
+   * @return split generator
+   */
+  public RandomNetwork split() {
+    return new RandomNetwork(nextLong(), mixGamma(nextSeed()));
+  }
+
+  /**
+   * Returns a new generator derived from the state of this one and the passed key,
+   * without advancing this generator. The same state and key always derive the same
+   * generator, so parts of a world can be generated independently and in any order.
+   *
+   * @param key key of the derived generator
+   * @return derived generator
+   */
+  RandomNetwork derive(long key) {
+    long derivedSeed = mix64(seed ^ mix64(key + gamma));
+    return new RandomNetwork(derivedSeed, mixGamma(derivedSeed + GOLDEN_GAMMA));
+  }
 
   /**
    * Returns a random integer generated within the bounds.
@@ -16,10 +86,51 @@ public class RandomNetwork {
    * @param bound bound limit
    * @return random integer
    */
-  public static int nextInt(int bound) {
+  public int nextInt(int bound) {
     if (bound <= 0) {
       throw new IllegalArgumentException("Invalid bounds!");
     }
-    return random.nextInt(bound);
+    int r = mix32(nextSeed());
+    int m = bound - 1;
+    if ((bound & m) == 0) {
+      return r & m;
+    }
+    // Reject values from the incomplete last block to avoid bias
+    for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+      // Retry
+    }
+    return r;
+  }
+
+  /**
+   * Returns a random long.
+   *
+   * @return random long
+   */
+  public long nextLong() {
+    return mix64(nextSeed());
+  }
+
+  private long nextSeed() {
+    return seed += gamma;
+  }
+
+  private static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  private static int mix32(long z) {
+    z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+    return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+  }
+
+  private static long mixGamma(long z) {
+    z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    z = (z ^ (z >>> 33)) | 1L;
+    int n = Long.bitCount(z ^ (z >>> 1));
+    return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
   }
 }
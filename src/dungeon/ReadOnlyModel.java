@@ -1,6 +1,7 @@
 package dungeon;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * A dungeon is represented by an m x n two-dimensional grid. Dungeons
@@ -67,11 +68,19 @@ public interface ReadOnlyModel {
   int getWeaponsPercentage();
 
   /**
-   * Returns a copy of all removed monster positions from the dungeon.
+   * Returns a snapshot of all removed monster positions from the dungeon.
    *
-   * @return list of removed monster positions
+   * @return set of removed monster positions
    */
-  List<Position> getRemovedMonsters();
+  Set<Position> getRemovedMonsters();
+
+  /**
+   * Returns whether the monster at the passed position has been killed.
+   *
+   * @param position position
+   * @return true, if killed, else false
+   */
+  boolean isMonsterRemoved(Position position);
 
   /**
    * Returns the dungeon map in the form of a 2-D location array.
@@ -192,11 +201,26 @@ public interface ReadOnlyModel {
   int getPlayerHealth();
 
   /**
-   * Returns a list of visited positions by the player.
+   * Returns a snapshot of the positions visited by the player.
+   *
+   * @return set of visited positions
+   */
+  Set<Position> getVisitedPositions();
+
+  /**
+   * Returns whether the player has visited the passed position.
+   *
+   * @param position position
+   * @return true, if visited, else false
+   */
+  boolean isVisited(Position position);
+
+  /**
+   * Returns the number of distinct positions visited by the player.
    *
-   * @return lits of visited positions
+   * @return number of visited positions
    */
-  List<Position> getVisitedPositions();
+  int getVisitedCount();
 
   /**
    * Returns whether it is smelling less pungent nearby.
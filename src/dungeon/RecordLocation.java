@@ -0,0 +1,299 @@
+package dungeon;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A location that holds nothing but its cell and works on the {@link CellRecords}
+ * record of that cell, so any number of them can be created and dropped on access.
+ * Cells with exactly two entrances behave as tunnels, the rest as caves.
+ */
+final class RecordLocation implements Location {
+
+  private static final int PIT = 1 << 4;
+  private static final int THIEF = 1 << 5;
+  private static final int TREASURE_BITS = 8 / Treasure.values().length;
+  private static final int WEAPON_BITS = 8 / Weapon.values().length;
+
+  private final CellRecords records;
+  private final int cell;
+
+  RecordLocation(CellRecords records, int cell) {
+    this.records = records;
+    this.cell = cell;
+  }
+
+  private boolean isTunnel() {
+    return Integer.bitCount(records.getMask(cell)) == 2;
+  }
+
+  @Override
+  public Position getPosition() {
+    return records.getPosition(cell);
+  }
+
+  @Override
+  public boolean hasTreasure() {
+    return !isTunnel() && records.readRecord(cell, 2) != 0;
+  }
+
+  @Override
+  public List<Treasure> getTreasures() {
+    return new ItemList<>(Treasure.values(), 2, TREASURE_BITS);
+  }
+
+  @Override
+  public boolean addTreasure(Treasure treasure) {
+    if (treasure == null) {
+      throw new IllegalArgumentException("Invalid treasure!");
+    }
+    return !isTunnel() && getTreasures().add(treasure);
+  }
+
+  @Override
+  public boolean hasMonster() {
+    return !isTunnel() && (records.readRecord(cell, 1) & 0x3) != 0;
+  }
+
+  @Override
+  public boolean addMonster(Monster monster) {
+    if (monster == null) {
+      throw new IllegalArgumentException("Invalid monster!");
+    }
+    if (isTunnel()) {
+      return false;
+    }
+    records.writeRecord(cell, 1, (records.readRecord(cell, 1) & ~0x1F)
+            | (monster.ordinal() + 1) | (monster.getHealthPoints() << 2));
+    return true;
+  }
+
+  @Override
+  public Monster getMonster() {
+    int monster = records.readRecord(cell, 1) & 0x3;
+    return isTunnel() || monster == 0 ? null : Monster.values()[monster - 1];
+  }
+
+  @Override
+  public void removeMonster() {
+    records.writeRecord(cell, 1, records.readRecord(cell, 1) & ~0x1F);
+  }
+
+  @Override
+  public boolean hasMovingMonster() {
+    return (records.readRecord(cell, 1) & 0x60) != 0;
+  }
+
+  @Override
+  public boolean addMovingMonster(Monster monster) {
+    if (monster == null) {
+      throw new IllegalArgumentException("Invalid monster!");
+    }
+    records.writeRecord(cell, 1,
+            (records.readRecord(cell, 1) & ~0x60) | ((monster.ordinal() + 1) << 5));
+    return true;
+  }
+
+  @Override
+  public Monster getMovingMonster() {
+    int monster = (records.readRecord(cell, 1) >> 5) & 0x3;
+    return monster == 0 ? null : Monster.values()[monster - 1];
+  }
+
+  @Override
+  public void removeMovingMonster() {
+    records.writeRecord(cell, 1, records.readRecord(cell, 1) & ~0x60);
+  }
+
+  @Override
+  public int getMHealth() {
+    return (records.readRecord(cell, 1) >> 2) & 0x7;
+  }
+
+  @Override
+  public int getMmHealth() {
+    Monster monster = getMovingMonster();
+    return monster == null ? 0 : monster.getHealthPoints();
+  }
+
+  @Override
+  public void hit(int hitPoints) {
+    int health = Math.max(getMHealth() - hitPoints, 0);
+    records.writeRecord(cell, 1, (records.readRecord(cell, 1) & ~0x1C) | (health << 2));
+  }
+
+  @Override
+  public boolean hasWeapon() {
+    return !isTunnel() && records.readRecord(cell, 3) != 0;
+  }
+
+  @Override
+  public List<Weapon> getWeapons() {
+    return new ItemList<>(Weapon.values(), 3, WEAPON_BITS);
+  }
+
+  @Override
+  public boolean addWeapon(Weapon weapon) {
+    if (weapon == null) {
+      throw new IllegalArgumentException("Invalid weapon!");
+    }
+    return !isTunnel() && getWeapons().add(weapon);
+  }
+
+  @Override
+  public List<Action> getValidActions() {
+    return records.getValidActions(cell);
+  }
+
+  @Override
+  public int getMask() {
+    return records.getMask(cell);
+  }
+
+  @Override
+  public Position getNeighbour(Direction direction) {
+    if (direction == null) {
+      throw new IllegalArgumentException("Invalid direction!");
+    }
+    int next = records.getOpenNeighbour(cell, direction);
+    return next < 0 ? null : records.getPosition(next);
+  }
+
+  @Override
+  public boolean hasPit() {
+    return !isTunnel() && (records.readRecord(cell, 0) & PIT) != 0;
+  }
+
+  @Override
+  public boolean addPit(Pit pit) {
+    if (pit == null) {
+      throw new IllegalArgumentException("Invalid pit!");
+    }
+    records.writeRecord(cell, 0, records.readRecord(cell, 0) | PIT);
+    return true;
+  }
+
+  @Override
+  public boolean hasThief() {
+    return (records.readRecord(cell, 0) & THIEF) != 0;
+  }
+
+  @Override
+  public boolean addThief(Thief thief) {
+    if (thief == null) {
+      throw new IllegalArgumentException("Invalid pit!");
+    }
+    records.writeRecord(cell, 0, records.readRecord(cell, 0) | THIEF);
+    return true;
+  }
+
+  @Override
+  public Pit getPit() {
+    return (records.readRecord(cell, 0) & PIT) != 0 ? Pit.DEEP_PIT : null;
+  }
+
+  @Override
+  public Thief getThief() {
+    return hasThief() ? Thief.TREASURE_THIEF : null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Location)) {
+      return false;
+    }
+    Location location = (Location) o;
+    return Objects.equals(getPosition(), location.getPosition());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getPosition());
+  }
+
+  @Override
+  public String toString() {
+    return isTunnel() ? "Tunnel" : "Cave";
+  }
+
+  /**
+   * Live view of the items of one kind in the record, ordered by kind. Adding
+   * and removing items updates the counts in the record.
+   */
+  private class ItemList<E extends Enum<E>> extends AbstractList<E> {
+
+    private final E[] values;
+    private final int offset;
+    private final int bits;
+
+    ItemList(E[] values, int offset, int bits) {
+      this.values = values;
+      this.offset = offset;
+      this.bits = bits;
+    }
+
+    @Override
+    public E get(int index) {
+      int counts = records.readRecord(cell, offset);
+      for (int ordinal = 0, seen = 0; ordinal < values.length; ordinal++) {
+        seen += getCount(counts, ordinal, bits);
+        if (index < seen) {
+          return values[ordinal];
+        }
+      }
+      throw new IndexOutOfBoundsException("Invalid index!");
+    }
+
+    @Override
+    public int size() {
+      int counts = records.readRecord(cell, offset);
+      int size = 0;
+      for (int ordinal = 0; ordinal < values.length; ordinal++) {
+        size += getCount(counts, ordinal, bits);
+      }
+      return size;
+    }
+
+    @Override
+    public void add(int index, E element) {
+      if (!add(element)) {
+        throw new IllegalStateException("Location is full!");
+      }
+    }
+
+    @Override
+    public boolean add(E element) {
+      int counts = records.readRecord(cell, offset);
+      int count = getCount(counts, element.ordinal(), bits);
+      if (count == (1 << bits) - 1) {
+        return false;
+      }
+      records.writeRecord(cell, offset, setCount(counts, element.ordinal(), bits, count + 1));
+      modCount++;
+      return true;
+    }
+
+    @Override
+    public E remove(int index) {
+      E element = get(index);
+      int counts = records.readRecord(cell, offset);
+      int count = getCount(counts, element.ordinal(), bits);
+      records.writeRecord(cell, offset, setCount(counts, element.ordinal(), bits, count - 1));
+      modCount++;
+      return element;
+    }
+  }
+
+  private static int getCount(int counts, int ordinal, int bits) {
+    return (counts >>> (ordinal * bits)) & ((1 << bits) - 1);
+  }
+
+  private static int setCount(int counts, int ordinal, int bits, int count) {
+    int shift = ordinal * bits;
+    return (counts & ~(((1 << bits) - 1) << shift)) | (count << shift);
+  }
+}
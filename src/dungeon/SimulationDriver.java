@@ -0,0 +1,144 @@
+package dungeon;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many independent headless games in parallel on every core and reports the
+ * throughput. Each game is built from its own seed and played by a strategy, by default
+ * one that picks up everything it finds, with the player respawning while it has
+ * health, so a run can be replayed exactly by passing the same seed.
+ */
+public class SimulationDriver {
+
+  private static final int DEFAULT_GAMES = 10000;
+  private static final int TURNS_PER_CELL = 50;
+
+  private final DungeonSettings settings;
+  private final Strategy strategy;
+  private final int games;
+  private final long seed;
+  private final LongAdder wins = new LongAdder();
+  private final LongAdder losses = new LongAdder();
+  private final LongAdder unfinished = new LongAdder();
+  private final LongAdder deaths = new LongAdder();
+  private final LongAdder turns = new LongAdder();
+
+  /**
+   * Constructor to initialize a run of the passed number of default games, played by
+   * {@link BotStrategy#TREASURE_GREEDY}.
+   *
+   * @param games number of games
+   * @param seed seed of the first game; game i uses seed + i
+   */
+  public SimulationDriver(int games, long seed) {
+    this(DungeonSettings.DEFAULT, BotStrategy.TREASURE_GREEDY, games, seed);
+  }
+
+  /**
+   * Constructor to initialize a run of the passed number of games.
+   *
+   * @param settings settings of every dungeon
+   * @param strategy strategy that plays every game
+   * @param games number of games
+   * @param seed seed of the first game; game i uses seed + i
+   */
+  public SimulationDriver(DungeonSettings settings, Strategy strategy, int games, long seed) {
+    if (settings == null) {
+      throw new IllegalArgumentException("Invalid settings!");
+    }
+    if (strategy == null) {
+      throw new IllegalArgumentException("Invalid strategy!");
+    }
+    if (games < 1) {
+      throw new IllegalArgumentException("Invalid number of games!");
+    }
+    this.settings = settings;
+    this.strategy = strategy;
+    this.games = games;
+    this.seed = seed;
+  }
+
+  /**
+   * Plays every game and returns the number of games played per second.
+   *
+   * @return games per second
+   */
+  public double run() {
+    long begin = System.nanoTime();
+    IntStream.range(0, games).parallel().forEach(i -> play(seed + i));
+    return games / ((System.nanoTime() - begin) / 1e9);
+  }
+
+  private void play(long gameSeed) {
+    GameEngine engine = play(settings, strategy, gameSeed, outcome -> deaths.increment());
+    turns.add(engine.getTurns());
+    if (engine.isWon()) {
+      wins.increment();
+    } else if (engine.isFinished()) {
+      losses.increment();
+    } else {
+      unfinished.increment();
+    }
+  }
+
+  /**
+   * Plays one game of the passed settings, generated from the passed seed, with the
+   * passed strategy. After every death the player respawns while it has health, and
+   * games that go on for {@value #TURNS_PER_CELL} turns per cell are cut off. The
+   * strategy draws from a random source derived from the same seed, so the same seed
+   * always plays the same game.
+   *
+   * @param settings settings of the dungeon
+   * @param strategy strategy that plays the game
+   * @param gameSeed seed of the game
+   * @param onDeath called with the outcome of every death
+   * @return engine of the game played
+   */
+  static GameEngine play(DungeonSettings settings, Strategy strategy, long gameSeed,
+                         Consumer<Outcome> onDeath) {
+    Model model = settings.createDungeon(gameSeed);
+    GameEngine engine = new GameEngine(model);
+    RandomNetwork random = new RandomNetwork(~gameSeed);
+    int maxTurns = TURNS_PER_CELL * model.getRows() * model.getColumns();
+    while (!engine.isFinished() && engine.getTurns() < maxTurns) {
+      Outcome outcome = engine.apply(strategy.nextCommand(engine, random));
+      if (outcome.isDeath()) {
+        onDeath.accept(outcome);
+        engine.respawn();
+      }
+    }
+    return engine;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Games: %d, won: %d, lost: %d, unfinished: %d, deaths: %d,"
+                    + " average turns: %.1f",
+            games, wins.sum(), losses.sum(), unfinished.sum(), deaths.sum(),
+            turns.sum() / (double) games);
+  }
+
+  /**
+   * Runs the simulation from the command line.
+   *
+   * @param args optional number of games, seed and name of a {@link BotStrategy}
+   */
+  public static void main(String[] args) {
+    try {
+      int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+      long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+      Strategy strategy = args.length > 2 ? BotStrategy.valueOf(args[2])
+              : BotStrategy.TREASURE_GREEDY;
+      SimulationDriver driver = new SimulationDriver(DungeonSettings.DEFAULT, strategy,
+              games, seed);
+      double gamesPerSecond = driver.run();
+      System.out.println(driver);
+      System.out.printf("Cores: %d, games/second: %.1f%n",
+              Runtime.getRuntime().availableProcessors(), gamesPerSecond);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid argument!");
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package dungeon;
+
+import java.util.function.IntPredicate;
+
+/**
+ * The smells around every cell: the number of Otyughs exactly one and exactly two moves
+ * away, and the number of pits one move away. {@link PrecomputedSmellField} keeps them
+ * for every cell, and {@link OnDemandSmellField} counts them when they are checked for
+ * worlds too large to scan up front. Either way, every smell check takes constant time.
+ */
+interface SmellField {
+
+  /**
+   * Adds the smell of an Otyugh newly placed in the passed cell.
+   *
+   * @param cell packed cell id
+   */
+  void addMonster(int cell);
+
+  /**
+   * Adds the smell of a pit newly placed in the passed cell.
+   *
+   * @param cell packed cell id
+   */
+  void addPit(int cell);
+
+  /**
+   * Removes the smell of the Otyugh slain at the passed position.
+   *
+   * @param position position of the monster
+   */
+  void removeMonster(Position position);
+
+  /**
+   * Returns whether it smells less pungent at the passed position,
+   * that is a single Otyugh two moves away and none closer.
+   *
+   * @param position position
+   * @return true, if it smells less pungent, else false
+   */
+  boolean isSmellingLessPungent(Position position);
+
+  /**
+   * Returns whether it smells more pungent at the passed position, that is
+   * an Otyugh one move away or several Otyughs within two moves.
+   *
+   * @param position position
+   * @return true, if it smells more pungent, else false
+   */
+  boolean isSmellingMorePungent(Position position);
+
+  /**
+   * Returns whether a pit is one move away from the passed position.
+   *
+   * @param position position
+   * @return true, if it smells of petrichor, else false
+   */
+  boolean isSmellingPetrichor(Position position);
+
+  /**
+   * Collects the distinct cells one move away from the passed cell.
+   *
+   * @param topology topology of the maze
+   * @param cell packed cell id
+   * @param near receives the cells, room for four
+   * @return number of cells collected
+   */
+  static int collectNear(Topology topology, int cell, int[] near) {
+    int total = 0;
+    int mask = topology.getMask(cell);
+    for (Direction direction : Direction.values()) {
+      if ((mask & direction.getMask()) != 0) {
+        int next = topology.getNeighbour(cell, direction);
+        if (next != cell && !contains(near, total, next)) {
+          near[total++] = next;
+        }
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Collects the distinct cells exactly two moves away from the passed cell.
+   *
+   * @param topology topology of the maze
+   * @param cell packed cell id
+   * @param near cells one move away, as collected by {@link #collectNear}
+   * @param totalNear number of cells one move away
+   * @param far receives the cells, room for twelve
+   * @return number of cells collected
+   */
+  static int collectFar(Topology topology, int cell, int[] near, int totalNear, int[] far) {
+    int totalFar = 0;
+    for (int i = 0; i < totalNear; i++) {
+      int mask = topology.getMask(near[i]);
+      for (Direction direction : Direction.values()) {
+        if ((mask & direction.getMask()) != 0) {
+          int next = topology.getNeighbour(near[i], direction);
+          if (next != cell && !contains(near, totalNear, next) && !contains(far, totalFar, next)) {
+            far[totalFar++] = next;
+          }
+        }
+      }
+    }
+    return totalFar;
+  }
+
+  /**
+   * Returns the number of the passed cells that pass the filter.
+   *
+   * @param cells packed cell ids
+   * @param length number of cells to look at
+   * @param predicate filter over packed cell ids
+   * @return number of matching cells
+   */
+  static int count(int[] cells, int length, IntPredicate predicate) {
+    int total = 0;
+    for (int i = 0; i < length; i++) {
+      if (predicate.test(cells[i])) {
+        total++;
+      }
+    }
+    return total;
+  }
+
+  private static boolean contains(int[] cells, int length, int cell) {
+    for (int i = 0; i < length; i++) {
+      if (cells[i] == cell) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
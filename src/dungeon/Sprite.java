@@ -0,0 +1,52 @@
+package dungeon;
+
+/**
+ * Enum for all the images the graphical view draws, with the file each is read from.
+ */
+enum Sprite {
+  CELL_N("./res/img/bw-cells/N.png"),
+  CELL_E("./res/img/bw-cells/E.png"),
+  CELL_S("./res/img/bw-cells/S.png"),
+  CELL_W("./res/img/bw-cells/W.png"),
+  CELL_NE("./res/img/bw-cells/NE.png"),
+  CELL_SE("./res/img/bw-cells/SE.png"),
+  CELL_EW("./res/img/bw-cells/EW.png"),
+  CELL_NS("./res/img/bw-cells/NS.png"),
+  CELL_NW("./res/img/bw-cells/NW.png"),
+  CELL_SW("./res/img/bw-cells/SW.png"),
+  CELL_NSE("./res/img/bw-cells/NSE.png"),
+  CELL_NEW("./res/img/bw-cells/NEW.png"),
+  CELL_SEW("./res/img/bw-cells/SEW.png"),
+  CELL_NSW("./res/img/bw-cells/NSW.png"),
+  CELL_NSEW("./res/img/bw-cells/NSEW.png"),
+  PLAYER("./res/img/player.png"),
+  VALID_VISITED("./res/img/valid_visited.png"),
+  VALID_UNVISITED("./res/img/valid_unvisited.png"),
+  PETRICHOR("./res/img/petrichor.png"),
+  LESS_STENCH("./res/img/stench01.png"),
+  MORE_STENCH("./res/img/stench02.png"),
+  PIT("./res/img/pit.png"),
+  OTYUGH("./res/img/otyugh.png"),
+  THIEF("./res/img/thief.png"),
+  BEHOLDER("./res/img/beholder.png"),
+  D_PAD("./res/img/d_pad.png"),
+  HEALTH("./res/img/health.png"),
+  RUBY("./res/img/ruby.png"),
+  SAPPHIRE("./res/img/sapphire.png"),
+  DIAMOND("./res/img/diamond.png"),
+  WHITE_ARROW("./res/img/arrow-white.png"),
+  BLACK_ARROW("./res/img/arrow-black.png"),
+  BLOOD("./res/img/blood.png"),
+  BACKGROUND("./res/img/background.png"),
+  BLANK("./res/img/blank.png");
+
+  private final String path;
+
+  Sprite(String path) {
+    this.path = path;
+  }
+
+  String getPath() {
+    return path;
+  }
+}
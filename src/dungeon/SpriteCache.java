@@ -0,0 +1,137 @@
+package dungeon;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+/**
+ * Decoded images of every sprite, so painting does no file I/O and no PNG decoding.
+ * Each sprite is read once and copied into an image compatible with the screen, and
+ * the scaled sizes asked for most recently are rendered once and kept alongside it. A
+ * sprite that cannot be read fails the load, so missing assets stop the game at startup
+ * instead of being drawn blank.
+ */
+final class SpriteCache {
+
+  private static final Map<Sprite, BufferedImage> images = new EnumMap<>(Sprite.class);
+  static final int MAX_SCALED_IMAGES = 64;
+
+  private static final Map<Long, BufferedImage> scaledImages =
+          new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+              return size() > MAX_SCALED_IMAGES;
+            }
+          };
+
+  private SpriteCache() {
+  }
+
+  /**
+   * Reads every sprite up front, so that the first repaint does not stall on disk.
+   *
+   * @throws UncheckedIOException if a sprite cannot be read
+   */
+  static void loadAll() {
+    for (Sprite sprite : Sprite.values()) {
+      getImage(sprite);
+    }
+  }
+
+  /**
+   * Returns the decoded image of the passed sprite at its own size.
+   *
+   * @param sprite sprite
+   * @return image
+   * @throws UncheckedIOException if the sprite cannot be read
+   */
+  static synchronized BufferedImage getImage(Sprite sprite) {
+    if (sprite == null) {
+      throw new IllegalArgumentException("Invalid sprite!");
+    }
+    BufferedImage image = images.get(sprite);
+    if (image == null) {
+      image = load(sprite);
+      images.put(sprite, image);
+    }
+    return image;
+  }
+
+  /**
+   * Returns the decoded image of the passed sprite scaled to the passed size. Only the
+   * {@value #MAX_SCALED_IMAGES} sizes used most recently are kept, so changing sizes
+   * does not grow the cache.
+   *
+   * @param sprite sprite
+   * @param width width in pixels
+   * @param height height in pixels
+   * @return scaled image
+   */
+  static synchronized BufferedImage getScaledImage(Sprite sprite, int width, int height) {
+    if (width <= 0 || width > 0xFFFF || height <= 0 || height > 0xFFFF) {
+      throw new IllegalArgumentException("Invalid size!");
+    }
+    long key = ((long) sprite.ordinal() << 32) | (width << 16) | height;
+    BufferedImage image = scaledImages.get(key);
+    if (image == null) {
+      BufferedImage source = getImage(sprite);
+      image = createImage(width, height);
+      Graphics2D g2d = image.createGraphics();
+      g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+              RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+      g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g2d.drawImage(source, 0, 0, width, height, null);
+      g2d.dispose();
+      scaledImages.put(key, image);
+    }
+    return image;
+  }
+
+  private static BufferedImage load(Sprite sprite) {
+    BufferedImage source;
+    try {
+      source = ImageIO.read(new File(sprite.getPath()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read sprite " + sprite.getPath() + "!", e);
+    }
+    if (source == null) {
+      throw new UncheckedIOException(new IOException("Unknown format of sprite "
+              + sprite.getPath() + "!"));
+    }
+    BufferedImage image = createImage(source.getWidth(), source.getHeight());
+    Graphics2D g2d = image.createGraphics();
+    g2d.drawImage(source, 0, 0, null);
+    g2d.dispose();
+    return image;
+  }
+
+  static synchronized int getScaledImageCount() {
+    return scaledImages.size();
+  }
+
+  /**
+   * Returns a new transparent image in the pixel layout of the screen.
+   *
+   * @param width width in pixels
+   * @param height height in pixels
+   * @return image
+   */
+  static BufferedImage createImage(int width, int height) {
+    if (GraphicsEnvironment.isHeadless()) {
+      return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+    GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+            .getDefaultScreenDevice().getDefaultConfiguration();
+    return configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+  }
+}
@@ -0,0 +1,151 @@
+package dungeon;
+
+import java.util.BitSet;
+
+/**
+ * Selects a start and an end cave that are at least a minimum number of moves apart.
+ * The distance index of the maze yields every cave far enough from a random cave, and
+ * the end is sampled directly from that set. Only if the chosen cave has no such
+ * partner is another cave tried, so selection never fails while a legal pair exists.
+ */
+class StartEndSelector {
+
+  private static final int MAX_SAMPLES = 64;
+
+  private final Topology topology;
+  private final RandomNetwork random;
+
+  StartEndSelector(Topology topology, RandomNetwork random) {
+    if (topology == null) {
+      throw new IllegalArgumentException("Invalid topology!");
+    }
+    if (random == null) {
+      throw new IllegalArgumentException("Invalid random!");
+    }
+    this.topology = topology;
+    this.random = random;
+  }
+
+  /**
+   * Returns the packed ids of a start and an end cave at least the passed
+   * number of moves apart.
+   *
+   * @param minDistance minimum number of moves
+   * @return two value array of start and end cells
+   */
+  int[] select(int minDistance) {
+    int cells = topology.getRow() * topology.getCol();
+    int[] caves = new int[cells];
+    int totalCaves = 0;
+    for (int cell = 0; cell < cells; cell++) {
+      if (Integer.bitCount(topology.getMask(cell)) != 2) {
+        caves[totalCaves++] = cell;
+      }
+    }
+    DistanceIndex index = topology.getDistanceIndex();
+    int[] candidates = new int[totalCaves];
+    // Sources are drawn without replacement by a lazy Fisher-Yates shuffle
+    for (int i = 0; i < totalCaves; i++) {
+      int j = i + random.nextInt(totalCaves - i);
+      int source = caves[j];
+      caves[j] = caves[i];
+      caves[i] = source;
+      int found = 0;
+      for (int k = 0; k < totalCaves; k++) {
+        // Distances are looked up towards the source, which larger grids keep as one row
+        if (index.getDistance(caves[k], source) >= minDistance) {
+          candidates[found++] = caves[k];
+        }
+      }
+      if (found > 0) {
+        int other = candidates[random.nextInt(found)];
+        return random.nextInt(2) == 0 ? new int[]{source, other} : new int[]{other, source};
+      }
+    }
+    throw new IllegalStateException("Start end make failed!");
+  }
+
+  /**
+   * Returns the packed ids of a start and an end cave at least the passed number of
+   * moves apart like {@link #select(int)}, but drawn at random instead of from a
+   * search of the whole grid. Only the few cells closer than the minimum to the
+   * start are looked at, in a window around it, so no memory per cell is needed.
+   * Grids where sampling keeps failing, which only small ones do, fall back to
+   * {@link #select(int)}.
+   *
+   * @param minDistance minimum number of moves
+   * @return two value array of start and end cells
+   */
+  int[] sample(int minDistance) {
+    int cells = topology.getRow() * topology.getCol();
+    for (int i = 0; i < MAX_SAMPLES; i++) {
+      int source = random.nextInt(cells);
+      if (!isCave(source)) {
+        continue;
+      }
+      int moves = minDistance - 1;
+      BitSet near = getCellsWithin(source, moves);
+      for (int j = 0; j < MAX_SAMPLES; j++) {
+        int other = random.nextInt(cells);
+        int index = getWindowIndex(source, other, moves);
+        if (isCave(other) && (index < 0 || !near.get(index))) {
+          return random.nextInt(2) == 0 ? new int[]{source, other} : new int[]{other, source};
+        }
+      }
+    }
+    return select(minDistance);
+  }
+
+  private boolean isCave(int cell) {
+    return Integer.bitCount(topology.getMask(cell)) != 2;
+  }
+
+  private BitSet getCellsWithin(int source, int moves) {
+    // Cells at most the passed moves away fit in a window of 2 * moves + 1 cells a side
+    // centred on the source, so the search only needs a bit and a queue entry for each
+    // cell of the window
+    int side = 2 * moves + 1;
+    BitSet seen = new BitSet(side * side);
+    int[] queue = new int[side * side];
+    int head = 0;
+    int tail = 0;
+    seen.set(getWindowIndex(source, source, moves));
+    queue[tail++] = source;
+    for (int i = 0; i < moves && head < tail; i++) {
+      int levelEnd = tail;
+      while (head < levelEnd) {
+        int cell = queue[head++];
+        for (Direction direction : Direction.values()) {
+          int next = topology.getOpenNeighbour(cell, direction);
+          if (next >= 0) {
+            int index = getWindowIndex(source, next, moves);
+            if (!seen.get(index)) {
+              seen.set(index);
+              queue[tail++] = next;
+            }
+          }
+        }
+      }
+    }
+    return seen;
+  }
+
+  private int getWindowIndex(int source, int cell, int moves) {
+    // Offsets are taken around the grid and centred on the source, so each cell has
+    // one index and cells further than the window reaches have none
+    int row = topology.getRow();
+    int col = topology.getCol();
+    int dx = Math.floorMod(cell / col - source / col, row);
+    int dy = Math.floorMod(cell % col - source % col, col);
+    if (dx > moves) {
+      dx -= row;
+    }
+    if (dy > moves) {
+      dy -= col;
+    }
+    if (dx < -moves || dy < -moves) {
+      return -1;
+    }
+    return (dx + moves) * (2 * moves + 1) + dy + moves;
+  }
+}
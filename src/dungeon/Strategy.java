@@ -0,0 +1,18 @@
+package dungeon;
+
+/**
+ * A way of playing the game without a human: given the engine of a game in progress,
+ * a strategy chooses the next command. Strategies may be shared by many games played
+ * at the same time, so any state must be kept in the game or the random source.
+ */
+public interface Strategy {
+
+  /**
+   * Returns the next command to apply to the passed game.
+   *
+   * @param engine engine of the game in progress
+   * @param random random source of this game's player
+   * @return next command
+   */
+  Command nextCommand(GameEngine engine, RandomNetwork random);
+}
@@ -0,0 +1,60 @@
+package dungeon;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * An item placer for grids too large to collect their cells in an array. Placing
+ * takes two passes over the grid, one counting the eligible cells and one choosing
+ * among them by selection sampling, so it needs no memory per cell and places
+ * the same counts as {@link ItemPlacer}, though not in the same cells.
+ */
+class StreamingItemPlacer extends ItemPlacer {
+
+  StreamingItemPlacer(Topology topology, RandomNetwork random) {
+    super(topology, random);
+  }
+
+  /**
+   * {@inheritDoc} The cells are passed to the action in the order of the grid.
+   */
+  @Override
+  int place(boolean isCaveOnly, IntPredicate isEligible, int count, boolean isRepeating,
+            IntConsumer action) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Invalid count!");
+    }
+    Topology topology = getTopology();
+    int cells = topology.getRow() * topology.getCol();
+    int eligible = 0;
+    for (int cell = 0; cell < cells; cell++) {
+      if (isPlaceable(cell, isCaveOnly, isEligible)) {
+        eligible++;
+      }
+    }
+    if (eligible == 0) {
+      return 0;
+    }
+    int total = isRepeating ? count : Math.min(count, eligible);
+    // Every eligible cell gets an equal share, and the rest go one each to cells chosen
+    // with the odds of the cells still needed over the cells still to come
+    int share = total / eligible;
+    int needed = total % eligible;
+    int remaining = eligible;
+    for (int cell = 0; cell < cells && remaining > 0; cell++) {
+      if (!isPlaceable(cell, isCaveOnly, isEligible)) {
+        continue;
+      }
+      int copies = share;
+      if (needed > 0 && getRandom().nextInt(remaining) < needed) {
+        copies++;
+        needed--;
+      }
+      remaining--;
+      for (int i = 0; i < copies; i++) {
+        action.accept(cell);
+      }
+    }
+    return total;
+  }
+}
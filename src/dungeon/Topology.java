@@ -0,0 +1,137 @@
+package dungeon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The topology of a generated maze, seen as a mask of open directions per cell.
+ * Cells are addressed by their packed id (x * col + y) and neighbours are derived
+ * arithmetically; an open direction on a border cell always wraps around the grid.
+ */
+interface Topology {
+
+  /**
+   * Returns the total number of the rows in the 2-D grid.
+   *
+   * @return total rows
+   */
+  int getRow();
+
+  /**
+   * Returns the total number of columns in the 2-D grid.
+   *
+   * @return total columns
+   */
+  int getCol();
+
+  /**
+   * Returns whether the maze was generated with edges that wrap around the grid.
+   *
+   * @return whether wrapping
+   */
+  boolean isWrapping();
+
+  /**
+   * Returns the open directions of the passed cell as a mask of
+   * {@link Direction#getMask()} values.
+   *
+   * @param cell packed cell id
+   * @return direction mask
+   */
+  int getMask(int cell);
+
+  /**
+   * Returns the position of the passed cell. Grids that keep a {@link PositionTable}
+   * return the same instance for a cell every time, others create a new one.
+   *
+   * @param cell packed cell id
+   * @return position
+   */
+  default Position getPosition(int cell) {
+    return new Position(cell / getCol(), cell % getCol());
+  }
+
+  /**
+   * Returns the packed id of the cell at the passed position.
+   *
+   * @param position position
+   * @return packed cell id
+   */
+  default int getCell(Position position) {
+    if (position == null) {
+      throw new IllegalArgumentException("Invalid position!");
+    }
+    if (position.getX() >= getRow() || position.getY() >= getCol()) {
+      throw new IllegalArgumentException("Invalid position!");
+    }
+    return position.getX() * getCol() + position.getY();
+  }
+
+  /**
+   * Returns the packed id of the cell next to the passed cell in the passed direction.
+   *
+   * @param cell packed cell id
+   * @param direction direction
+   * @return packed neighbour id
+   */
+  default int getNeighbour(int cell, Direction direction) {
+    int row = getRow();
+    int col = getCol();
+    int x = cell / col;
+    int y = cell % col;
+    switch (direction) {
+      case NORTH:
+        return ((x + row - 1) % row) * col + y;
+      case SOUTH:
+        return ((x + 1) % row) * col + y;
+      case EAST:
+        return x * col + (y + 1) % col;
+      case WEST:
+        return x * col + (y + col - 1) % col;
+      default:
+        throw new IllegalStateException("Unexpected direction!");
+    }
+  }
+
+  /**
+   * Returns the packed id of the cell reached by moving out of the passed cell in the
+   * passed direction, or -1 if that direction is closed.
+   *
+   * @param cell packed cell id
+   * @param direction direction
+   * @return packed neighbour id, or -1
+   */
+  default int getOpenNeighbour(int cell, Direction direction) {
+    if ((getMask(cell) & direction.getMask()) == 0) {
+      return -1;
+    }
+    return getNeighbour(cell, direction);
+  }
+
+  /**
+   * Returns the distance index of the maze. Grids keep theirs until the maze is
+   * generated again; this default builds a new one on every call.
+   *
+   * @return distance index
+   */
+  default DistanceIndex getDistanceIndex() {
+    return new DistanceIndex(this);
+  }
+
+  /**
+   * Returns a newly built list of all valid actions out of the passed cell.
+   *
+   * @param cell packed cell id
+   * @return list of valid actions
+   */
+  default List<Action> getValidActions(int cell) {
+    int mask = getMask(cell);
+    List<Action> validActions = new ArrayList<>(4);
+    for (Direction direction : Direction.values()) {
+      if ((mask & direction.getMask()) != 0) {
+        validActions.add(new Action(getPosition(getNeighbour(cell, direction)), direction));
+      }
+    }
+    return validActions;
+  }
+}
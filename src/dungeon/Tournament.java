@@ -0,0 +1,143 @@
+package dungeon;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays the same seeded dungeons with every strategy and totals the results per strategy.
+ * Games are split into fork-join tasks on a pool as wide as the machine, so a tournament
+ * keeps every core busy. Game i of every strategy is generated from seed + i, which makes
+ * the strategies meet identical dungeons and a tournament repeatable.
+ */
+public class Tournament {
+
+  private static final int DEFAULT_GAMES = 1000;
+
+  private final DungeonSettings settings;
+  private final int games;
+  private final long seed;
+  private final int parallelism;
+
+  /**
+   * Constructor to initialize a tournament that uses every available core.
+   *
+   * @param settings settings of every dungeon
+   * @param games number of games per strategy
+   * @param seed seed of the first game
+   */
+  public Tournament(DungeonSettings settings, int games, long seed) {
+    this(settings, games, seed, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructor to initialize a tournament on the passed number of threads.
+   *
+   * @param settings settings of every dungeon
+   * @param games number of games per strategy
+   * @param seed seed of the first game
+   * @param parallelism number of threads
+   */
+  public Tournament(DungeonSettings settings, int games, long seed, int parallelism) {
+    if (settings == null) {
+      throw new IllegalArgumentException("Invalid settings!");
+    }
+    if (games < 1) {
+      throw new IllegalArgumentException("Invalid number of games!");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Invalid parallelism!");
+    }
+    this.settings = settings;
+    this.games = games;
+    this.seed = seed;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Plays every game with every passed strategy.
+   *
+   * @param strategies strategies
+   * @return result per strategy, in the order passed
+   */
+  public Map<Strategy, TournamentResult> run(List<? extends Strategy> strategies) {
+    Map<Strategy, TournamentResult> results = new LinkedHashMap<>();
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      for (Strategy strategy : strategies) {
+        results.put(strategy, pool.invoke(new GamesTask(strategy, 0, games)));
+      }
+    } finally {
+      pool.shutdown();
+    }
+    return results;
+  }
+
+  private TournamentResult play(Strategy strategy, long gameSeed, TournamentResult result) {
+    GameEngine engine = SimulationDriver.play(settings, strategy, gameSeed,
+            result::recordDeath);
+    result.recordGame(engine.isWon(), engine.getTurns(),
+            engine.getGameState().getPlayerTreasures().size());
+    return result;
+  }
+
+  private class GamesTask extends RecursiveTask<TournamentResult> {
+
+    private static final long serialVersionUID = 1L;
+    private static final int THRESHOLD = 8;
+
+    private final Strategy strategy;
+    private final int from;
+    private final int to;
+
+    GamesTask(Strategy strategy, int from, int to) {
+      this.strategy = strategy;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected TournamentResult compute() {
+      if (to - from > THRESHOLD) {
+        int mid = (from + to) >>> 1;
+        GamesTask left = new GamesTask(strategy, from, mid);
+        left.fork();
+        TournamentResult right = new GamesTask(strategy, mid, to).compute();
+        return left.join().merge(right);
+      }
+      TournamentResult result = new TournamentResult();
+      for (int i = from; i < to; i++) {
+        play(strategy, seed + i, result);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Runs every built-in strategy on the default dungeon at every difficulty of the game
+   * settings dialog and prints the results.
+   *
+   * @param args optional number of games per strategy and seed
+   */
+  public static void main(String[] args) {
+    try {
+      int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+      long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+      for (int difficulty = 1; difficulty <= 10; difficulty++) {
+        DungeonSettings settings = DungeonSettings.DEFAULT.withDifficulty(difficulty);
+        long begin = System.nanoTime();
+        Map<Strategy, TournamentResult> results = new Tournament(settings, games, seed)
+                .run(Arrays.asList(BotStrategy.values()));
+        System.out.printf("Difficulty %d (%s), %.1f games/second%n", difficulty, settings,
+                games * results.size() / ((System.nanoTime() - begin) / 1e9));
+        results.forEach((strategy, result) ->
+                System.out.printf("  %-24s %s%n", strategy, result));
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid argument!");
+    }
+  }
+}
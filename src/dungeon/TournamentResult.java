@@ -0,0 +1,95 @@
+package dungeon;
+
+/**
+ * Totals of the games a strategy played in a tournament: wins, deaths by cause, turns
+ * taken and treasure held at the end. Results of disjoint sets of games are merged.
+ */
+public final class TournamentResult {
+
+  private int games;
+  private int wins;
+  private int deathsByOtyugh;
+  private int deathsByPit;
+  private int deathsByBeholder;
+  private long turns;
+  private long treasure;
+
+  void recordDeath(Outcome outcome) {
+    switch (outcome) {
+      case EATEN_BY_OTYUGH:
+        deathsByOtyugh++;
+        break;
+      case FELL_INTO_PIT:
+        deathsByPit++;
+        break;
+      case EATEN_BY_BEHOLDER:
+        deathsByBeholder++;
+        break;
+      default:
+        throw new IllegalArgumentException("Not a death!");
+    }
+  }
+
+  void recordGame(boolean isWon, int turns, int treasure) {
+    this.games++;
+    this.wins += isWon ? 1 : 0;
+    this.turns += turns;
+    this.treasure += treasure;
+  }
+
+  TournamentResult merge(TournamentResult other) {
+    games += other.games;
+    wins += other.wins;
+    deathsByOtyugh += other.deathsByOtyugh;
+    deathsByPit += other.deathsByPit;
+    deathsByBeholder += other.deathsByBeholder;
+    turns += other.turns;
+    treasure += other.treasure;
+    return this;
+  }
+
+  public int getGames() {
+    return games;
+  }
+
+  public int getWins() {
+    return wins;
+  }
+
+  /**
+   * Returns the share of games won, from 0 to 1.
+   *
+   * @return win rate
+   */
+  public double getWinRate() {
+    return games == 0 ? 0 : wins / (double) games;
+  }
+
+  public int getDeathsByOtyugh() {
+    return deathsByOtyugh;
+  }
+
+  public int getDeathsByPit() {
+    return deathsByPit;
+  }
+
+  public int getDeathsByBeholder() {
+    return deathsByBeholder;
+  }
+
+  public long getTurns() {
+    return turns;
+  }
+
+  public long getTreasure() {
+    return treasure;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("win %5.1f%%, deaths by Otyugh %d, pit %d, Beholder %d,"
+                    + " average turns %.1f, average treasure %.2f",
+            getWinRate() * 100, deathsByOtyugh, deathsByPit, deathsByBeholder,
+            games == 0 ? 0 : turns / (double) games, games == 0 ? 0 : treasure / (double) games);
+  }
+}
@@ -4,13 +4,9 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GridLayout;
-import java.awt.Image;
 import java.awt.Point;
-import java.io.File;
-import java.io.IOException;
 import java.util.Comparator;
 import java.util.List;
-import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
@@ -32,23 +28,20 @@ class TreasurePanel extends JPanel {
             BorderFactory.createEmptyBorder(3, 3, 3, 3)
     ));
     for (int i = 0; i < 4; i++) {
-      JLabel t = new JLabel(new ImageIcon(new ImageIcon(
-              LiMappings.getLocationImage("Diamond")).getImage()
-              .getScaledInstance(20, 20, Image.SCALE_SMOOTH)));
+      JLabel t = new JLabel(new ImageIcon(
+              SpriteCache.getScaledImage(Sprite.DIAMOND, 20, 20)));
       treasures[i] = t;
       add(t);
     }
     for (int i = 4; i < 8; i++) {
-      JLabel t = new JLabel(new ImageIcon(new ImageIcon(
-              LiMappings.getLocationImage("Ruby")).getImage()
-              .getScaledInstance(20, 25,  Image.SCALE_SMOOTH)));
+      JLabel t = new JLabel(new ImageIcon(
+              SpriteCache.getScaledImage(Sprite.RUBY, 20, 25)));
       treasures[i] = t;
       add(t);
     }
     for (int i = 8; i < 12; i++) {
-      JLabel t = new JLabel(new ImageIcon(new ImageIcon(
-              LiMappings.getLocationImage("Sapphire")).getImage()
-              .getScaledInstance(20, 25,  Image.SCALE_SMOOTH)));
+      JLabel t = new JLabel(new ImageIcon(
+              SpriteCache.getScaledImage(Sprite.SAPPHIRE, 20, 25)));
       treasures[i] = t;
       add(t);
     }
@@ -90,12 +83,7 @@ class TreasurePanel extends JPanel {
   }
 
   private void updateTreasureIcons(Graphics2D g2d, int i) {
-    try {
-      Point p = treasures[i].getLocation();
-      g2d.drawImage(ImageIO.read(new File(LiMappings.getLocationImage("Blank")))
-              .getScaledInstance(23, 29, Image.SCALE_SMOOTH), p.x, p.y, null);
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
+    Point p = treasures[i].getLocation();
+    g2d.drawImage(SpriteCache.getScaledImage(Sprite.BLANK, 23, 29), p.x, p.y, null);
   }
 }
@@ -1,5 +1,7 @@
 package dungeon;
 
+import java.util.Collection;
+
 /**
  * This interface enables to play the game using an interactive graphical user interface (GUI).
  * Provides basic methods like adding and removing listeners, refreshing, etc.
@@ -18,6 +20,14 @@ public interface View {
    */
   void refresh();
 
+  /**
+   * Refresh the view to reflect changes in the game state that are limited to the
+   * passed positions of the dungeon.
+   *
+   * @param changedPositions positions whose drawing may have changed
+   */
+  void refresh(Collection<Position> changedPositions);
+
   /**
    * Make the view visible to start the game session.
    */
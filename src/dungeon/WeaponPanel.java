@@ -4,13 +4,9 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GridLayout;
-import java.awt.Image;
 import java.awt.Point;
-import java.io.File;
-import java.io.IOException;
 import java.util.Comparator;
 import java.util.List;
-import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
@@ -32,9 +28,8 @@ class WeaponPanel extends JPanel {
             BorderFactory.createEmptyBorder(3, 3, 3, 3)
     ));
     for (int i = 0; i < 12; i++) {
-      JLabel w = new JLabel(new ImageIcon(new ImageIcon(
-              LiMappings.getLocationImage("White Arrow")).getImage()
-              .getScaledInstance(25, 25,  Image.SCALE_SMOOTH)));
+      JLabel w = new JLabel(new ImageIcon(
+              SpriteCache.getScaledImage(Sprite.WHITE_ARROW, 25, 25)));
       weapons[i] = w;
       add(w);
     }
@@ -76,12 +71,7 @@ class WeaponPanel extends JPanel {
   }
 
   private void updateWeaponIcons(Graphics2D g2d, int i) {
-    try {
-      Point p = weapons[i].getLocation();
-      g2d.drawImage(ImageIO.read(new File(LiMappings.getLocationImage("Blank")))
-              .getScaledInstance(26, 35, Image.SCALE_SMOOTH), p.x, p.y, null);
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
+    Point p = weapons[i].getLocation();
+    g2d.drawImage(SpriteCache.getScaledImage(Sprite.BLANK, 26, 35), p.x, p.y, null);
   }
 }
@@ -5,11 +5,15 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import dungeon.Dungeon;
+import dungeon.DungeonFile;
 import dungeon.Location;
 import dungeon.Monster;
 import dungeon.Position;
 import dungeon.Treasure;
 import dungeon.Weapon;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -155,10 +159,7 @@ public class DungeonTest {
   @Test
   public void testStartAndEndPositionsPathLengthWrapping() {
     Position[] positions = dungeon.generateStartAndEnd();
-    assertTrue(Math.abs(
-            Math.hypot(
-                    positions[0].getX() - positions[1].getX(),
-                    positions[0].getY() - positions[1].getY())) > 5);
+    assertTrue(dungeon.getGrid().calculatePath(positions[0], positions[1], "bfs").size() >= 5);
   }
 
   /**
@@ -167,10 +168,19 @@ public class DungeonTest {
   @Test
   public void testStartAndEndPositionsPathLengthNonWrapping() {
     Position[] positions = dungeon.generateStartAndEnd();
-    assertTrue(Math.abs(
-            Math.hypot(
-                    positions[0].getX() - positions[1].getX(),
-                    positions[0].getY() - positions[1].getY())) > 5);
+    assertTrue(dungeon.getGrid().calculatePath(positions[0], positions[1], "bfs").size() >= 5);
+  }
+
+  /**
+   * Tests if the start and end position generation is working correctly.
+   */
+  @Test
+  public void testStartAndEndPositionsSmallestDungeon() {
+    for (int i = 0; i < 100; i++) {
+      Dungeon dungeon = new Dungeon(6, 6, 0, false);
+      Position[] positions = dungeon.generateStartAndEnd();
+      assertFalse(dungeon.isIllegalStartAndEnd(positions[0], positions[1]));
+    }
   }
 
   /**
@@ -462,4 +472,26 @@ public class DungeonTest {
     location11.addWeapon(null);
     fail("Exception should have occurred!");
   }
+
+  /**
+   * Tests if saving and loading a dungeon restores the same game.
+   */
+  @Test
+  public void testSaveAndLoad() throws IOException {
+    dungeon = new Dungeon(10, 10, 12, true, 20, 10, 20, 10, 10, 10, 42L);
+    dungeon.getCurrentGameState().movePlayer(dungeon.getValidDirections().get(0));
+    Path path = Files.createTempFile("dungeon", ".sav");
+    try {
+      DungeonFile.save(dungeon, path);
+      Dungeon loaded = DungeonFile.load(path);
+      assertEquals(dungeon.toString(), loaded.toString());
+      assertEquals(dungeon.getStart(), loaded.getStart());
+      assertEquals(dungeon.getEnd(), loaded.getEnd());
+      assertEquals(dungeon.getPlayerPosition(), loaded.getPlayerPosition());
+      assertEquals(dungeon.getPlayerWeapon(), loaded.getPlayerWeapon());
+      assertEquals(dungeon.getVisitedPositions(), loaded.getVisitedPositions());
+    } finally {
+      Files.delete(path);
+    }
+  }
 }
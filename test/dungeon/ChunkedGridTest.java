@@ -0,0 +1,206 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for worlds whose tiles are generated on demand and swapped out.
+ */
+public class ChunkedGridTest {
+
+  private static final DungeonSettings settings =
+          new DungeonSettings(32, 32, 10, false, 20, 10, 20, 10, 5, 5);
+  private static final DungeonSettings worldSettings =
+          new DungeonSettings(128, 128, 10, false, 20, 10, 20, 10, 5, 5);
+
+  private Path swapDirectory;
+
+  /**
+   * Sets up an empty swap directory.
+   */
+  @Before
+  public void setUp() throws IOException {
+    swapDirectory = Files.createTempDirectory("swap");
+  }
+
+  /**
+   * Deletes the swap directory.
+   */
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(swapDirectory)) {
+      paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  /**
+   * Tests that a changed tile keeps its change after being evicted and read back.
+   */
+  @Test
+  public void testEvictedChangeSurvives() {
+    ChunkedGrid world = createWorld();
+    int cell = findCellWithoutThief(world, 0);
+    world.getLocation(cell / 32, cell % 32).addThief(Thief.TREASURE_THIEF);
+    evictFirstTile(world);
+    assertEquals(1, countFiles());
+    assertTrue(world.getLocation(cell / 32, cell % 32).hasThief());
+    world.close();
+  }
+
+  /**
+   * Tests that worlds sharing a swap directory do not read each other's tiles, and
+   * that closing a world deletes what it swapped out.
+   */
+  @Test
+  public void testWorldsShareSwapDirectory() {
+    ChunkedGrid first = createWorld();
+    ChunkedGrid second = createWorld();
+    int firstCell = findCellWithoutThief(first, 0);
+    int secondCell = findCellWithoutThief(second, firstCell + 1);
+    first.getLocation(firstCell / 32, firstCell % 32).addThief(Thief.TREASURE_THIEF);
+    second.getLocation(secondCell / 32, secondCell % 32).addThief(Thief.TREASURE_THIEF);
+    evictFirstTile(first);
+    evictFirstTile(second);
+    assertEquals(2, countFiles());
+    assertTrue(first.getLocation(firstCell / 32, firstCell % 32).hasThief());
+    assertFalse(first.getLocation(secondCell / 32, secondCell % 32).hasThief());
+    assertTrue(second.getLocation(secondCell / 32, secondCell % 32).hasThief());
+    assertFalse(second.getLocation(firstCell / 32, firstCell % 32).hasThief());
+    first.close();
+    second.close();
+    assertEquals(0, countFiles());
+  }
+
+  /**
+   * Tests that the player moves across the border of two tiles and back, and that the
+   * distance and next hop across it are found without a distance index.
+   */
+  @Test
+  public void testMoveAcrossTileBorder() {
+    Dungeon dungeon = worldSettings.createChunkedDungeon(swapDirectory, 0L);
+    Grid world = dungeon.getGrid();
+    Position west = findEastOpening(world);
+    Position east = world.getPosition(west.getX(), ChunkedGrid.TILE_SIZE);
+    GameState state = dungeon.getCurrentGameState();
+    state.getPlayer().move(west);
+    state.movePlayer(Direction.EAST);
+    assertEquals(east, state.getPlayer().getPosition());
+    state.movePlayer(Direction.WEST);
+    assertEquals(west, state.getPlayer().getPosition());
+    assertEquals(1, world.getDistance(west, east));
+    assertEquals(Direction.EAST, world.getNextHop(west, east));
+    assertEquals(Direction.WEST, world.getNextHop(east, west));
+    assertNull(world.getNextHop(west, west));
+    ((ChunkedGrid) world).close();
+  }
+
+  /**
+   * Tests that an Otyugh is smelled and shot from across the border of two tiles.
+   */
+  @Test
+  public void testSmellAndShootAcrossTileBorder() {
+    Dungeon dungeon = worldSettings.createChunkedDungeon(swapDirectory, 0L);
+    Grid world = dungeon.getGrid();
+    Position west = findEastOpening(world);
+    Position east = world.getPosition(west.getX(), ChunkedGrid.TILE_SIZE);
+    for (int x = Math.max(west.getX() - 2, 0); x <= west.getX() + 2; x++) {
+      for (int y = ChunkedGrid.TILE_SIZE - 3; y <= ChunkedGrid.TILE_SIZE + 2; y++) {
+        world.getLocation(x, y).removeMonster();
+      }
+    }
+    GameState state = dungeon.getCurrentGameState();
+    state.getPlayer().move(west);
+    assertFalse(state.isSmellingMorePungentNearby());
+    assertFalse(state.isSmellingLessPungentNearby());
+    assertTrue(world.getLocation(east).addMonster(Monster.OTYUGH));
+    assertTrue(state.isSmellingMorePungentNearby());
+    assertEquals(Outcome.WOUNDED, state.fire(Weapon.CROOKED_ARROW, 1, Direction.EAST));
+    assertEquals(Outcome.KILLED, state.fire(Weapon.CROOKED_ARROW, 1, Direction.EAST));
+    assertFalse(world.getLocation(east).hasMonster());
+    assertFalse(state.isSmellingMorePungentNearby());
+    ((ChunkedGrid) world).close();
+  }
+
+  /**
+   * Tests that creating a world of thousands of tiles generates only the start tile.
+   */
+  @Test
+  public void testStartupTouchesFewTiles() {
+    DungeonSettings huge = new DungeonSettings(4096, 4096, 10, true, 20, 10, 20, 10, 5, 5);
+    Dungeon dungeon = huge.createChunkedDungeon(swapDirectory, 1L);
+    ChunkedGrid world = (ChunkedGrid) dungeon.getGrid();
+    assertEquals(1, world.getGeneratedTileCount());
+    dungeon.getCurrentGameState().isSmellingMorePungentNearby();
+    assertTrue(world.getGeneratedTileCount() <= 4);
+    world.close();
+  }
+
+  /**
+   * Tests that a closed world cannot be played.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testClosed() {
+    ChunkedGrid world = createWorld();
+    world.close();
+    world.getMask(0);
+  }
+
+  /**
+   * Tests that a world cannot be copied.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testCopy() {
+    createWorld().copy();
+  }
+
+  private ChunkedGrid createWorld() {
+    return new ChunkedGrid(settings, 8, 2, 5, swapDirectory, new RandomNetwork(6L));
+  }
+
+  private static int findCellWithoutThief(ChunkedGrid world, int from) {
+    // Only cells of the first tile, the top left 8 x 8
+    for (int cell = from; cell < 8 * 32; cell++) {
+      if (cell % 32 < 8 && !world.getLocation(cell / 32, cell % 32).hasThief()) {
+        return cell;
+      }
+    }
+    throw new AssertionError("No cell without a thief in the first tile");
+  }
+
+  private static Position findEastOpening(Grid world) {
+    // The border of the first two tiles opens between two caves for this seed
+    int y = ChunkedGrid.TILE_SIZE - 1;
+    for (int x = 0; x < ChunkedGrid.TILE_SIZE; x++) {
+      if ((world.getMask(x, y) & Direction.EAST.getMask()) != 0) {
+        assertTrue(Integer.bitCount(world.getMask(x, y)) > 2);
+        assertTrue(Integer.bitCount(world.getMask(x, y + 1)) > 2);
+        return world.getPosition(x, y);
+      }
+    }
+    throw new AssertionError("No opening between the first two tiles");
+  }
+
+  private static void evictFirstTile(ChunkedGrid world) {
+    // Two tiles stay resident, so touching two others evicts the first
+    world.getMask(8);
+    world.getMask(16);
+  }
+
+  private long countFiles() {
+    try (Stream<Path> paths = Files.walk(swapDirectory)) {
+      return paths.filter(Files::isRegularFile).count();
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the cells a turn marks as changed.
+ */
+public class CurrentGameStateTest {
+
+  private Dungeon dungeon;
+  private GameState state;
+  private Direction direction;
+  private Position target;
+
+  /**
+   * Sets up a dungeon with an Otyugh next to the player.
+   */
+  @Before
+  public void setUp() {
+    // Find a dungeon where a cave, which an Otyugh can live in, is next to the start
+    for (long seed = 0; target == null; seed++) {
+      dungeon = new Dungeon(8, 8, 10, false, 1, 1, 1, 1, 1, 1, seed);
+      Topology topology = dungeon.getTopology();
+      int start = topology.getCell(dungeon.getPlayerPosition());
+      for (Direction d : Direction.values()) {
+        int next = topology.getOpenNeighbour(start, d);
+        if (next >= 0 && Integer.bitCount(topology.getMask(next)) != 2) {
+          direction = d;
+          target = topology.getPosition(next);
+          break;
+        }
+      }
+    }
+    dungeon.getGrid().getLocation(target).addMonster(Monster.OTYUGH);
+    state = dungeon.getCurrentGameState();
+    state.getPlayer().pickWeapon(Weapon.CROOKED_ARROW);
+    state.drainChangedPositions();
+  }
+
+  /**
+   * Tests that killing an Otyugh repaints the player, whose smell changed.
+   */
+  @Test
+  public void testKillMarksPlayer() {
+    assertEquals(Outcome.WOUNDED, state.fire(Weapon.CROOKED_ARROW, 1, direction));
+    state.drainChangedPositions();
+    assertEquals(Outcome.KILLED, state.fire(Weapon.CROOKED_ARROW, 1, direction));
+    Set<Position> changed = state.drainChangedPositions();
+    assertTrue(changed.contains(target));
+    assertTrue(changed.contains(dungeon.getPlayerPosition()));
+  }
+
+  /**
+   * Tests that a shot reports whether the arrow hit a wall or the ground.
+   */
+  @Test
+  public void testShotReportsWall() {
+    assertTrue(state.shoot(Weapon.CROOKED_ARROW, 1, direction).toString()
+            .endsWith("the arrow hitting the ground\n"));
+    int mask = dungeon.getGrid().getMask(target.getX(), target.getY());
+    state.getPlayer().move(target);
+    for (Direction wall : Direction.values()) {
+      if ((mask & wall.getMask()) == 0) {
+        assertTrue(state.shoot(Weapon.CROOKED_ARROW, 1, wall).toString()
+                .endsWith("the arrow hitting a wall\n"));
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import org.junit.Test;
+
+/**
+ * A JUnit test class that checks the distance index against a plain BFS.
+ */
+public class DistanceIndexTest {
+
+  /**
+   * Tests the dense all-pairs matrix of a wrapping dungeon.
+   */
+  @Test
+  public void testDenseMatchesBfs() {
+    assertMatchesBfs(createGrid(9, 11, 20, true, 1), DistanceIndex.DEFAULT_DENSE_CELLS, 1);
+  }
+
+  /**
+   * Tests the dense all-pairs matrix of a non-wrapping dungeon.
+   */
+  @Test
+  public void testDenseMatchesBfsNonWrapping() {
+    assertMatchesBfs(createGrid(12, 7, 0, false, 2), DistanceIndex.DEFAULT_DENSE_CELLS, 1);
+  }
+
+  /**
+   * Tests the rows computed on demand, with a cache smaller than the number of targets.
+   */
+  @Test
+  public void testOnDemandRowsMatchBfs() {
+    assertMatchesBfs(createGrid(10, 10, 15, true, 3), 0, 3);
+  }
+
+  /**
+   * Tests the position queries of the grid.
+   */
+  @Test
+  public void testGridDistances() {
+    Grid2D grid = createGrid(6, 8, 10, false, 4);
+    Position from = grid.getPosition(0, 0);
+    Position to = grid.getPosition(5, 7);
+    int cells = grid.getRow() * grid.getCol();
+    assertEquals(bfs(grid, grid.getCell(to), cells)[0], grid.getDistance(from, to));
+    assertEquals(0, grid.getDistance(from, from));
+    assertNull(grid.getNextHop(from, from));
+    assertNotNull(grid.getNextHop(from, to));
+  }
+
+  /**
+   * Tests that a heap grid builds its index along with the maze and keeps it until
+   * the maze is generated again.
+   */
+  @Test
+  public void testBuiltWithMaze() {
+    Grid2D grid = createGrid(6, 8, 10, false, 4);
+    DistanceIndex index = grid.getDistanceIndex();
+    assertSame(index, grid.getDistanceIndex());
+    grid.generateMaze(10, false);
+    assertNotSame(index, grid.getDistanceIndex());
+  }
+
+  /**
+   * Tests that start and end checks use distances, for dungeons whose locations are
+   * flyweights too.
+   */
+  @Test
+  public void testIllegalStartAndEnd() {
+    DungeonSettings settings = new DungeonSettings(10, 10, 5, false, 10, 10, 10, 10, 10, 10);
+    for (Dungeon dungeon : new Dungeon[]{settings.createDungeon(7L),
+        settings.createPackedDungeon(7L)}) {
+      Position start = dungeon.getStart();
+      assertTrue(dungeon.getGrid().getDistance(start, dungeon.getEnd()) >= 5);
+      assertFalse(dungeon.isIllegalStartAndEnd(start, dungeon.getEnd()));
+      assertTrue(dungeon.isIllegalStartAndEnd(start, start));
+    }
+  }
+
+  /**
+   * Tests if the DistanceIndex constructor is working correctly.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidCachedRows() {
+    new DistanceIndex(createGrid(4, 4, 0, false, 5), 0, 0);
+  }
+
+  private static Grid2D createGrid(int row, int col, int interconnectivity,
+                                   boolean isWrapping, long seed) {
+    Grid2D grid = new Grid2D(row, col, new RandomNetwork(seed));
+    grid.generateMaze(interconnectivity, isWrapping);
+    return grid;
+  }
+
+  private static void assertMatchesBfs(Topology topology, int maxDenseCells, int cachedRows) {
+    DistanceIndex index = new DistanceIndex(topology, maxDenseCells, cachedRows);
+    int cells = topology.getRow() * topology.getCol();
+    for (int to = 0; to < cells; to++) {
+      int[] expected = bfs(topology, to, cells);
+      for (int from = 0; from < cells; from++) {
+        assertEquals(expected[from], index.getDistance(from, to));
+        Direction hop = index.getNextHop(from, to);
+        if (from == to) {
+          assertNull(hop);
+        } else {
+          int next = topology.getOpenNeighbour(from, hop);
+          assertEquals(expected[from] - 1, expected[next]);
+        }
+      }
+    }
+  }
+
+  private static int[] bfs(Topology topology, int source, int cells) {
+    int[] distances = new int[cells];
+    Arrays.fill(distances, -1);
+    distances[source] = 0;
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(source);
+    while (!queue.isEmpty()) {
+      int cell = queue.poll();
+      for (Direction direction : Direction.values()) {
+        int next = topology.getOpenNeighbour(cell, direction);
+        if (next >= 0 && distances[next] < 0) {
+          distances[next] = distances[cell] + 1;
+          queue.add(next);
+        }
+      }
+    }
+    return distances;
+  }
+}
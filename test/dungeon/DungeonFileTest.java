@@ -0,0 +1,135 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for saving dungeon games to files and loading them back.
+ */
+public class DungeonFileTest {
+
+  private static final Direction[] directions = Direction.values();
+
+  private Path file;
+  private Dungeon dungeon;
+
+  /**
+   * Sets up a wrapping dungeon with every kind of item and monster, Beholders included.
+   */
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile("dungeon", ".bin");
+    dungeon = new Dungeon(10, 12, 20, true, 30, 10, 30, 10, 10, 10, 21L);
+  }
+
+  /**
+   * Deletes the saved file.
+   */
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Tests that a game saved halfway through plays on exactly like the original, so both
+   * randoms and the Beholders are restored.
+   */
+  @Test
+  public void testReplay() throws IOException {
+    GameEngine original = new GameEngine(dungeon);
+    RandomNetwork walker = new RandomNetwork(5L);
+    for (int i = 0; i < 40 && !original.isFinished(); i++) {
+      play(original, nextCommand(walker));
+    }
+    DungeonFile.save(dungeon, file);
+    GameEngine loaded = new GameEngine(DungeonFile.load(file));
+    assertSameState(original, loaded);
+    for (int i = 0; i < 300 && !original.isFinished(); i++) {
+      Command command = nextCommand(walker);
+      assertEquals(play(original, command), play(loaded, command));
+      assertSameState(original, loaded);
+    }
+  }
+
+  /**
+   * Tests that a file cut short anywhere fails with an IOException.
+   */
+  @Test
+  public void testTruncated() throws IOException {
+    DungeonFile.save(dungeon, file);
+    byte[] bytes = Files.readAllBytes(file);
+    for (int length : new int[] {0, 3, 20, 60, bytes.length / 2, bytes.length - 1}) {
+      Files.write(file, Arrays.copyOf(bytes, length));
+      assertLoadFails();
+    }
+  }
+
+  /**
+   * Tests that a corrupt header fails with an IOException, including settings that only
+   * the dungeon itself rejects.
+   */
+  @Test
+  public void testCorruptHeader() throws IOException {
+    DungeonFile.save(dungeon, file);
+    byte[] bytes = Files.readAllBytes(file);
+    byte[] magic = bytes.clone();
+    magic[0] ^= 1;
+    Files.write(file, magic);
+    assertLoadFails();
+    // Rows sit after the magic number and version, and a 2-row dungeon is too small
+    byte[] rows = bytes.clone();
+    ByteBuffer.wrap(rows).putInt(6, 2);
+    Files.write(file, rows);
+    assertLoadFails();
+    // Interconnectivity follows the rows and columns
+    byte[] interconnectivity = bytes.clone();
+    ByteBuffer.wrap(interconnectivity).putInt(14, -1);
+    Files.write(file, interconnectivity);
+    assertLoadFails();
+  }
+
+  private void assertLoadFails() {
+    try {
+      DungeonFile.load(file);
+      fail("Loaded a corrupt dungeon file");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  private static Command nextCommand(RandomNetwork walker) {
+    Direction direction = directions[walker.nextInt(directions.length)];
+    return walker.nextInt(5) == 0 ? Command.shoot(1 + walker.nextInt(3), direction)
+            : Command.move(direction);
+  }
+
+  private static Outcome play(GameEngine engine, Command command) {
+    Outcome outcome = engine.apply(command);
+    if (engine.isDead()) {
+      engine.respawn();
+    }
+    return outcome;
+  }
+
+  private static void assertSameState(GameEngine expected, GameEngine actual) {
+    GameState left = expected.getGameState();
+    GameState right = actual.getGameState();
+    assertEquals(left.getPlayer().getPosition(), right.getPlayer().getPosition());
+    assertEquals(left.getPlayer().getHealth(), right.getPlayer().getHealth());
+    assertEquals(left.getPlayer().getCrookedArrowsLeft(),
+            right.getPlayer().getCrookedArrowsLeft());
+    assertEquals(left.getPlayerTreasures(), right.getPlayerTreasures());
+    assertEquals(left.getMovingMonsterPositions(), right.getMovingMonsterPositions());
+    assertEquals(left.getVisitedPositions(), right.getVisitedPositions());
+    assertEquals(left.getRemovedMonsters(), right.getRemovedMonsters());
+  }
+}
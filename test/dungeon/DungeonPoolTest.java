@@ -0,0 +1,128 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the pool of dungeons generated in the background.
+ */
+public class DungeonPoolTest {
+
+  private static final DungeonSettings small =
+          new DungeonSettings(6, 7, 3, false, 20, 10, 20, 10, 5, 5);
+
+  /**
+   * Tests that a dungeon taken has the passed settings, whether or not one was ready.
+   */
+  @Test
+  public void testTake() {
+    DungeonPool pool = new DungeonPool(2, 2, 1);
+    assertEquals(small, DungeonSettings.of(pool.take(small)));
+    awaitReady(pool, small, 2);
+    assertEquals(small, DungeonSettings.of(pool.take(small)));
+    awaitReady(pool, small, 2);
+  }
+
+  /**
+   * Tests that filling stops at the capacity of the pool.
+   */
+  @Test
+  public void testFillUpToCapacity() throws InterruptedException {
+    DungeonPool pool = new DungeonPool(3, 2, 2);
+    pool.fill(small);
+    pool.fill(small);
+    awaitReady(pool, small, 3);
+    Thread.sleep(50);
+    assertEquals(3, pool.getReadyCount(small));
+  }
+
+  /**
+   * Tests that only the settings used most recently keep their dungeons.
+   */
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    DungeonPool pool = new DungeonPool(1, 2, 1);
+    DungeonSettings other = small.withDifficulty(2);
+    DungeonSettings third = small.withDifficulty(3);
+    pool.fill(small);
+    pool.fill(other);
+    awaitReady(pool, small, 1);
+    awaitReady(pool, other, 1);
+    pool.fill(small);
+    pool.fill(third);
+    awaitReady(pool, third, 1);
+    assertEquals(1, pool.getReadyCount(small));
+    assertEquals(0, pool.getReadyCount(other));
+  }
+
+  /**
+   * Tests that preparing fills the pool once, and that preparing again does not.
+   */
+  @Test
+  public void testPrepare() throws InterruptedException {
+    DungeonPool pool = new DungeonPool(2, 2, 1);
+    pool.prepare(small);
+    awaitReady(pool, small, 2);
+    pool.take(small);
+    pool.take(small);
+    pool.take(small);
+    awaitReady(pool, small, 2);
+    pool.prepare(small);
+    Thread.sleep(50);
+    assertEquals(2, pool.getReadyCount(small));
+  }
+
+  /**
+   * Tests that a dungeon failing to generate in the background is reported by the
+   * next take, and that other settings are still filled.
+   */
+  @Test
+  public void testBackgroundFailureReported() {
+    DungeonSettings invalid = new DungeonSettings(5, 5, 3, false, 20, 10, 20, 10, 5, 5);
+    DungeonPool pool = new DungeonPool(1, 2, 1);
+    pool.fill(invalid);
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (true) {
+      try {
+        pool.take(invalid);
+      } catch (IllegalStateException e) {
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+        break;
+      } catch (IllegalArgumentException e) {
+        // Generated in the foreground before the background failure was recorded
+        assertTrue(System.nanoTime() < deadline);
+        Thread.yield();
+      }
+    }
+    pool.fill(small);
+    awaitReady(pool, small, 1);
+  }
+
+  /**
+   * Tests that taking without settings is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testTakeNull() {
+    new DungeonPool(1, 1, 1).take(null);
+  }
+
+  /**
+   * Tests that a pool without room for any settings is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSettingsCount() {
+    new DungeonPool(1, 0, 1);
+  }
+
+  private static void awaitReady(DungeonPool pool, DungeonSettings settings, int count) {
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (pool.getReadyCount(settings) < count) {
+      if (System.nanoTime() > deadline) {
+        throw new AssertionError("Timed out waiting for " + count + " dungeons");
+      }
+      Thread.yield();
+    }
+  }
+}
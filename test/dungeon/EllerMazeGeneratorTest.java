@@ -0,0 +1,130 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for generating mazes one row at a time.
+ */
+public class EllerMazeGeneratorTest {
+
+  private static final Direction[] directions = Direction.values();
+
+  /**
+   * Tests that every cell can be reached from every other, with or without wrapping.
+   */
+  @Test
+  public void testConnected() {
+    for (long seed = 0; seed < 20; seed++) {
+      assertConnected(7, 9, seed % 2 == 0, 0, seed);
+      assertConnected(1, 12, seed % 2 == 0, 3, seed);
+      assertConnected(15, 2, seed % 2 == 0, 3, seed);
+      assertConnected(12, 11, seed % 2 == 0, 10, seed);
+    }
+  }
+
+  /**
+   * Tests that exactly the requested number of edges is added to the spanning tree,
+   * or every edge once the request is larger than the edges left over.
+   */
+  @Test
+  public void testInterconnectivityBudget() {
+    for (long seed = 0; seed < 10; seed++) {
+      assertEquals(6 * 8 - 1, countEdges(generate(6, 8, false, 0, seed)));
+      assertEquals(6 * 8 - 1 + 7, countEdges(generate(6, 8, false, 7, seed)));
+      assertEquals(6 * 8 - 1 + 12, countEdges(generate(6, 8, true, 12, seed)));
+    }
+    // Without north-south wrapping a 6 x 8 maze has 6 * 7 + 5 * 8 edges, 6 * 8 with it
+    assertEquals(6 * 7 + 5 * 8, countEdges(generate(6, 8, false, 1000, 1L)));
+    assertEquals(6 * 8 + 5 * 8, countEdges(generate(6, 8, true, 1000, 1L)));
+  }
+
+  /**
+   * Tests that no edge wraps from the last row to the first, even in a wrapping maze.
+   */
+  @Test
+  public void testNoNorthSouthWrap() {
+    byte[] masks = generate(6, 8, true, 1000, 2L);
+    for (int y = 0; y < 8; y++) {
+      assertEquals(0, masks[y] & Direction.NORTH.getMask());
+      assertEquals(0, masks[5 * 8 + y] & Direction.SOUTH.getMask());
+    }
+  }
+
+  /**
+   * Tests that the rows reach the sink in order and match the masks of a whole maze.
+   */
+  @Test
+  public void testRowsInOrder() {
+    byte[] masks = generate(9, 7, true, 5, 3L);
+    int[] next = {0};
+    new EllerMazeGenerator(9, 7, true, new RandomNetwork(3L)).generate(5, (x, cells) -> {
+      assertEquals(next[0]++, x);
+      for (int y = 0; y < 7; y++) {
+        assertEquals(masks[x * 7 + y], cells[y]);
+      }
+    });
+    assertEquals(9, next[0]);
+  }
+
+  private static byte[] generate(int row, int col, boolean isWrapping, int interconnectivity,
+                                 long seed) {
+    return new EllerMazeGenerator(row, col, isWrapping, new RandomNetwork(seed))
+            .generate(interconnectivity);
+  }
+
+  private static void assertConnected(int row, int col, boolean isWrapping,
+                                      int interconnectivity, long seed) {
+    byte[] masks = generate(row, col, isWrapping, interconnectivity, seed);
+    boolean[] seen = new boolean[row * col];
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(0);
+    seen[0] = true;
+    int reached = 1;
+    while (!queue.isEmpty()) {
+      int cell = queue.poll();
+      for (Direction direction : directions) {
+        if ((masks[cell] & direction.getMask()) != 0) {
+          int next = getNeighbour(cell, direction, row, col);
+          assertTrue((masks[next] & direction.reverse().getMask()) != 0);
+          if (!seen[next]) {
+            seen[next] = true;
+            reached++;
+            queue.add(next);
+          }
+        }
+      }
+    }
+    assertEquals(row * col, reached);
+  }
+
+  private static int countEdges(byte[] masks) {
+    int edges = 0;
+    for (int cell = 0; cell < masks.length; cell++) {
+      // Counting every edge from the cell west or north of it
+      edges += (masks[cell] & Direction.EAST.getMask()) != 0 ? 1 : 0;
+      edges += (masks[cell] & Direction.SOUTH.getMask()) != 0 ? 1 : 0;
+    }
+    return edges;
+  }
+
+  private static int getNeighbour(int cell, Direction direction, int row, int col) {
+    int x = cell / col;
+    int y = cell % col;
+    switch (direction) {
+      case NORTH:
+        return ((x + row - 1) % row) * col + y;
+      case SOUTH:
+        return ((x + 1) % row) * col + y;
+      case EAST:
+        return x * col + (y + 1) % col;
+      case WEST:
+      default:
+        return x * col + (y + col - 1) % col;
+    }
+  }
+}
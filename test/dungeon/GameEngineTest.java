@@ -0,0 +1,178 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the rules the game engine applies to commands.
+ */
+public class GameEngineTest {
+
+  private Dungeon dungeon;
+  private GameEngine engine;
+  private Position start;
+  private Direction toCave;
+  private Location cave;
+
+  /**
+   * Sets up an 8 x 8 dungeon with nothing in it but the Otyugh at the end, where the
+   * start has a cave next to it.
+   */
+  @Before
+  public void setUp() {
+    for (long seed = 0; cave == null; seed++) {
+      dungeon = new Dungeon(8, 8, 10, false, 1, 1, 1, 1, 1, 1, seed);
+      Topology topology = dungeon.getTopology();
+      int cell = topology.getCell(dungeon.getStart());
+      for (Direction direction : Direction.values()) {
+        int next = topology.getOpenNeighbour(cell, direction);
+        if (next >= 0 && Integer.bitCount(topology.getMask(next)) != 2) {
+          toCave = direction;
+          cave = dungeon.getGrid().getLocation(topology.getPosition(next));
+          break;
+        }
+      }
+    }
+    engine = new GameEngine(dungeon);
+    start = dungeon.getStart();
+  }
+
+  /**
+   * Tests that moving through a wall is blocked but still takes a turn.
+   */
+  @Test
+  public void testBlockedMove() {
+    int mask = dungeon.getGrid().getMask(start.getX(), start.getY());
+    for (Direction direction : Direction.values()) {
+      if ((mask & direction.getMask()) == 0) {
+        assertEquals(Outcome.BLOCKED, engine.apply(Command.move(direction)));
+        assertEquals(start, dungeon.getPlayerPosition());
+        assertEquals(1, engine.getTurns());
+        return;
+      }
+    }
+  }
+
+  /**
+   * Tests a plain move.
+   */
+  @Test
+  public void testMove() {
+    assertEquals(Outcome.MOVED, engine.apply(Command.move(toCave)));
+    assertEquals(cave.getPosition(), dungeon.getPlayerPosition());
+    assertTrue(engine.getGameState().isVisited(cave.getPosition()));
+  }
+
+  /**
+   * Tests that an unhurt Otyugh always eats the player and that a dead player's
+   * commands are not applied.
+   */
+  @Test
+  public void testEatenByOtyugh() {
+    cave.addMonster(Monster.OTYUGH);
+    assertEquals(Outcome.EATEN_BY_OTYUGH, engine.apply(Command.move(toCave)));
+    assertTrue(engine.isDead());
+    assertFalse(engine.isFinished());
+    assertEquals(Outcome.GAME_OVER, engine.apply(Command.move(toCave.reverse())));
+    assertEquals(1, engine.getTurns());
+  }
+
+  /**
+   * Tests falling into a pit.
+   */
+  @Test
+  public void testFellIntoPit() {
+    cave.addPit(Pit.DEEP_PIT);
+    assertEquals(Outcome.FELL_INTO_PIT, engine.apply(Command.move(toCave)));
+    assertTrue(engine.isDead());
+  }
+
+  /**
+   * Tests that respawning uses up health and puts the player back at the start, and
+   * that the game is over once no health is left.
+   */
+  @Test
+  public void testRespawn() {
+    cave.addPit(Pit.DEEP_PIT);
+    int health = engine.getGameState().getPlayer().getHealth();
+    for (int i = health; i > 0; i--) {
+      assertEquals(Outcome.FELL_INTO_PIT, engine.apply(Command.move(toCave)));
+      assertEquals(Outcome.RESPAWNED, engine.respawn());
+      assertFalse(engine.isDead());
+      assertEquals(start, dungeon.getPlayerPosition());
+      assertEquals(i - 1, engine.getGameState().getPlayer().getHealth());
+    }
+    assertEquals(Outcome.FELL_INTO_PIT, engine.apply(Command.move(toCave)));
+    assertEquals(Outcome.OUT_OF_HEALTH, engine.respawn());
+    assertTrue(engine.isFinished());
+    assertFalse(engine.isWon());
+  }
+
+  /**
+   * Tests that a thief takes a treasure if the player has any.
+   */
+  @Test
+  public void testThief() {
+    cave.addThief(Thief.TREASURE_THIEF);
+    assertEquals(Outcome.ESCAPED_THIEF, engine.apply(Command.move(toCave)));
+    assertNull(engine.getLastStolenTreasure());
+    engine.apply(Command.move(toCave.reverse()));
+    engine.getGameState().getPlayer().pickTreasure(Treasure.RUBY);
+    assertEquals(Outcome.ROBBED, engine.apply(Command.move(toCave)));
+    assertEquals(Treasure.RUBY, engine.getLastStolenTreasure());
+    assertTrue(engine.getGameState().getPlayerTreasures().isEmpty());
+  }
+
+  /**
+   * Tests picking up items that are, and are not, there.
+   */
+  @Test
+  public void testPick() {
+    assertEquals(Outcome.NOTHING_TO_PICK, engine.apply(Command.pickTreasure(0)));
+    cave.addTreasure(Treasure.DIAMOND);
+    engine.apply(Command.move(toCave));
+    assertEquals(Outcome.PICKED, engine.apply(Command.pickTreasure(0)));
+    assertEquals(Outcome.NOTHING_TO_PICK, engine.apply(Command.pickTreasure(0)));
+    assertEquals(1, engine.getGameState().getPlayerTreasures().size());
+  }
+
+  /**
+   * Tests shooting without arrows.
+   */
+  @Test
+  public void testOutOfArrows() {
+    Player player = engine.getGameState().getPlayer();
+    while (player.getCrookedArrowsLeft() > 0) {
+      player.removeWeapon();
+    }
+    assertEquals(Outcome.OUT_OF_ARROWS, engine.apply(Command.shoot(1, toCave)));
+  }
+
+  /**
+   * Tests that reaching the end wins the game and ends it.
+   */
+  @Test
+  public void testWon() {
+    Grid grid = dungeon.getGrid();
+    Position end = dungeon.getEnd();
+    grid.getLocation(end).removeMonster();
+    Direction last = null;
+    for (Direction direction : Direction.values()) {
+      Position next = grid.getNeighbour(end, direction);
+      if (next != null) {
+        engine.getGameState().getPlayer().move(next);
+        last = direction.reverse();
+        break;
+      }
+    }
+    assertEquals(Outcome.WON, engine.apply(Command.move(last)));
+    assertTrue(engine.isWon());
+    assertTrue(engine.isFinished());
+    assertEquals(Outcome.GAME_OVER, engine.apply(Command.move(last.reverse())));
+  }
+}
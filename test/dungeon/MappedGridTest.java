@@ -0,0 +1,236 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for grids kept in a memory-mapped file and the locations that
+ * read and write their records.
+ */
+public class MappedGridTest {
+
+  private Path file;
+  private MappedGrid grid;
+  private Location cave;
+  private Location tunnel;
+
+  /**
+   * Sets up a mapped grid with one cave and one tunnel picked out.
+   */
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile("mapped", ".bin");
+    grid = new MappedGrid(file, 10, 10, new RandomNetwork(3L));
+    grid.generate(0, false);
+    for (int cell = 0; cell < 100; cell++) {
+      if (Integer.bitCount(grid.getMask(cell)) == 2) {
+        tunnel = grid.getLocation(cell / 10, cell % 10);
+      } else {
+        cave = grid.getLocation(cell / 10, cell % 10);
+      }
+    }
+  }
+
+  /**
+   * Deletes the backing file.
+   */
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Tests that the health of a monster is kept in the record across flyweights.
+   */
+  @Test
+  public void testMonsterHealth() {
+    assertTrue(cave.addMonster(Monster.OTYUGH));
+    Location again = grid.getLocation(cave.getPosition());
+    assertEquals(Monster.OTYUGH, again.getMonster());
+    assertEquals(Monster.OTYUGH.getHealthPoints(), again.getMHealth());
+    again.hit(1);
+    assertEquals(Monster.OTYUGH.getHealthPoints() - 1, cave.getMHealth());
+    cave.hit(10);
+    assertEquals(0, grid.getLocation(cave.getPosition()).getMHealth());
+    cave.removeMonster();
+    assertFalse(grid.getLocation(cave.getPosition()).hasMonster());
+  }
+
+  /**
+   * Tests that every field of a record is kept apart from the others.
+   */
+  @Test
+  public void testFieldsKeptApart() {
+    int mask = cave.getMask();
+    cave.addMonster(Monster.OTYUGH);
+    cave.addMovingMonster(Monster.BEHOLDER);
+    cave.addPit(Pit.DEEP_PIT);
+    cave.addThief(Thief.TREASURE_THIEF);
+    cave.addTreasure(Treasure.SAPPHIRE);
+    cave.addWeapon(Weapon.CROOKED_ARROW);
+    Location again = grid.getLocation(cave.getPosition());
+    assertEquals(mask, again.getMask());
+    assertEquals(Monster.OTYUGH, again.getMonster());
+    assertEquals(Monster.BEHOLDER, again.getMovingMonster());
+    assertEquals(Monster.OTYUGH.getHealthPoints(), again.getMHealth());
+    assertTrue(again.hasPit());
+    assertTrue(again.hasThief());
+    assertEquals(Collections.singletonList(Treasure.SAPPHIRE), again.getTreasures());
+    assertEquals(Collections.singletonList(Weapon.CROOKED_ARROW), again.getWeapons());
+    again.removeMovingMonster();
+    again.removeMonster();
+    assertTrue(cave.hasPit());
+    assertTrue(cave.hasThief());
+    assertNull(cave.getMovingMonster());
+    assertEquals(mask, cave.getMask());
+  }
+
+  /**
+   * Tests that item counts stop at what their bit fields hold, and are kept per kind.
+   */
+  @Test
+  public void testItemCaps() {
+    int treasures = 0;
+    while (cave.addTreasure(Treasure.RUBY)) {
+      treasures++;
+    }
+    // Three kinds of treasure share a byte, two bits each
+    assertEquals(3, treasures);
+    assertTrue(cave.addTreasure(Treasure.DIAMOND));
+    assertEquals(Arrays.asList(Treasure.RUBY, Treasure.RUBY, Treasure.RUBY, Treasure.DIAMOND),
+            cave.getTreasures());
+    assertEquals(Treasure.RUBY, cave.getTreasures().remove(0));
+    assertTrue(cave.addTreasure(Treasure.RUBY));
+    int weapons = 0;
+    while (cave.addWeapon(Weapon.CROOKED_ARROW)) {
+      weapons++;
+    }
+    assertEquals(255, weapons);
+    assertEquals(255, grid.getLocation(cave.getPosition()).getWeapons().size());
+  }
+
+  /**
+   * Tests that tunnels hold no monsters, treasure or weapons, like heap tunnels.
+   */
+  @Test
+  public void testTunnel() {
+    assertEquals("Tunnel", tunnel.toString());
+    assertEquals(2, Integer.bitCount(tunnel.getMask()));
+    assertFalse(tunnel.addMonster(Monster.OTYUGH));
+    assertFalse(tunnel.addTreasure(Treasure.RUBY));
+    assertFalse(tunnel.addWeapon(Weapon.CROOKED_ARROW));
+    tunnel.addPit(Pit.DEEP_PIT);
+    assertFalse(tunnel.hasMonster());
+    assertFalse(tunnel.hasTreasure());
+    assertFalse(tunnel.hasWeapon());
+    assertFalse(tunnel.hasPit());
+    assertTrue(tunnel.addMovingMonster(Monster.BEHOLDER));
+    assertTrue(tunnel.hasMovingMonster());
+    assertEquals(2, tunnel.getValidActions().size());
+  }
+
+  /**
+   * Tests that a mapped dungeon places its start and end apart and its items in the
+   * exact counts asked for, and smells like a dungeon whose smells are precomputed.
+   */
+  @Test
+  public void testCreateMappedDungeon() throws IOException {
+    DungeonSettings settings = new DungeonSettings(30, 40, 25, false, 20, 10, 30, 10, 5, 5);
+    Dungeon dungeon = settings.createMappedDungeon(file, 9L);
+    Grid dungeonGrid = dungeon.getGrid();
+    assertTrue(dungeonGrid.calculatePath(dungeon.getStart(), dungeon.getEnd(),
+            PathStrategy.BIDIRECTIONAL).size() >= 5);
+    int caves = dungeonGrid.getTotalCaves();
+    int pits = 0;
+    int monsters = 0;
+    int weapons = 0;
+    int treasures = 0;
+    for (int x = 0; x < 30; x++) {
+      for (int y = 0; y < 40; y++) {
+        Location location = dungeonGrid.getLocation(x, y);
+        pits += location.hasPit() ? 1 : 0;
+        monsters += location.hasMonster() ? 1 : 0;
+        weapons += location.getWeapons().size();
+        treasures += location.getTreasures().size();
+      }
+    }
+    assertEquals(10 * caves / 100, pits);
+    assertEquals(10 * caves / 100, monsters);
+    assertEquals(30 * caves / 100, weapons);
+    assertEquals(20 * caves / 100, treasures);
+    assertEquals(5 * 1200 / 100,
+            dungeon.getCurrentGameState().getMovingMonsterPositions().size());
+    assertTrue(dungeonGrid.getLocation(dungeon.getEnd()).hasMonster());
+
+    Topology topology = dungeon.getTopology();
+    SmellField expected = new PrecomputedSmellField(topology,
+            cell -> dungeonGrid.getLocation(cell / 40, cell % 40).hasMonster(),
+            cell -> dungeonGrid.getLocation(cell / 40, cell % 40).hasPit());
+    GameState state = dungeon.getCurrentGameState();
+    for (int cell = 0; cell < 1200; cell++) {
+      Position position = topology.getPosition(cell);
+      state.getPlayer().move(position);
+      assertEquals(expected.isSmellingLessPungent(position),
+              state.isSmellingLessPungentNearby());
+      assertEquals(expected.isSmellingMorePungent(position),
+              state.isSmellingMorePungentNearby());
+      assertEquals(expected.isSmellingPetrichor(position), state.isSmellingPetrichorNearby());
+    }
+  }
+
+  /**
+   * Tests that paths on a grid too large for dense search state are as short as the
+   * breadth-first distances, whichever strategy finds them.
+   */
+  @Test
+  public void testPathsBeyondDenseCells() throws IOException {
+    int col = PathFinder.MAX_DENSE_CELLS / 1024;
+    MappedGrid large = new MappedGrid(file, 1025, col, new RandomNetwork(5L));
+    large.generate(100, true);
+    int[] distances = new PathFinder(large).calculateDistances(0, new int[1025 * col]);
+    Position start = large.getPosition(0);
+    for (int cell = 1; cell < 1025 * col; cell += 262147) {
+      Position end = large.getPosition(cell);
+      for (PathStrategy strategy : PathStrategy.values()) {
+        List<Action> path = large.calculatePath(start, end, strategy);
+        if (strategy != PathStrategy.DFS) {
+          assertEquals(distances[cell], path.size());
+        }
+        Position at = start;
+        for (Action action : path) {
+          at = large.getNeighbour(at, action.getDirection());
+        }
+        assertEquals(end, at);
+      }
+    }
+  }
+
+  /**
+   * Tests that grids with more cells than paths can be found on are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooLarge() throws IOException {
+    new MappedGrid(file, PathFinder.MAX_CELLS / 1024 + 1, 1024, new RandomNetwork(5L));
+  }
+
+  /**
+   * Tests that a mapped dungeon does not build a map of every location.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testNoMap() throws IOException {
+    new DungeonSettings(30, 40, 25, false, 20, 10, 30, 10, 5, 5)
+            .createMappedDungeon(file, 9L).getMap();
+  }
+}
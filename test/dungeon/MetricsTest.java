@@ -0,0 +1,171 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the counters, histograms and spans of the metrics.
+ */
+public class MetricsTest {
+
+  /**
+   * Tests that values below 64 each have a bucket of their own.
+   */
+  @Test
+  public void testExactBelow64() {
+    for (long value = 0; value < 64; value++) {
+      Metrics.Histogram histogram = new Metrics.Histogram();
+      histogram.record(value);
+      histogram.record(Long.MAX_VALUE);
+      assertEquals(value, histogram.getPercentile(50));
+    }
+  }
+
+  /**
+   * Tests that every power of two from 64 up is split into 32 buckets, so a value is
+   * reported as the highest value of its bucket.
+   */
+  @Test
+  public void testBucketBounds() {
+    for (int bits = 6; bits < 63; bits++) {
+      long power = 1L << bits;
+      long width = power >>> 5;
+      assertEquals(power - 1, getBucketTop(power - 1));
+      assertEquals(power + width - 1, getBucketTop(power));
+      assertEquals(power + width - 1, getBucketTop(power + width - 1));
+      assertEquals(power + 2 * width - 1, getBucketTop(power + width));
+      assertEquals(2 * power - 1, getBucketTop(2 * power - 1));
+    }
+    assertEquals(65, getBucketTop(64));
+    assertEquals(1007, getBucketTop(1000));
+  }
+
+  /**
+   * Tests that the largest value fits in the last bucket.
+   */
+  @Test
+  public void testLargestValue() {
+    Metrics.Histogram histogram = new Metrics.Histogram();
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+    assertEquals(Long.MAX_VALUE, histogram.getMax());
+  }
+
+  /**
+   * Tests that a percentile is the value at its rank, rounded up.
+   */
+  @Test
+  public void testPercentileRank() {
+    Metrics.Histogram histogram = new Metrics.Histogram();
+    for (long value = 1; value <= 100; value++) {
+      histogram.record(value);
+    }
+    assertEquals(1, histogram.getPercentile(0));
+    assertEquals(1, histogram.getPercentile(1));
+    assertEquals(2, histogram.getPercentile(1.5));
+    assertEquals(50, histogram.getPercentile(50));
+    assertEquals(99, histogram.getPercentile(99));
+    assertEquals(100, histogram.getPercentile(100));
+    assertEquals(100, histogram.getCount());
+    assertEquals(50.5, histogram.getMean(), 1e-9);
+  }
+
+  /**
+   * Tests that a percentile is never above the largest value recorded.
+   */
+  @Test
+  public void testPercentileCappedAtMax() {
+    Metrics.Histogram histogram = new Metrics.Histogram();
+    histogram.record(130);
+    assertEquals(130, histogram.getPercentile(50));
+    assertEquals(130, histogram.getPercentile(100));
+  }
+
+  /**
+   * Tests that negative values are recorded as 0.
+   */
+  @Test
+  public void testNegative() {
+    Metrics.Histogram histogram = new Metrics.Histogram();
+    histogram.record(-5);
+    assertEquals(1, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0, histogram.getMean(), 0);
+    assertEquals(0, histogram.getPercentile(100));
+  }
+
+  /**
+   * Tests that an empty histogram reports 0.
+   */
+  @Test
+  public void testEmpty() {
+    Metrics.Histogram histogram = new Metrics.Histogram();
+    assertEquals(0, histogram.getPercentile(50));
+    assertEquals(0, histogram.getMean(), 0);
+  }
+
+  /**
+   * Tests that percentiles must be from 0 to 100.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentile() {
+    new Metrics.Histogram().getPercentile(101);
+  }
+
+  /**
+   * Tests that a span records the time and the allocation of its work, and that its
+   * event is not committed without a recording.
+   */
+  @Test
+  public void testSpan() {
+    Metrics metrics = new Metrics();
+    Metrics.Span span = metrics.start("work", new GameEvents.PathQuery());
+    byte[] work = new byte[1 << 20];
+    assertFalse(span.end());
+    assertEquals(1 << 20, work.length);
+    assertEquals(1, metrics.getHistogram("work").getCount());
+    Metrics.Histogram allocation = metrics.getAllocationHistogram("work");
+    assertEquals(1, allocation.getCount());
+    assertTrue(allocation.getMax() >= 1 << 20);
+  }
+
+  /**
+   * Tests that work is measured by metrics that record spans, and that without them
+   * and without a recording it is not.
+   */
+  @Test
+  public void testIsMeasured() {
+    assertTrue(new Metrics().isMeasured(GameEvents.pathQueryType));
+    assertFalse(new Metrics(false).isMeasured(GameEvents.pathQueryType));
+    assertEquals(Metrics.isEnabled(),
+            Metrics.getDefault().isMeasured(GameEvents.playerMoveType));
+  }
+
+  /**
+   * Tests that counters and both kinds of histograms are dumped.
+   *
+   * @throws IOException if appending fails
+   */
+  @Test
+  public void testDump() throws IOException {
+    Metrics metrics = new Metrics();
+    metrics.increment("moves", 2);
+    metrics.start("turn", new GameEvents.PlayerMove()).end();
+    StringBuilder out = new StringBuilder();
+    metrics.dump(out);
+    assertTrue(out.toString().contains("moves"));
+    assertTrue(out.toString().contains("us max="));
+    assertTrue(out.toString().contains("B max="));
+  }
+
+  private static long getBucketTop(long value) {
+    Metrics.Histogram histogram = new Metrics.Histogram();
+    histogram.record(value);
+    histogram.record(Long.MAX_VALUE);
+    return histogram.getPercentile(50);
+  }
+}
@@ -0,0 +1,175 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for grids that keep 4 bits of topology per cell and their items
+ * apart, against heap grids generated from the same seed.
+ */
+public class PackedGridTest {
+
+  private Grid2D heap;
+  private PackedGrid packed;
+
+  /**
+   * Sets up a wrapping heap grid and a packed grid of the same maze.
+   */
+  @Before
+  public void setUp() {
+    heap = new Grid2D(9, 11, new RandomNetwork(4L));
+    heap.generateMaze(12, true);
+    packed = new PackedGrid(9, 11, new RandomNetwork(4L));
+    packed.generate(12, true);
+  }
+
+  /**
+   * Tests that every location has the same kind, mask and valid actions as on the
+   * heap grid, and the same neighbours across the wrapped edges.
+   */
+  @Test
+  public void testLocations() {
+    assertEquals(heap.getTotalCaves(), packed.getTotalCaves());
+    assertEquals(heap.getTotalTunnel(), packed.getTotalTunnel());
+    for (int x = 0; x < 9; x++) {
+      for (int y = 0; y < 11; y++) {
+        Location expected = heap.getLocation(x, y);
+        Location actual = packed.getLocation(x, y);
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.getMask(), actual.getMask());
+        assertEquals(expected.getValidActions(), actual.getValidActions());
+        for (Direction direction : Direction.values()) {
+          assertEquals(expected.getNeighbour(direction), actual.getNeighbour(direction));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that every strategy finds paths as long as on the heap grid.
+   */
+  @Test
+  public void testCalculatePath() {
+    Position start = packed.getPosition(0, 0);
+    for (PathStrategy strategy : PathStrategy.values()) {
+      for (int x = 0; x < 9; x++) {
+        for (int y = 0; y < 11; y++) {
+          Position end = packed.getPosition(x, y);
+          List<Action> path = packed.calculatePath(start, end, strategy);
+          assertEquals(heap.calculatePath(start, end, strategy).size(), path.size());
+          Position at = start;
+          for (Action action : path) {
+            at = packed.getNeighbour(at, action.getDirection());
+          }
+          assertEquals(end, at);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that what a location holds is kept across the flyweights of its cell and
+   * apart from its neighbours.
+   */
+  @Test
+  public void testItemsKept() {
+    Location cave = findCave();
+    assertNotSame(cave, packed.getLocation(cave.getPosition()));
+    int mask = cave.getMask();
+    assertTrue(cave.addMonster(Monster.OTYUGH));
+    cave.addPit(Pit.DEEP_PIT);
+    cave.addTreasure(Treasure.RUBY);
+    cave.addWeapon(Weapon.CROOKED_ARROW);
+    Location again = packed.getLocation(cave.getPosition());
+    assertEquals(mask, again.getMask());
+    assertEquals(Monster.OTYUGH, again.getMonster());
+    assertTrue(again.hasPit());
+    assertEquals(Collections.singletonList(Treasure.RUBY), again.getTreasures());
+    assertEquals(Collections.singletonList(Weapon.CROOKED_ARROW), again.getWeapons());
+    for (Direction direction : Direction.values()) {
+      Position next = cave.getNeighbour(direction);
+      if (next != null && !next.equals(cave.getPosition())) {
+        assertFalse(packed.getLocation(next).hasPit());
+      }
+    }
+  }
+
+  /**
+   * Tests that items placed in many cells survive the side table growing.
+   */
+  @Test
+  public void testManyItems() {
+    for (int cell = 0; cell < 99; cell++) {
+      packed.getLocation(cell / 11, cell % 11).addThief(Thief.TREASURE_THIEF);
+    }
+    for (int cell = 0; cell < 99; cell++) {
+      Location location = packed.getLocation(cell / 11, cell % 11);
+      assertTrue(location.hasThief());
+      assertEquals(heap.getMask(cell / 11, cell % 11), location.getMask());
+    }
+  }
+
+  /**
+   * Tests that a copy keeps the items of the grid and that the two change apart.
+   */
+  @Test
+  public void testCopy() {
+    Location cave = findCave();
+    cave.addTreasure(Treasure.DIAMOND);
+    Grid copy = packed.copy();
+    Location copied = copy.getLocation(cave.getPosition());
+    assertEquals(Collections.singletonList(Treasure.DIAMOND), copied.getTreasures());
+    copied.addTreasure(Treasure.SAPPHIRE);
+    assertEquals(1, cave.getTreasures().size());
+    assertEquals(2, copy.getLocation(cave.getPosition()).getTreasures().size());
+    assertEquals(packed.getMask(cave.getPosition().getX(), cave.getPosition().getY()),
+            copied.getMask());
+  }
+
+  /**
+   * Tests that a packed dungeon is the same dungeon as a heap one of the same seed.
+   */
+  @Test
+  public void testCreatePackedDungeon() {
+    DungeonSettings settings = new DungeonSettings(12, 14, 20, true, 20, 10, 30, 10, 5, 5);
+    Dungeon expected = settings.createDungeon(6L);
+    Dungeon actual = settings.createPackedDungeon(6L);
+    assertEquals(expected.getStart(), actual.getStart());
+    assertEquals(expected.getEnd(), actual.getEnd());
+    for (int x = 0; x < 12; x++) {
+      for (int y = 0; y < 14; y++) {
+        Location heapLocation = expected.getGrid().getLocation(x, y);
+        Location packedLocation = actual.getGrid().getLocation(x, y);
+        assertEquals(heapLocation.getMonster(), packedLocation.getMonster());
+        assertEquals(heapLocation.getMovingMonster(), packedLocation.getMovingMonster());
+        assertEquals(heapLocation.hasPit(), packedLocation.hasPit());
+        assertEquals(heapLocation.hasThief(), packedLocation.hasThief());
+        assertEquals(heapLocation.getTreasures(), packedLocation.getTreasures());
+        assertEquals(heapLocation.getWeapons(), packedLocation.getWeapons());
+        Position position = heapLocation.getPosition();
+        expected.getCurrentGameState().getPlayer().move(position);
+        actual.getCurrentGameState().getPlayer().move(position);
+        assertEquals(expected.isSmellingLessPungentNearby(),
+                actual.isSmellingLessPungentNearby());
+        assertEquals(expected.isSmellingMorePungentNearby(),
+                actual.isSmellingMorePungentNearby());
+        assertEquals(expected.isSmellingPetrichorNearby(), actual.isSmellingPetrichorNearby());
+      }
+    }
+  }
+
+  private Location findCave() {
+    for (int cell = 0; ; cell++) {
+      if (Integer.bitCount(packed.getMask(cell)) != 2) {
+        return packed.getLocation(cell / 11, cell % 11);
+      }
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the smells of Otyughs and pits.
+ */
+public class SmellFieldTest {
+
+  /**
+   * Tests that Otyughs and pits added after the dungeon is built are smelt, by
+   * comparing every cell with a field computed from scratch and one counted on demand.
+   */
+  @Test
+  public void testMonstersAndPitsAddedLater() {
+    Dungeon dungeon = new Dungeon(9, 10, 12, true, 10, 1, 10, 1, 1, 1, 7L);
+    dungeon.addMonster(60);
+    dungeon.addPit(40);
+    assertSmellsMatch(dungeon);
+  }
+
+  /**
+   * Tests that slaying an Otyugh removes its smell.
+   */
+  @Test
+  public void testMonsterSlain() {
+    Dungeon dungeon = new Dungeon(8, 8, 10, false, 10, 50, 10, 1, 1, 1, 11L);
+    Topology topology = dungeon.getTopology();
+    SmellField field = createField(dungeon, false);
+    for (int cell = 0; cell < 64; cell++) {
+      Location location = dungeon.getGrid().getLocation(cell / 8, cell % 8);
+      if (location.hasMonster()) {
+        location.removeMonster();
+        field.removeMonster(topology.getPosition(cell));
+      }
+    }
+    SmellField expected = createField(dungeon, false);
+    for (int cell = 0; cell < 64; cell++) {
+      Position position = topology.getPosition(cell);
+      assertEquals(expected.isSmellingLessPungent(position),
+              field.isSmellingLessPungent(position));
+      assertEquals(expected.isSmellingMorePungent(position),
+              field.isSmellingMorePungent(position));
+      assertEquals(false, field.isSmellingMorePungent(position));
+    }
+  }
+
+  private static void assertSmellsMatch(Dungeon dungeon) {
+    GameState state = dungeon.getCurrentGameState();
+    Topology topology = dungeon.getTopology();
+    SmellField precomputed = createField(dungeon, false);
+    SmellField onDemand = createField(dungeon, true);
+    for (int cell = 0; cell < dungeon.getRows() * dungeon.getColumns(); cell++) {
+      Position position = topology.getPosition(cell);
+      state.getPlayer().move(position);
+      assertEquals(precomputed.isSmellingLessPungent(position),
+              state.isSmellingLessPungentNearby());
+      assertEquals(precomputed.isSmellingMorePungent(position),
+              state.isSmellingMorePungentNearby());
+      assertEquals(precomputed.isSmellingPetrichor(position),
+              state.isSmellingPetrichorNearby());
+      assertEquals(onDemand.isSmellingLessPungent(position),
+              state.isSmellingLessPungentNearby());
+      assertEquals(onDemand.isSmellingMorePungent(position),
+              state.isSmellingMorePungentNearby());
+      assertEquals(onDemand.isSmellingPetrichor(position),
+              state.isSmellingPetrichorNearby());
+    }
+  }
+
+  private static SmellField createField(Dungeon dungeon, boolean isOnDemand) {
+    Topology topology = dungeon.getTopology();
+    int col = topology.getCol();
+    Grid grid = dungeon.getGrid();
+    if (isOnDemand) {
+      return new OnDemandSmellField(topology,
+              cell -> grid.getLocation(cell / col, cell % col).hasMonster(),
+              cell -> grid.getLocation(cell / col, cell % col).hasPit());
+    }
+    return new PrecomputedSmellField(topology,
+            cell -> grid.getLocation(cell / col, cell % col).hasMonster(),
+            cell -> grid.getLocation(cell / col, cell % col).hasPit());
+  }
+}
@@ -0,0 +1,43 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the decoded and scaled images of the sprites.
+ */
+public class SpriteCacheTest {
+
+  /**
+   * Tests that every sprite is read from its asset and decoded once.
+   */
+  @Test
+  public void testLoadAll() {
+    SpriteCache.loadAll();
+    for (Sprite sprite : Sprite.values()) {
+      BufferedImage image = SpriteCache.getImage(sprite);
+      assertTrue(image.getWidth() > 1 || image.getHeight() > 1);
+      assertSame(image, SpriteCache.getImage(sprite));
+    }
+  }
+
+  /**
+   * Tests that asking for ever more sizes keeps only the most recent ones, and that
+   * the size asked for last is still kept.
+   */
+  @Test
+  public void testScaledImagesBounded() {
+    BufferedImage image = null;
+    for (int size = 1; size <= 3 * SpriteCache.MAX_SCALED_IMAGES; size++) {
+      image = SpriteCache.getScaledImage(Sprite.BLANK, size, size);
+      assertEquals(size, image.getWidth());
+    }
+    assertEquals(SpriteCache.MAX_SCALED_IMAGES, SpriteCache.getScaledImageCount());
+    assertSame(image, SpriteCache.getScaledImage(Sprite.BLANK, 3 * SpriteCache.MAX_SCALED_IMAGES,
+            3 * SpriteCache.MAX_SCALED_IMAGES));
+  }
+}
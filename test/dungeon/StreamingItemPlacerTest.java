@@ -0,0 +1,70 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * A JUnit test class for placing items in two passes over the grid.
+ */
+public class StreamingItemPlacerTest {
+
+  private final Grid2D grid = createGrid();
+
+  private static Grid2D createGrid() {
+    Grid2D grid = new Grid2D(9, 11, new RandomNetwork(4L));
+    grid.generateMaze(6, true);
+    return grid;
+  }
+
+  /**
+   * Tests that without repeats the exact count is placed in distinct eligible cells.
+   */
+  @Test
+  public void testDistinct() {
+    int[] placed = place(false, 30);
+    int total = 0;
+    for (int cell = 0; cell < placed.length; cell++) {
+      assertTrue(placed[cell] <= (cell % 3 == 0 ? 1 : 0));
+      total += placed[cell];
+    }
+    assertEquals(30, total);
+  }
+
+  /**
+   * Tests that without repeats no more cells are placed than are eligible.
+   */
+  @Test
+  public void testFewerEligible() {
+    int[] placed = place(false, 1000);
+    for (int cell = 0; cell < placed.length; cell++) {
+      assertEquals(cell % 3 == 0 ? 1 : 0, placed[cell]);
+    }
+  }
+
+  /**
+   * Tests that with repeats the exact count is met by sharing it out evenly.
+   */
+  @Test
+  public void testRepeating() {
+    int[] placed = place(true, 100);
+    int total = 0;
+    for (int cell = 0; cell < placed.length; cell++) {
+      if (cell % 3 == 0) {
+        assertTrue(placed[cell] == 3 || placed[cell] == 4);
+      }
+      total += placed[cell];
+    }
+    assertEquals(100, total);
+  }
+
+  private int[] place(boolean isRepeating, int count) {
+    // Every third cell of 99 is eligible, caves and tunnels alike
+    int[] placed = new int[99];
+    int total = new StreamingItemPlacer(grid, new RandomNetwork(8L))
+            .place(false, cell -> cell % 3 == 0, count, isRepeating, cell -> placed[cell]++);
+    assertEquals(isRepeating ? count : Math.min(count, 33), total);
+    return placed;
+  }
+}
@@ -0,0 +1,93 @@
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for totalling and merging the results of a tournament.
+ */
+public class TournamentResultTest {
+
+  /**
+   * Tests that deaths are counted by cause and games are totalled.
+   */
+  @Test
+  public void testRecord() {
+    TournamentResult result = new TournamentResult();
+    result.recordDeath(Outcome.EATEN_BY_OTYUGH);
+    result.recordDeath(Outcome.FELL_INTO_PIT);
+    result.recordDeath(Outcome.FELL_INTO_PIT);
+    result.recordDeath(Outcome.EATEN_BY_BEHOLDER);
+    result.recordGame(true, 30, 2);
+    result.recordGame(false, 50, 1);
+    result.recordGame(true, 10, 0);
+    assertEquals(3, result.getGames());
+    assertEquals(2, result.getWins());
+    assertEquals(2.0 / 3, result.getWinRate(), 1e-9);
+    assertEquals(1, result.getDeathsByOtyugh());
+    assertEquals(2, result.getDeathsByPit());
+    assertEquals(1, result.getDeathsByBeholder());
+    assertEquals(90, result.getTurns());
+    assertEquals(3, result.getTreasure());
+  }
+
+  /**
+   * Tests that a result without games has a win rate of 0.
+   */
+  @Test
+  public void testEmpty() {
+    assertEquals(0, new TournamentResult().getWinRate(), 0);
+  }
+
+  /**
+   * Tests that only deaths can be recorded as deaths.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testRecordNotADeath() {
+    new TournamentResult().recordDeath(Outcome.MOVED);
+  }
+
+  /**
+   * Tests that merging adds up every total.
+   */
+  @Test
+  public void testMerge() {
+    TournamentResult left = new TournamentResult();
+    left.recordDeath(Outcome.EATEN_BY_OTYUGH);
+    left.recordGame(true, 20, 1);
+    TournamentResult right = new TournamentResult();
+    right.recordDeath(Outcome.FELL_INTO_PIT);
+    right.recordDeath(Outcome.EATEN_BY_BEHOLDER);
+    right.recordGame(false, 40, 3);
+    right.recordGame(true, 5, 0);
+    TournamentResult merged = left.merge(right);
+    assertEquals(3, merged.getGames());
+    assertEquals(2, merged.getWins());
+    assertEquals(1, merged.getDeathsByOtyugh());
+    assertEquals(1, merged.getDeathsByPit());
+    assertEquals(1, merged.getDeathsByBeholder());
+    assertEquals(65, merged.getTurns());
+    assertEquals(4, merged.getTreasure());
+  }
+
+  /**
+   * Tests that the totals of a tournament do not depend on how its games are split
+   * between threads.
+   */
+  @Test
+  public void testTournamentIndependentOfParallelism() {
+    List<BotStrategy> strategies = Arrays.asList(BotStrategy.values());
+    Map<Strategy, TournamentResult> serial =
+            new Tournament(DungeonSettings.DEFAULT, 40, 5L, 1).run(strategies);
+    Map<Strategy, TournamentResult> parallel =
+            new Tournament(DungeonSettings.DEFAULT, 40, 5L, 4).run(strategies);
+    for (Strategy strategy : strategies) {
+      assertEquals(40, serial.get(strategy).getGames());
+      assertEquals(serial.get(strategy).toString(), parallel.get(strategy).toString());
+    }
+  }
+}